@@ -0,0 +1,24 @@
+package com.meterware.simplestub;
+/*
+ * Copyright (c) 2026 Russell Gold
+ *
+ * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
+ */
+
+/**
+ * Computes the result of a call to a method of a configurable stub.
+ *
+ * @author Russell Gold
+ * @since 1.3.4
+ */
+@FunctionalInterface
+public interface Answer {
+
+    /**
+     * Returns the value for a call to return, or throws the exception it should throw.
+     * @param arguments the arguments of the call, with primitives boxed
+     * @return the value to return, which is ignored if the method returns void
+     * @throws Throwable any exception to be thrown by the method
+     */
+    Object answer(Object[] arguments) throws Throwable;
+}
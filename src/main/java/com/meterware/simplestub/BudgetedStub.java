@@ -0,0 +1,22 @@
+package com.meterware.simplestub;
+/*
+ * Copyright (c) 2026 Russell Gold
+ *
+ * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
+ */
+
+/**
+ * Implemented by stubs created with {@link Stub#createBudgetedStub}, whose generated methods charge each call
+ * against a budget.
+ *
+ * @author Russell Gold
+ * @since 1.3.4
+ */
+public interface BudgetedStub {
+
+    /**
+     * Returns the call budget of this stub.
+     * @return the budget owned by this stub
+     */
+    CallBudget getCallBudget();
+}
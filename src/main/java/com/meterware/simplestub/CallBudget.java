@@ -0,0 +1,121 @@
+package com.meterware.simplestub;
+/*
+ * Copyright (c) 2026 Russell Gold
+ *
+ * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
+ */
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The limits on the number of calls which may be made to the generated methods of a budgeted stub. Each call
+ * increments an atomic counter for its method, and another for the stub as a whole; if either exceeds its limit,
+ * the call throws a {@link CallBudgetExceededException}. No method is limited until a limit is set.
+ * <pre>
+ *     OrderDao dao = Stub.createBudgetedStub(OrderDao.class);
+ *     Stub.getCallBudget(dao).limit("findLines", 1).limitTotal(3);
+ * </pre>
+ *
+ * @author Russell Gold
+ * @since 1.3.4
+ */
+public class CallBudget {
+
+    private static final long UNLIMITED = Long.MAX_VALUE;
+
+    private final String[] methodIds;
+    private final AtomicLongArray counts;
+    private final AtomicLongArray limits;
+    private final AtomicLong totalCount = new AtomicLong();
+    private volatile long totalLimit = UNLIMITED;
+
+    /**
+     * Creates a budget for the generated methods of a stub. This is called by generated stubs and is not intended
+     * to be called directly.
+     * @param methodIds the name and descriptor of each generated method, in order of their indices, separated by
+     *                  {@link InvocationCounters#METHOD_ID_SEPARATOR}
+     */
+    public CallBudget(String methodIds) {
+        this.methodIds = MethodIds.split(methodIds);
+        counts = new AtomicLongArray(this.methodIds.length);
+        limits = new AtomicLongArray(this.methodIds.length);
+        for (int i = 0; i < this.methodIds.length; i++)
+            limits.set(i, UNLIMITED);
+    }
+
+    /**
+     * Charges a call to a generated method against the budget. This is called by generated stubs and is not
+     * intended to be called directly.
+     * @param methodIndex the index of the method
+     * @throws CallBudgetExceededException if the call exceeds the budget
+     */
+    public void charge(int methodIndex) {
+        long count = counts.incrementAndGet(methodIndex);
+        if (count > limits.get(methodIndex))
+            throw new CallBudgetExceededException(methodIds[methodIndex], count,
+                        "Method %s called %d times, exceeding its budget of %d", methodIds[methodIndex], count, limits.get(methodIndex));
+
+        long total = totalCount.incrementAndGet();
+        if (total > totalLimit)
+            throw new CallBudgetExceededException(methodIds[methodIndex], total,
+                        "Call %d, to method %s, exceeds the total budget of %d", total, methodIds[methodIndex], totalLimit);
+    }
+
+    /**
+     * Limits the number of calls to the generated methods with the specified name. Each overload is limited separately.
+     * @param methodName the name of the method, or its name followed by its descriptor to select a single overload
+     * @param maxCalls the maximum number of calls permitted
+     * @return this budget
+     */
+    public CallBudget limit(String methodName, long maxCalls) {
+        boolean found = false;
+        for (int i = 0; i < methodIds.length; i++)
+            if (MethodIds.matches(methodIds[i], methodName)) {
+                limits.set(i, maxCalls);
+                found = true;
+            }
+
+        if (!found)
+            throw new SimpleStubException("No generated method named %s", methodName);
+        return this;
+    }
+
+    /**
+     * Limits the total number of calls to the generated methods of the stub.
+     * @param maxCalls the maximum number of calls permitted
+     * @return this budget
+     */
+    public CallBudget limitTotal(long maxCalls) {
+        totalLimit = maxCalls;
+        return this;
+    }
+
+    /**
+     * Returns the number of calls charged to the generated methods with the specified name, including all overloads.
+     * @param methodName the name of the method, or its name followed by its descriptor to select a single overload
+     * @return the number of calls charged
+     */
+    public long getCount(String methodName) {
+        long count = 0;
+        for (int i = 0; i < methodIds.length; i++)
+            if (MethodIds.matches(methodIds[i], methodName))
+                count += counts.get(i);
+        return count;
+    }
+
+    /**
+     * Returns the number of calls charged to all of the generated methods of the stub.
+     */
+    public long getTotalCount() {
+        return totalCount.get();
+    }
+
+    /**
+     * Resets the counts, but not the limits, so that the budget may be applied to a new scenario.
+     */
+    public void reset() {
+        for (int i = 0; i < methodIds.length; i++)
+            counts.set(i, 0);
+        totalCount.set(0);
+    }
+}
@@ -0,0 +1,38 @@
+package com.meterware.simplestub;
+/*
+ * Copyright (c) 2026 Russell Gold
+ *
+ * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
+ */
+
+/**
+ * Thrown by a budgeted stub when a call exceeds the budget set for its method, or for the stub as a whole.
+ *
+ * @author Russell Gold
+ * @since 1.3.4
+ */
+public class CallBudgetExceededException extends SimpleStubException {
+
+    private final String methodId;
+    private final long count;
+
+    CallBudgetExceededException(String methodId, long count, String message, Object... parameters) {
+        super(message, parameters);
+        this.methodId = methodId;
+        this.count = count;
+    }
+
+    /**
+     * Returns the name, followed by the descriptor, of the method whose call exceeded the budget.
+     */
+    public String getMethodId() {
+        return methodId;
+    }
+
+    /**
+     * Returns the number of calls counted against the budget which was exceeded, including the call which exceeded it.
+     */
+    public long getCount() {
+        return count;
+    }
+}
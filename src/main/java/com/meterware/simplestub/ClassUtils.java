@@ -1,15 +1,18 @@
 package com.meterware.simplestub;
 /*
- * Copyright (c) 2018 Russell Gold
+ * Copyright (c) 2018-2026 Russell Gold
  *
  * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
  */
 
-import java.lang.reflect.InvocationTargetException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Method;
 import java.security.AccessController;
 import java.security.PrivilegedActionException;
 import java.security.PrivilegedExceptionAction;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * Utilities to handle JDK-specific functionality for defining classes.
@@ -17,20 +20,23 @@ import java.security.PrivilegedExceptionAction;
  * @author Russell Gold
  */
 public class ClassUtils {
-    /** The method used to define a class in a classloader. */
-    private static java.lang.reflect.Method defineClassMethod;
+    /** A handle to the method used to define a class in a classloader, obtained once so that access is checked only once. */
+    private static final MethodHandle defineClassHandle = createDefineClassHandle();
 
-    static {
+    private static MethodHandle createDefineClassHandle() {
         try {
-            defineClassMethod = AccessController.doPrivileged(new PrivilegedExceptionAction<Method>() {
+            Method defineClassMethod = AccessController.doPrivileged(new PrivilegedExceptionAction<Method>() {
                 public Method run() throws Exception {
                     Class<?> cl = Class.forName("java.lang.ClassLoader");
                     return cl.getDeclaredMethod("defineClass", String.class, byte[].class, int.class, int.class);
                 }
             });
             defineClassMethod.setAccessible(true);
+            return MethodHandles.lookup().unreflect(defineClassMethod);
         } catch (PrivilegedActionException pae) {
             throw new RuntimeException("cannot initialize defineClassMethod", pae.getException());
+        } catch (IllegalAccessException e) {
+            throw new RuntimeException("cannot initialize defineClassMethod", e);
         }
     }
 
@@ -47,15 +53,55 @@ public class ClassUtils {
      */
     public static Class<?> defineClass(Class<?> anchorClass, String className, byte[] classBytes)
             throws ClassFormatError, IllegalAccessException {
+        return defineClass(anchorClass.getClassLoader(), className, classBytes);
+    }
+
+    /**
+     * Defines new classes from bytecode, in the classloader and package associated with a specified 'anchor class'.
+     * The classes are defined in the iteration order of the map, so the superclass and interfaces of each class
+     * must either already be loadable, or precede it.
+     *
+     * @param anchorClass the class from which the package and classloader of the new classes are to be taken.
+     * @param classes the bytes used to define each class, mapped by class name
+     * @throws ClassFormatError if the bytecode doesn't properly define a class.
+     * @throws IllegalAccessException if unable to get access to the defineClassMethod.
+     * @return the new classes, mapped by class name, in the order in which they were defined
+     * @since 1.3.4
+     */
+    public static Map<String, Class<?>> defineClasses(Class<?> anchorClass, Map<String, byte[]> classes)
+            throws ClassFormatError, IllegalAccessException {
+        ClassLoader classLoader = anchorClass.getClassLoader();
+        Map<String, Class<?>> definedClasses = new LinkedHashMap<>();
+        for (Map.Entry<String, byte[]> entry : classes.entrySet())
+            definedClasses.put(entry.getKey(), defineClass(classLoader, entry.getKey(), entry.getValue()));
+        return definedClasses;
+    }
+
+    // A LinkageError, such as that for a duplicate class definition, is reported as on later JDKs.
+    private static Class<?> defineClass(ClassLoader classLoader, String className, byte[] classBytes) throws ClassFormatError {
         try {
-            return (Class<?>) defineClassMethod.invoke(anchorClass.getClassLoader(), className, classBytes, 0, classBytes.length);
-        } catch (InvocationTargetException e) {
-            final Throwable targetException = e.getTargetException();
-            if (targetException instanceof ClassFormatError) {
-                throw (ClassFormatError) targetException;
-            } else {
-                throw new RuntimeException("Unexpected exception", targetException);
-            }
+            return (Class<?>) defineClassHandle.invokeExact(classLoader, className, classBytes, 0, classBytes.length);
+        } catch (LinkageError e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new RuntimeException("Unexpected exception", e);
         }
     }
+
+    /**
+     * Defines a new class from bytecode, which may be unloaded once it is no longer referenced. The class will be
+     * in the package associated with a specified 'anchor class'. Such classes are only supported in JDK 15 and later;
+     * for earlier JDKs, this is the same as {@link #defineClass}.
+     *
+     * @param anchorClass the class from which the package and classloader of the new class are to be taken.
+     * @param className the name of the class to define
+     * @param classBytes the bytes used to define the class
+     * @throws ClassFormatError if the bytecode doesn't properly define a class.
+     * @throws IllegalAccessException if unable to get access to the defineClassMethod.
+     * @return a new instantiable class, in the package of the anchor class.
+     */
+    public static Class<?> defineUnloadableClass(Class<?> anchorClass, String className, byte[] classBytes)
+            throws ClassFormatError, IllegalAccessException {
+        return defineClass(anchorClass, className, classBytes);
+    }
 }
@@ -0,0 +1,227 @@
+package com.meterware.simplestub;
+/*
+ * Copyright (c) 2026 Russell Gold
+ *
+ * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
+ */
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.MutableCallSite;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Array;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The call site shared by a generated method in every instance of a configurable stub class. Its type takes the stub
+ * instance, as an object, followed by the arguments of the method. Until a stub instance is configured, the site is
+ * linked directly to a constant default, zero, false or null; afterwards, it looks up the behavior configured for
+ * the instance on each call, falling back to the default. The behaviors are keyed by the identity of the instances,
+ * which are weakly held, so configuring an instance neither relinks the site nor slows calls to other instances.
+ *
+ * @author Russell Gold
+ */
+class ConfigurableMethod {
+
+    private static final MethodHandle GET_BEHAVIOR;
+    private static final MethodHandle NO_OPERATION;
+    private static final MethodHandle ANSWER;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            GET_BEHAVIOR = lookup.findVirtual(ConfigurableMethod.class, "getBehavior", MethodType.methodType(MethodHandle.class, Object.class));
+            NO_OPERATION = lookup.findStatic(ConfigurableMethod.class, "noOperation", MethodType.methodType(void.class));
+            ANSWER = lookup.findVirtual(Answer.class, "answer", MethodType.methodType(Object.class, Object[].class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalStateException("Unable to find configurable stub support methods", e);
+        }
+    }
+
+    private final String methodId;
+    private final MethodType type;
+    private final MethodHandle defaultTarget;
+    private final MutableCallSite callSite;
+    private final ConcurrentMap<StubIdentity, MethodHandle> behaviors = new ConcurrentHashMap<>();
+    private final ReferenceQueue<Object> collectedStubs = new ReferenceQueue<>();
+    private volatile boolean dispatching;
+
+    ConfigurableMethod(String methodId, MethodType type) {
+        this.methodId = methodId;
+        this.type = type;
+        defaultTarget = ignoreArguments(createDefault(type.returnType()));
+        callSite = new MutableCallSite(defaultTarget);
+    }
+
+    /**
+     * Returns a handle which takes no arguments and returns the default value of a type: zero, false or null.
+     * If the type is void, the handle does nothing.
+     */
+    static MethodHandle createDefault(Class<?> returnType) {
+        if (returnType == void.class)
+            return NO_OPERATION;
+        else if (returnType.isPrimitive())
+            return MethodHandles.constant(returnType, Array.get(Array.newInstance(returnType, 1), 0));
+        else
+            return MethodHandles.constant(returnType, null);
+    }
+
+    private MethodHandle ignoreArguments(MethodHandle handle) {
+        return MethodHandles.dropArguments(handle, 0, type.parameterList());
+    }
+
+    // Returns the behavior of the specified stub; the call site invokes it with the stub and the method arguments.
+    @SuppressWarnings("unused")
+    private MethodHandle getBehavior(Object stub) {
+        MethodHandle behavior = behaviors.get(new StubProbe(stub));
+        return behavior != null ? behavior : defaultTarget;
+    }
+
+    @SuppressWarnings("unused")
+    private static void noOperation() {
+    }
+
+    MutableCallSite getCallSite() {
+        return callSite;
+    }
+
+    /**
+     * Verifies that this method can return the specified value.
+     * @throws SimpleStubException if the value cannot be converted to the return type of this method
+     */
+    void checkReturnValue(Object value) {
+        createConstant(value);
+    }
+
+    private MethodHandle createConstant(Object value) {
+        Class<?> returnType = type.returnType();
+        if (returnType == void.class)
+            throw new SimpleStubException("Method %s returns void", methodId);
+        else if (value == null && returnType.isPrimitive())
+            throw new SimpleStubException("Method %s returns %s, and cannot return null", methodId, returnType);
+
+        try {
+            return MethodHandles.constant(returnType, value);
+        } catch (ClassCastException e) {
+            throw new SimpleStubException("Method %s cannot return %s", methodId, value);
+        }
+    }
+
+    /**
+     * Makes calls to this method of the specified stub return a constant value.
+     */
+    void returns(Object stub, Object value) {
+        configure(stub, ignoreArguments(createConstant(value)));
+    }
+
+    /**
+     * Makes calls to this method of the specified stub throw an exception.
+     */
+    void throwsException(Object stub, Throwable throwable) {
+        configure(stub, ignoreArguments(MethodHandles.throwException(type.returnType(), throwable.getClass()).bindTo(throwable)));
+    }
+
+    /**
+     * Makes calls to this method of the specified stub return the results of an answer.
+     */
+    void answers(Object stub, Answer answer) {
+        MethodHandle handle = ANSWER.bindTo(answer).asCollector(Object[].class, type.parameterCount() - 1);
+        configure(stub, MethodHandles.dropArguments(handle, 0, Object.class).asType(type));
+    }
+
+    private void configure(Object stub, MethodHandle behavior) {
+        removeCollectedStubs();
+        behaviors.put(new StubReference(stub, collectedStubs), behavior);
+        startDispatching();
+    }
+
+    /**
+     * Restores the default behavior of this method for the specified stub.
+     */
+    void reset(Object stub) {
+        removeCollectedStubs();
+        behaviors.remove(new StubProbe(stub));
+    }
+
+    private void removeCollectedStubs() {
+        for (Reference<?> reference = collectedStubs.poll(); reference != null; reference = collectedStubs.poll())
+            behaviors.remove(reference);
+    }
+
+    // The call site is relinked only once, when the first stub is configured.
+    private synchronized void startDispatching() {
+        if (dispatching) return;
+
+        MethodHandle getBehavior = GET_BEHAVIOR.bindTo(this);
+        callSite.setTarget(MethodHandles.foldArguments(MethodHandles.exactInvoker(type), getBehavior));
+        MutableCallSite.syncAll(new MutableCallSite[] {callSite});
+        dispatching = true;
+    }
+
+    /**
+     * A key which matches the configuration of a stub instance, by identity.
+     */
+    private interface StubIdentity {
+        Object getStub();
+    }
+
+    private static boolean isSameStub(StubIdentity identity, Object o) {
+        if (identity == o) return true;
+        if (!(o instanceof StubIdentity)) return false;
+
+        Object stub = identity.getStub();
+        return stub != null && stub == ((StubIdentity) o).getStub();
+    }
+
+    // The key under which the behavior of a stub is stored, which does not prevent the stub from being collected.
+    private static class StubReference extends WeakReference<Object> implements StubIdentity {
+        private final int hashCode;
+
+        StubReference(Object stub, ReferenceQueue<Object> queue) {
+            super(stub, queue);
+            hashCode = System.identityHashCode(stub);
+        }
+
+        @Override
+        public Object getStub() {
+            return get();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return isSameStub(this, o);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    // The key used to find the behavior of a stub on each call, without creating a weak reference.
+    private static class StubProbe implements StubIdentity {
+        private final Object stub;
+
+        StubProbe(Object stub) {
+            this.stub = stub;
+        }
+
+        @Override
+        public Object getStub() {
+            return stub;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return isSameStub(this, o);
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(stub);
+        }
+    }
+}
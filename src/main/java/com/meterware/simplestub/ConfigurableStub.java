@@ -0,0 +1,16 @@
+package com.meterware.simplestub;
+/*
+ * Copyright (c) 2026 Russell Gold
+ *
+ * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
+ */
+
+/**
+ * Implemented by stubs created with {@link Stub#createConfigurableStub}, whose generated methods may be given
+ * behavior at runtime by {@link Stub#when}.
+ *
+ * @author Russell Gold
+ * @since 1.3.4
+ */
+public interface ConfigurableStub {
+}
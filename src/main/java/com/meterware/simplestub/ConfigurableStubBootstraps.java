@@ -0,0 +1,78 @@
+package com.meterware.simplestub;
+/*
+ * Copyright (c) 2026 Russell Gold
+ *
+ * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
+ */
+import java.lang.invoke.CallSite;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Links the methods of generated configurable stubs to their call sites. Each generated method of a stub class has
+ * a single call site, created either when the method is first called or when it is first configured.
+ * This class is public only so that generated stubs can use it; it is not intended to be called directly.
+ *
+ * @author Russell Gold
+ * @since 1.3.4
+ */
+public class ConfigurableStubBootstraps {
+
+    private static final ClassValue<Map<String, ConfigurableMethod>> methods = new ClassValue<Map<String, ConfigurableMethod>>() {
+        @Override
+        protected Map<String, ConfigurableMethod> computeValue(Class<?> stubClass) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private ConfigurableStubBootstraps() {
+    }
+
+    /**
+     * Links a call site to the behavior configured for a stub method.
+     * @param lookup the lookup of the stub class
+     * @param name the name of the stub method
+     * @param type the type of the call site, which takes the stub as an object, followed by the method arguments
+     * @return the call site of the method
+     */
+    public static CallSite configurableMethod(MethodHandles.Lookup lookup, String name, MethodType type) {
+        return getMethod(lookup.lookupClass(), name, type).getCallSite();
+    }
+
+    private static ConfigurableMethod getMethod(Class<?> stubClass, String name, MethodType type) {
+        String methodId = name + type.dropParameterTypes(0, 1).toMethodDescriptorString();
+        return methods.get(stubClass).computeIfAbsent(methodId, id -> new ConfigurableMethod(id, type));
+    }
+
+    /**
+     * Returns the configurable methods of a stub class which match the specified name.
+     * @param stubClass the generated stub class
+     * @param nameOrId the name of the methods, a name followed by a descriptor to select a single overload,
+     *                 or null to select every method
+     */
+    static List<ConfigurableMethod> getMethods(Class<?> stubClass, String nameOrId) {
+        List<ConfigurableMethod> result = new ArrayList<>();
+        for (Method method : stubClass.getDeclaredMethods())
+            if (isGenerated(method) && (nameOrId == null || MethodIds.matches(getMethodId(method), nameOrId)))
+                result.add(getMethod(stubClass, method.getName(), getCallSiteType(method)));
+        return result;
+    }
+
+    private static boolean isGenerated(Method method) {
+        return !Modifier.isStatic(method.getModifiers()) && !method.isSynthetic() && !method.isBridge();
+    }
+
+    private static String getMethodId(Method method) {
+        return method.getName() + MethodType.methodType(method.getReturnType(), method.getParameterTypes()).toMethodDescriptorString();
+    }
+
+    private static MethodType getCallSiteType(Method method) {
+        return MethodType.methodType(method.getReturnType(), method.getParameterTypes()).insertParameterTypes(0, Object.class);
+    }
+}
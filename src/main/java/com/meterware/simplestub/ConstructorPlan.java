@@ -0,0 +1,83 @@
+package com.meterware.simplestub;
+/*
+ * Copyright (c) 2026 Russell Gold
+ *
+ * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
+ */
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
+
+/**
+ * A resolved stub constructor, along with the way to convert actual parameters into its arguments.
+ * A plan is selected once for each combination of argument classes and reused thereafter.
+ *
+ * @author Russell Gold
+ */
+class ConstructorPlan {
+
+    private final Constructor<?> constructor;
+
+    private ConstructorPlan(Constructor<?> constructor) {
+        this.constructor = constructor;
+        constructor.setAccessible(true);
+    }
+
+    /**
+     * Creates a plan which passes the actual parameters unchanged.
+     * @param constructor the constructor to invoke
+     * @return a new plan
+     */
+    static ConstructorPlan direct(Constructor<?> constructor) {
+        return new ConstructorPlan(constructor);
+    }
+
+    /**
+     * Creates a plan which collects the trailing parameters into the variable argument array.
+     * @param constructor the constructor to invoke
+     * @return a new plan
+     */
+    static ConstructorPlan packingVarArgs(Constructor<?> constructor) {
+        return new VarArgsConstructorPlan(constructor);
+    }
+
+    Object newInstance(Object[] parameters) throws InstantiationException, IllegalAccessException, InvocationTargetException {
+        return constructor.newInstance(toArguments(parameters));
+    }
+
+    Object[] toArguments(Object[] parameters) {
+        return parameters;
+    }
+
+    static class VarArgsConstructorPlan extends ConstructorPlan {
+        private final int numFixedArgs;
+        private final Class<?> varArgsType;
+
+        VarArgsConstructorPlan(Constructor<?> constructor) {
+            super(constructor);
+            Class<?>[] parameterTypes = constructor.getParameterTypes();
+            numFixedArgs = parameterTypes.length - 1;
+            varArgsType = parameterTypes[numFixedArgs];
+        }
+
+        @Override
+        Object[] toArguments(Object[] parameters) {
+            Object[] result = new Object[numFixedArgs + 1];
+            System.arraycopy(parameters, 0, result, 0, numFixedArgs);
+            result[numFixedArgs] = toVarArgsArray(parameters);
+            return result;
+        }
+
+        @SuppressWarnings("unchecked")
+        private Object toVarArgsArray(Object[] parameters) {
+            if (!varArgsType.getComponentType().isPrimitive())
+                return Arrays.copyOfRange(parameters, numFixedArgs, parameters.length, (Class<? extends Object[]>) varArgsType);
+
+            Object result = Array.newInstance(varArgsType.getComponentType(), parameters.length - numFixedArgs);
+            for (int i = numFixedArgs; i < parameters.length; i++)
+                Array.set(result, i - numFixedArgs, parameters[i]);  // primitive values must be unboxed
+            return result;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.meterware.simplestub;
+/*
+ * Copyright (c) 2026 Russell Gold
+ *
+ * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
+ */
+
+/**
+ * Implemented by counting stubs, whose generated methods count the calls made to them.
+ *
+ * @author Russell Gold
+ * @since 1.3.4
+ */
+public interface CountingStub {
+
+    /**
+     * Returns the counters of calls made to the generated methods of this stub.
+     * @return the counters owned by this stub
+     */
+    InvocationCounters getInvocationCounters();
+}
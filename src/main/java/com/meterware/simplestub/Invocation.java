@@ -0,0 +1,187 @@
+package com.meterware.simplestub;
+/*
+ * Copyright (c) 2026 Russell Gold
+ *
+ * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
+ */
+
+/**
+ * A call to a generated method of a recording stub, as retained by its {@link InvocationJournal}.
+ * Primitive arguments are recorded without boxing: integral values, chars and booleans (as 0 or 1) are widened
+ * to longs, and floating-point values are stored as their raw bits. The typed accessors read them back unboxed;
+ * {@link #getArgument} boxes them.
+ *
+ * @author Russell Gold
+ * @since 1.3.4
+ */
+public class Invocation {
+
+    private final long sequence;
+    private final String methodId;
+    private final Thread thread = Thread.currentThread();
+    private final long nanoTime = System.nanoTime();
+    private final long[] primitiveArguments;
+    private final Object[] referenceArguments;
+
+    Invocation(long sequence, String methodId, long[] primitiveArguments, Object[] referenceArguments) {
+        this.sequence = sequence;
+        this.methodId = methodId;
+        this.primitiveArguments = primitiveArguments;
+        this.referenceArguments = referenceArguments;
+    }
+
+    /**
+     * Returns the position of this call among all those recorded by its journal, starting with zero.
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Returns the name of the method called, followed by its descriptor, for example <code>add(ILjava/lang/String;)Z</code>.
+     */
+    public String getMethodId() {
+        return methodId;
+    }
+
+    /**
+     * Returns the name of the method called.
+     */
+    public String getMethodName() {
+        return methodId.substring(0, methodId.indexOf('('));
+    }
+
+    /**
+     * Returns the descriptor of the method called, for example <code>(ILjava/lang/String;)Z</code>.
+     */
+    public String getMethodDescriptor() {
+        return methodId.substring(methodId.indexOf('('));
+    }
+
+    /**
+     * Returns the thread which made the call.
+     */
+    public Thread getThread() {
+        return thread;
+    }
+
+    /**
+     * Returns the value of {@link System#nanoTime()} when the call was made.
+     */
+    public long getNanoTime() {
+        return nanoTime;
+    }
+
+    /**
+     * Returns the number of arguments passed to the method.
+     */
+    public int getArgumentCount() {
+        return primitiveArguments.length + referenceArguments.length;
+    }
+
+    /**
+     * Returns the specified argument, boxing it if it is primitive.
+     * @param index the zero-based position of the argument
+     * @return the argument value
+     */
+    public Object getArgument(int index) {
+        switch (getArgumentType(index)) {
+            case 'Z': return getBooleanArgument(index);
+            case 'B': return (byte) getIntArgument(index);
+            case 'C': return (char) getIntArgument(index);
+            case 'S': return (short) getIntArgument(index);
+            case 'I': return getIntArgument(index);
+            case 'J': return getLongArgument(index);
+            case 'F': return getFloatArgument(index);
+            case 'D': return getDoubleArgument(index);
+            default: return referenceArguments[getStorageIndex(index)];
+        }
+    }
+
+    /**
+     * Returns the specified argument, which must be a boolean.
+     */
+    public boolean getBooleanArgument(int index) {
+        return getPrimitiveArgument(index, "Z") != 0;
+    }
+
+    /**
+     * Returns the specified argument, which must be a byte, char, short or int.
+     */
+    public int getIntArgument(int index) {
+        return (int) getPrimitiveArgument(index, "BCSI");
+    }
+
+    /**
+     * Returns the specified argument, which must be a long.
+     */
+    public long getLongArgument(int index) {
+        return getPrimitiveArgument(index, "J");
+    }
+
+    /**
+     * Returns the specified argument, which must be a float.
+     */
+    public float getFloatArgument(int index) {
+        return Float.intBitsToFloat((int) getPrimitiveArgument(index, "F"));
+    }
+
+    /**
+     * Returns the specified argument, which must be a double.
+     */
+    public double getDoubleArgument(int index) {
+        return Double.longBitsToDouble(getPrimitiveArgument(index, "D"));
+    }
+
+    private long getPrimitiveArgument(int index, String permittedTypes) {
+        char type = getArgumentType(index);
+        if (permittedTypes.indexOf(type) < 0)
+            throw new IllegalArgumentException("Argument " + index + " of " + methodId + " has type " + type);
+        return primitiveArguments[getStorageIndex(index)];
+    }
+
+    // Returns the descriptor character of the argument: a primitive type, or 'L' for any object or array.
+    private char getArgumentType(int index) {
+        return getArgumentTypes()[index];
+    }
+
+    // Returns the position of the argument among those of the same category, primitive or reference.
+    private int getStorageIndex(int index) {
+        char[] types = getArgumentTypes();
+        boolean primitive = isPrimitive(types[index]);
+        int storageIndex = 0;
+        for (int i = 0; i < index; i++)
+            if (isPrimitive(types[i]) == primitive) storageIndex++;
+        return storageIndex;
+    }
+
+    private static boolean isPrimitive(char type) {
+        return type != 'L';
+    }
+
+    private char[] getArgumentTypes() {
+        char[] types = new char[getArgumentCount()];
+        int count = 0;
+        for (int i = methodId.indexOf('(') + 1; methodId.charAt(i) != ')'; i++) {
+            char c = methodId.charAt(i);
+            if (c == 'L' || c == '[') {
+                while (methodId.charAt(i) == '[') i++;
+                if (methodId.charAt(i) == 'L') i = methodId.indexOf(';', i);
+                types[count++] = 'L';
+            } else {
+                types[count++] = c;
+            }
+        }
+        return types;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(getMethodName()).append('(');
+        for (int i = 0; i < getArgumentCount(); i++) {
+            if (i != 0) sb.append(", ");
+            sb.append(getArgument(i));
+        }
+        return sb.append(')').toString();
+    }
+}
@@ -0,0 +1,81 @@
+package com.meterware.simplestub;
+/*
+ * Copyright (c) 2026 Russell Gold
+ *
+ * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
+ */
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the calls made to each generated method of a counting stub. Each method has its own {@link LongAdder},
+ * so that calls from many threads may be counted without contention.
+ *
+ * @author Russell Gold
+ * @since 1.3.4
+ */
+public class InvocationCounters {
+
+    /** The character which separates the method ids passed to the constructors of the objects owned by stubs. */
+    public static final char METHOD_ID_SEPARATOR = MethodIds.SEPARATOR;
+
+    private final String methodIds;
+    private final LongAdder[] counters;
+
+    /**
+     * Creates counters for the generated methods of a stub. This is called by generated stubs and is not intended
+     * to be called directly.
+     * @param methodIds the name and descriptor of each generated method, in order of their indices, separated by
+     *                  {@link #METHOD_ID_SEPARATOR}
+     */
+    public InvocationCounters(String methodIds) {
+        this.methodIds = methodIds;
+        counters = new LongAdder[MethodIds.count(methodIds)];
+        for (int i = 0; i < counters.length; i++)
+            counters[i] = new LongAdder();
+    }
+
+    /**
+     * Counts a call to a generated method. This is called by generated stubs and is not intended to be called directly.
+     * @param methodIndex the index of the method
+     */
+    public void increment(int methodIndex) {
+        counters[methodIndex].increment();
+    }
+
+    /**
+     * Returns the number of calls made to each generated method, keyed by the method name followed by its descriptor,
+     * for example <code>add(ILjava/lang/String;)Z</code>. Calls made while the snapshot is taken may or may not be counted.
+     * @return a snapshot of the counts, in the order in which the methods were generated
+     */
+    public Map<String, Long> getCounts() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        String[] ids = MethodIds.split(methodIds);
+        for (int i = 0; i < ids.length; i++)
+            counts.put(ids[i], counters[i].sum());
+        return Collections.unmodifiableMap(counts);
+    }
+
+    /**
+     * Returns the number of calls made to the generated methods with the specified name, including all overloads.
+     * @param methodName the name of the method, or its name followed by its descriptor to select a single overload
+     * @return the number of calls counted
+     */
+    public long getCount(String methodName) {
+        long count = 0;
+        for (Map.Entry<String, Long> entry : getCounts().entrySet())
+            if (MethodIds.matches(entry.getKey(), methodName))
+                count += entry.getValue();
+        return count;
+    }
+
+    /**
+     * Resets all of the counts to zero. Calls made concurrently with this method may or may not be counted.
+     */
+    public void reset() {
+        for (LongAdder counter : counters)
+            counter.reset();
+    }
+}
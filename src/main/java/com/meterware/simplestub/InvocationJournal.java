@@ -0,0 +1,121 @@
+package com.meterware.simplestub;
+/*
+ * Copyright (c) 2026 Russell Gold
+ *
+ * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
+ */
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A record of the calls made to the generated methods of a recording stub. The journal is a bounded ring buffer:
+ * once it is full, each new call replaces the oldest one recorded. Calls may be recorded and read concurrently
+ * without locking.
+ *
+ * @author Russell Gold
+ * @since 1.3.4
+ */
+public class InvocationJournal {
+
+    /** The number of calls retained if the {@link Stub#RECORDING_CAPACITY_PROPERTY} property is not set. */
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private static final long[] NO_PRIMITIVES = new long[0];
+    private static final Object[] NO_REFERENCES = new Object[0];
+
+    private final AtomicReferenceArray<Invocation> entries;
+    private final int mask;
+    private final AtomicLong nextSequence = new AtomicLong();
+    private volatile long firstSequence;
+
+    /**
+     * Creates a journal whose capacity is set by the {@link Stub#RECORDING_CAPACITY_PROPERTY} property.
+     */
+    public InvocationJournal() {
+        this(Integer.getInteger(Stub.RECORDING_CAPACITY_PROPERTY, DEFAULT_CAPACITY));
+    }
+
+    /**
+     * Creates a journal which retains at least the specified number of calls.
+     * @param capacity the minimum number of calls to retain, which is rounded up to a power of two
+     */
+    public InvocationJournal(int capacity) {
+        if (capacity <= 0 || capacity > 1 << 30)
+            throw new IllegalArgumentException("Invalid journal capacity " + capacity);
+
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) size <<= 1;
+        entries = new AtomicReferenceArray<>(size);
+        mask = size - 1;
+    }
+
+    /**
+     * Records a call to a stub method. This is called by generated stubs and is not intended to be called directly.
+     * @param methodId the name of the method called, followed by its descriptor
+     * @param primitiveArguments the values of the primitive arguments, in order, each widened to a long
+     *                           as described by {@link Invocation}; null if there are none
+     * @param referenceArguments the values of the other arguments, in order; null if there are none
+     */
+    public void record(String methodId, long[] primitiveArguments, Object[] referenceArguments) {
+        long sequence = nextSequence.getAndIncrement();
+        entries.set((int) (sequence & mask), new Invocation(sequence, methodId,
+                primitiveArguments != null ? primitiveArguments : NO_PRIMITIVES,
+                referenceArguments != null ? referenceArguments : NO_REFERENCES));
+    }
+
+    /**
+     * Returns the maximum number of calls retained by this journal.
+     * @return the journal capacity
+     */
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    /**
+     * Returns the number of calls recorded since this journal was created or last cleared, including those which
+     * are no longer retained.
+     * @return the number of calls recorded
+     */
+    public long getRecordedCount() {
+        return nextSequence.get() - firstSequence;
+    }
+
+    /**
+     * Returns the retained calls, oldest first. Calls still being recorded when this method is invoked may be omitted.
+     * @return a snapshot of the journal
+     */
+    public List<Invocation> getInvocations() {
+        long end = nextSequence.get();
+        long start = Math.max(firstSequence, end - getCapacity());
+        List<Invocation> invocations = new ArrayList<>((int) (end - start));
+        for (long sequence = start; sequence < end; sequence++) {
+            Invocation invocation = entries.get((int) (sequence & mask));
+            if (invocation != null && invocation.getSequence() == sequence)
+                invocations.add(invocation);
+        }
+        return Collections.unmodifiableList(invocations);
+    }
+
+    /**
+     * Returns the retained calls to methods with the specified name, oldest first.
+     * @param methodName the name of the method
+     * @return a snapshot of the matching calls
+     */
+    public List<Invocation> getInvocations(String methodName) {
+        List<Invocation> invocations = new ArrayList<>();
+        for (Invocation invocation : getInvocations())
+            if (invocation.getMethodName().equals(methodName))
+                invocations.add(invocation);
+        return Collections.unmodifiableList(invocations);
+    }
+
+    /**
+     * Discards the calls recorded so far. Calls recorded concurrently with this method may or may not be discarded.
+     */
+    public void clear() {
+        firstSequence = nextSequence.get();
+    }
+}
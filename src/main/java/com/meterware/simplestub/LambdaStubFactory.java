@@ -0,0 +1,239 @@
+package com.meterware.simplestub;
+/*
+ * Copyright (c) 2026 Russell Gold
+ *
+ * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
+ */
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaConversionException;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.meterware.simplestub.generation.EmptyValues;
+import com.meterware.simplestub.generation.StubKind;
+
+/**
+ * A stub factory for functional interfaces, which lets {@link LambdaMetafactory} implement the single abstract method,
+ * rather than generating and defining a stub class. The lambda captures a method handle which supplies the behavior of
+ * a default, nice or strict stub, and invokes it exactly, so that the JIT can inline the constant it returns.
+ * Interfaces which are not public, whose signature is not visible from this library's classloader, or which need
+ * bridge methods, are left to the stub generators.
+ *
+ * @author Russell Gold
+ */
+class LambdaStubFactory<T> implements StubFactory<T> {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final MethodHandle NESTED_STUB;
+
+    static {
+        try {
+            NESTED_STUB = LOOKUP.findStatic(LambdaStubFactory.class, "getNestedStub", MethodType.methodType(Object.class, Class.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalStateException("Unable to find lambda stub support methods", e);
+        }
+    }
+
+    private static final ClassValue<Map<StubKind, LambdaStubFactory<?>>> factories = new ClassValue<Map<StubKind, LambdaStubFactory<?>>>() {
+        @Override
+        protected Map<StubKind, LambdaStubFactory<?>> computeValue(Class<?> baseClass) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private static final ClassValue<Object> nestedStubs = new ClassValue<Object>() {
+        @Override
+        protected Object computeValue(Class<?> returnType) {
+            return Stub.createNiceStub(returnType);
+        }
+    };
+
+    /** Recorded for interfaces which need a generated stub class. */
+    private static final LambdaStubFactory<?> UNSUPPORTED = new LambdaStubFactory<>(null, null);
+
+    private final Class<T> baseClass;
+    private final MethodHandle instanceFactory;
+
+    private LambdaStubFactory(Class<T> baseClass, MethodHandle instanceFactory) {
+        this.baseClass = baseClass;
+        this.instanceFactory = instanceFactory;
+    }
+
+    /**
+     * Returns a factory for lambda stubs of the specified kind, or null if the stubs must be generated.
+     * @param baseClass the class to stub
+     * @param kind the kind of stub wanted
+     */
+    @SuppressWarnings("unchecked")
+    static <T> LambdaStubFactory<T> getFactory(Class<T> baseClass, StubKind kind) {
+        if (!isSupported(kind) || !baseClass.isInterface()) return null;
+
+        LambdaStubFactory<?> factory = factories.get(baseClass).computeIfAbsent(kind, k -> createFactory(baseClass, k));
+        return factory == UNSUPPORTED ? null : (LambdaStubFactory<T>) factory;
+    }
+
+    private static boolean isSupported(StubKind kind) {
+        return kind == StubKind.DEFAULT || kind == StubKind.NICE || kind == StubKind.STRICT;
+    }
+
+    private static <T> LambdaStubFactory<?> createFactory(Class<T> baseClass, StubKind kind) {
+        Method method = getSingleAbstractMethod(baseClass);
+        if (method == null || !isAccessible(baseClass, method)) return UNSUPPORTED;
+
+        MethodType methodType = MethodType.methodType(method.getReturnType(), method.getParameterTypes());
+        MethodHandle behavior = MethodHandles.dropArguments(createBehavior(method, kind), 0, methodType.parameterList());
+        try {
+            CallSite callSite = LambdaMetafactory.metafactory(LOOKUP, method.getName(),
+                                    MethodType.methodType(baseClass, MethodHandle.class), methodType,
+                                    LOOKUP.findVirtual(MethodHandle.class, "invokeExact", methodType), methodType);
+            MethodHandle instanceFactory = callSite.getTarget().bindTo(behavior).asType(MethodType.methodType(Object.class));
+            return new LambdaStubFactory<>(baseClass, instanceFactory);
+        } catch (ReflectiveOperationException | LinkageError | LambdaConversionException e) {
+            return UNSUPPORTED;
+        }
+    }
+
+    // Returns the only abstract method of the interface, ignoring those which redeclare the public methods of Object.
+    // Superinterfaces are searched directly, since an inherited method with a different erasure would need a bridge.
+    private static Method getSingleAbstractMethod(Class<?> anInterface) {
+        Method result = null;
+        for (Method method : getAbstractMethods(anInterface, new ArrayList<>())) {
+            if (isObjectMethod(method)) continue;
+            if (result != null && !isSameSignature(result, method)) return null;
+            result = method;
+        }
+        return result;
+    }
+
+    private static List<Method> getAbstractMethods(Class<?> anInterface, List<Method> methods) {
+        for (Method method : anInterface.getDeclaredMethods())
+            if (Modifier.isAbstract(method.getModifiers()))
+                methods.add(method);
+        for (Class<?> superInterface : anInterface.getInterfaces())
+            getAbstractMethods(superInterface, methods);
+        return methods;
+    }
+
+    private static boolean isObjectMethod(Method method) {
+        try {
+            Object.class.getMethod(method.getName(), method.getParameterTypes());
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private static boolean isSameSignature(Method method1, Method method2) {
+        return method1.getName().equals(method2.getName())
+                && method1.getReturnType() == method2.getReturnType()
+                && Arrays.equals(method1.getParameterTypes(), method2.getParameterTypes());
+    }
+
+    // The lambda class is defined in this library's classloader, so it must be able to see every type it implements.
+    private static boolean isAccessible(Class<?> baseClass, Method method) {
+        if (!Modifier.isPublic(baseClass.getModifiers()) || !isVisible(baseClass) || !isVisible(method.getReturnType()))
+            return false;
+
+        for (Class<?> parameterType : method.getParameterTypes())
+            if (!isVisible(parameterType)) return false;
+        return true;
+    }
+
+    private static boolean isVisible(Class<?> type) {
+        while (type.isArray())
+            type = type.getComponentType();
+        if (type.isPrimitive()) return true;
+
+        try {
+            return Class.forName(type.getName(), false, LambdaStubFactory.class.getClassLoader()) == type;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    // Returns a handle which takes no arguments and acts as the generated method of the specified kind would.
+    private static MethodHandle createBehavior(Method method, StubKind kind) {
+        switch (kind) {
+            case NICE:
+                return createNiceValue(method.getReturnType());
+            case STRICT:
+                return createUnexpectedCall(method);
+            default:
+                return ConfigurableMethod.createDefault(method.getReturnType());
+        }
+    }
+
+    private static MethodHandle createNiceValue(Class<?> returnType) {
+        Method emptyValueFactory = EmptyValues.getFactory(returnType.getName());
+        if (emptyValueFactory != null)
+            return unreflect(emptyValueFactory).asType(MethodType.methodType(returnType));
+        else if (returnType.isArray())
+            return MethodHandles.constant(returnType, Array.newInstance(returnType.getComponentType(), 0));
+        else if (returnType == String.class)
+            return MethodHandles.constant(String.class, "");
+        else if (returnType.isInterface())
+            return NESTED_STUB.bindTo(returnType).asType(MethodType.methodType(returnType));
+        else
+            return ConfigurableMethod.createDefault(returnType);
+    }
+
+    private static MethodHandle unreflect(Method method) {
+        try {
+            return LOOKUP.unreflect(method);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Unable to access " + method, e);
+        }
+    }
+
+    // Like the nested stubs of generated nice stubs, each is created when first needed, and then reused.
+    @SuppressWarnings("unused")
+    private static Object getNestedStub(Class<?> returnType) {
+        return nestedStubs.get(returnType);
+    }
+
+    private static MethodHandle createUnexpectedCall(Method method) {
+        MethodType exceptionType = MethodType.methodType(UnexpectedMethodCallException.class);
+        MethodHandle exception = StrictStubBootstraps.unexpectedCall(LOOKUP, "unexpectedCall", exceptionType, getUnexpectedCallMessage(method)).getTarget();
+        return MethodHandles.foldArguments(MethodHandles.throwException(method.getReturnType(), UnexpectedMethodCallException.class), exception);
+    }
+
+    private static String getUnexpectedCallMessage(Method method) {
+        StringBuilder sb = new StringBuilder("Unexpected call to method ");
+        sb.append(method.getDeclaringClass().getName());
+        sb.append('.').append(method.getName()).append('(');
+
+        int count = 0;
+        for (Class<?> parameterType : method.getParameterTypes()) {
+            if (count++ != 0) sb.append(',');
+            sb.append(parameterType.getName());
+        }
+        sb.append(')');
+        return sb.toString();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T create(Object... parameters) {
+        if (parameters.length != 0)
+            throw new SimpleStubException("Unable to instantiate stub for %s: expected %d parameters but got %d",
+                                          baseClass.getName(), 0, parameters.length);
+        try {
+            Object stub = instanceFactory.invokeExact();
+            return (T) stub;
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new SimpleStubException("Unable to instantiate stub for %s", e, baseClass.getName());
+        }
+    }
+}
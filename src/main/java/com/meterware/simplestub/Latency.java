@@ -0,0 +1,70 @@
+package com.meterware.simplestub;
+/*
+ * Copyright (c) 2026 Russell Gold
+ *
+ * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
+ */
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A distribution of the delays applied to calls by a latency stub.
+ *
+ * @author Russell Gold
+ * @since 1.3.4
+ */
+public interface Latency {
+
+    /**
+     * Returns the delay to apply to a call, in nanoseconds.
+     */
+    long nextDelayNanos();
+
+    /**
+     * Returns a latency which applies no delay.
+     */
+    static Latency none() {
+        return fixed(Duration.ZERO);
+    }
+
+    /**
+     * Returns a latency which applies the same delay to every call.
+     * @param delay the delay to apply
+     */
+    static Latency fixed(Duration delay) {
+        long nanos = toNanos(delay);
+        return () -> nanos;
+    }
+
+    /**
+     * Returns a latency whose delays are distributed uniformly between two limits.
+     * @param min the shortest delay to apply
+     * @param max the longest delay to apply
+     */
+    static Latency uniform(Duration min, Duration max) {
+        long minNanos = toNanos(min);
+        long maxNanos = toNanos(max);
+        if (maxNanos < minNanos)
+            throw new IllegalArgumentException("Maximum latency " + max + " is less than minimum " + min);
+        return () -> minNanos + (long) (ThreadLocalRandom.current().nextDouble() * (maxNanos - minNanos));
+    }
+
+    /**
+     * Returns a latency whose delays follow a lognormal distribution, as the response times of real services often do:
+     * most calls take about the median time, but a long tail of calls take much longer.
+     * @param median the median delay
+     * @param sigma the standard deviation of the logarithm of the delay; larger values produce a longer tail
+     */
+    static Latency logNormal(Duration median, double sigma) {
+        long medianNanos = toNanos(median);
+        if (sigma < 0)
+            throw new IllegalArgumentException("Negative sigma " + sigma);
+        return () -> (long) (medianNanos * Math.exp(sigma * ThreadLocalRandom.current().nextGaussian()));
+    }
+
+    static long toNanos(Duration duration) {
+        if (duration.isNegative())
+            throw new IllegalArgumentException("Negative latency " + duration);
+        return duration.toNanos();
+    }
+}
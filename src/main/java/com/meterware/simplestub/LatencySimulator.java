@@ -0,0 +1,142 @@
+package com.meterware.simplestub;
+/*
+ * Copyright (c) 2026 Russell Gold
+ *
+ * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
+ */
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Determines the delays applied by the generated methods of a latency stub. Each method may be given its own
+ * {@link Latency}; others use the default latency, which is initially none. The rate of calls to the stub as a whole
+ * may also be limited; calls beyond that rate wait their turn. Delays are applied with {@link LockSupport#parkNanos},
+ * so that waiting virtual threads release their carriers.
+ * <pre>
+ *     PriceService service = Stub.createNiceLatencyStub(PriceService.class);
+ *     Stub.getLatencySimulator(service)
+ *         .setLatency("getQuote", Latency.logNormal(Duration.ofMillis(20), 0.5))
+ *         .limitThroughput(500, 10);
+ * </pre>
+ *
+ * @author Russell Gold
+ * @since 1.3.4
+ */
+public class LatencySimulator {
+
+    private static final long NANOS_PER_SECOND = Duration.ofSeconds(1).toNanos();
+
+    private final String[] methodIds;
+    private final AtomicReferenceArray<Latency> latencies;
+    private volatile Latency defaultLatency = Latency.none();
+    private volatile ThroughputLimit throughputLimit;
+
+    /**
+     * Creates a simulator for the generated methods of a stub. This is called by generated stubs and is not intended
+     * to be called directly.
+     * @param methodIds the name and descriptor of each generated method, in order of their indices, separated by
+     *                  {@link InvocationCounters#METHOD_ID_SEPARATOR}
+     */
+    public LatencySimulator(String methodIds) {
+        this.methodIds = MethodIds.split(methodIds);
+        latencies = new AtomicReferenceArray<>(this.methodIds.length);
+    }
+
+    /**
+     * Delays a call to a generated method. This is called by generated stubs and is not intended to be called directly.
+     * If the calling thread is interrupted, it returns without completing the delay, leaving the thread interrupted.
+     * @param methodIndex the index of the method
+     */
+    public void delay(int methodIndex) {
+        ThroughputLimit limit = throughputLimit;
+        long delayNanos = limit == null ? 0 : limit.reserveNanos();
+
+        Latency latency = latencies.get(methodIndex);
+        delayNanos += (latency != null ? latency : defaultLatency).nextDelayNanos();
+        if (delayNanos > 0)
+            park(delayNanos);
+    }
+
+    private static void park(long nanos) {
+        long deadline = System.nanoTime() + nanos;
+        for (long remaining = nanos; remaining > 0 && !Thread.currentThread().isInterrupted(); remaining = deadline - System.nanoTime())
+            LockSupport.parkNanos(remaining);
+    }
+
+    /**
+     * Sets the latency of the generated methods with the specified name.
+     * @param methodName the name of the method, or its name followed by its descriptor to select a single overload
+     * @param latency the latency to apply to each call
+     * @return this simulator
+     */
+    public LatencySimulator setLatency(String methodName, Latency latency) {
+        boolean found = false;
+        for (int i = 0; i < methodIds.length; i++)
+            if (MethodIds.matches(methodIds[i], methodName)) {
+                latencies.set(i, latency);
+                found = true;
+            }
+
+        if (!found)
+            throw new SimpleStubException("No generated method named %s", methodName);
+        return this;
+    }
+
+    /**
+     * Sets the latency of the generated methods which have not been given their own.
+     * @param latency the latency to apply to each call
+     * @return this simulator
+     */
+    public LatencySimulator setDefaultLatency(Latency latency) {
+        defaultLatency = latency;
+        return this;
+    }
+
+    /**
+     * Limits the rate of calls to the generated methods, using a token bucket. Calls which find the bucket empty
+     * wait until a token would be available.
+     * @param callsPerSecond the sustained rate of calls permitted
+     * @param burst the number of calls which may be made at once, after the stub has been idle
+     * @return this simulator
+     */
+    public LatencySimulator limitThroughput(double callsPerSecond, int burst) {
+        if (callsPerSecond <= 0 || burst < 1)
+            throw new IllegalArgumentException("Invalid throughput limit " + callsPerSecond + " with burst " + burst);
+        throughputLimit = new ThroughputLimit((long) (NANOS_PER_SECOND / callsPerSecond), burst);
+        return this;
+    }
+
+    /**
+     * Removes any limit on the rate of calls.
+     * @return this simulator
+     */
+    public LatencySimulator removeThroughputLimit() {
+        throughputLimit = null;
+        return this;
+    }
+
+    // A token bucket, expressed as the time at which the bucket would next be full. Each call reserves a token by
+    // advancing that time by one interval, and waits if the bucket held no token when it arrived.
+    private static class ThroughputLimit {
+        private final long intervalNanos;
+        private final long burstNanos;
+        private final AtomicLong fullAt = new AtomicLong(System.nanoTime());
+
+        ThroughputLimit(long intervalNanos, int burst) {
+            this.intervalNanos = intervalNanos;
+            this.burstNanos = intervalNanos * (burst - 1);
+        }
+
+        long reserveNanos() {
+            while (true) {
+                long now = System.nanoTime();
+                long current = fullAt.get();
+                long start = current - now > 0 ? current : now;
+                if (fullAt.compareAndSet(current, start + intervalNanos))
+                    return Math.max(0, start - burstNanos - now);
+            }
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.meterware.simplestub;
+/*
+ * Copyright (c) 2026 Russell Gold
+ *
+ * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
+ */
+
+/**
+ * Implemented by stubs created with {@link Stub#createLatencyStub} or {@link Stub#createNiceLatencyStub},
+ * whose generated methods delay before returning.
+ *
+ * @author Russell Gold
+ * @since 1.3.4
+ */
+public interface LatencyStub {
+
+    /**
+     * Returns the simulator which determines the delays of this stub.
+     * @return the simulator owned by this stub
+     */
+    LatencySimulator getLatencySimulator();
+}
@@ -0,0 +1,44 @@
+package com.meterware.simplestub;
+/*
+ * Copyright (c) 2026 Russell Gold
+ *
+ * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
+ */
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+
+/**
+ * A stub factory which invokes a stub constructor through a method handle, bound once when the factory is created.
+ *
+ * @author Russell Gold
+ */
+class MethodHandleStubFactory<T> implements StubFactory<T> {
+
+    private final Class<?> baseClass;
+    private final int numParameters;
+    private final MethodHandle constructor;
+
+    MethodHandleStubFactory(Class<?> baseClass, MethodHandle constructor) {
+        this.baseClass = baseClass;
+        this.numParameters = constructor.type().parameterCount();
+        this.constructor = constructor.asFixedArity()
+                                      .asSpreader(Object[].class, numParameters)
+                                      .asType(MethodType.methodType(Object.class, Object[].class));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T create(Object... parameters) {
+        if (parameters.length != numParameters)
+            throw new SimpleStubException("Unable to instantiate stub for %s: expected %d parameters but got %d",
+                                          baseClass.getName(), numParameters, parameters.length);
+        try {
+            Object stub = constructor.invokeExact(parameters);
+            return (T) stub;
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new SimpleStubException("Unable to instantiate stub for %s", e, baseClass.getName());
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.meterware.simplestub;
+/*
+ * Copyright (c) 2026 Russell Gold
+ *
+ * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
+ */
+
+/**
+ * Support for the lists of method ids with which generated stubs create the objects they own. Each id is
+ * the name of a generated method followed by its descriptor; the list holds them in order of their indices.
+ *
+ * @author Russell Gold
+ */
+class MethodIds {
+
+    /** The character which separates the ids in a list. */
+    static final char SEPARATOR = '\n';
+
+    private static final String[] NO_IDS = new String[0];
+
+    private MethodIds() {
+    }
+
+    /**
+     * Returns the number of ids in the specified list.
+     */
+    static int count(String methodIds) {
+        if (methodIds.isEmpty()) return 0;
+
+        int count = 1;
+        for (int i = 0; i < methodIds.length(); i++)
+            if (methodIds.charAt(i) == SEPARATOR) count++;
+        return count;
+    }
+
+    /**
+     * Returns the ids in the specified list.
+     */
+    static String[] split(String methodIds) {
+        return methodIds.isEmpty() ? NO_IDS : methodIds.split(String.valueOf(SEPARATOR));
+    }
+
+    /**
+     * Returns true if the specified id is that of a method with the specified name, or is the specified id.
+     */
+    static boolean matches(String methodId, String methodNameOrId) {
+        return methodId.equals(methodNameOrId)
+                || methodId.startsWith(methodNameOrId) && methodId.charAt(methodNameOrId.length()) == '(';
+    }
+}
@@ -0,0 +1,51 @@
+package com.meterware.simplestub;
+/*
+ * Copyright (c) 2026 Russell Gold
+ *
+ * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
+ */
+import java.lang.invoke.CallSite;
+import java.lang.invoke.ConstantCallSite;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+
+/**
+ * The bootstrap methods for the <code>invokedynamic</code> instructions in generated nice stubs. Each links its
+ * call site to a constant, created when the site is first called, so that repeated calls allocate nothing.
+ * This class is public only so that generated stubs can use it; it is not intended to be called directly.
+ *
+ * @author Russell Gold
+ * @since 1.3.4
+ */
+public class NiceStubBootstraps {
+
+    private NiceStubBootstraps() {
+    }
+
+    /**
+     * Links a call site to a nice stub of its return type, which must be an interface.
+     * @param lookup the lookup of the stub class
+     * @param name the name of the call site
+     * @param type the type of the call site, which takes no arguments
+     * @return a call site which returns the nested stub
+     */
+    public static CallSite nestedStub(MethodHandles.Lookup lookup, String name, MethodType type) {
+        return constant(type, Stub.createNiceStub(type.returnType()));
+    }
+
+    /**
+     * Links a call site to an empty array of its return type, which must be an array type.
+     * @param lookup the lookup of the stub class
+     * @param name the name of the call site
+     * @param type the type of the call site, which takes no arguments
+     * @return a call site which returns the empty array
+     */
+    public static CallSite emptyArray(MethodHandles.Lookup lookup, String name, MethodType type) {
+        return constant(type, Array.newInstance(type.returnType().getComponentType(), 0));
+    }
+
+    private static CallSite constant(MethodType type, Object value) {
+        return new ConstantCallSite(MethodHandles.constant(type.returnType(), value));
+    }
+}
@@ -0,0 +1,64 @@
+package com.meterware.simplestub;
+/*
+ * Copyright (c) 2026 Russell Gold
+ *
+ * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
+ */
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * The stub classes written at build time by {@link StubClassWriter}. Each classloader's index is read once,
+ * so that a stub which was not prebuilt can be generated without first probing the classloader for it.
+ *
+ * @author Russell Gold
+ */
+class PrebuiltStubs {
+
+    /** The resource listing the names of the prebuilt stub classes, one per line. */
+    static final String INDEX_RESOURCE = "META-INF/simplestub/prebuilt-stubs";
+
+    private static final Map<ClassLoader, Set<String>> INDEXES = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private PrebuiltStubs() {
+    }
+
+    /**
+     * Returns true if the specified stub class was written at build time and is visible to the specified classloader.
+     * @param classLoader the classloader in which the stub will be defined
+     * @param stubClassName the name of the stub class
+     * @return true if the stub class may be loaded rather than generated
+     */
+    static boolean isPrebuilt(ClassLoader classLoader, String stubClassName) {
+        return classLoader != null && INDEXES.computeIfAbsent(classLoader, PrebuiltStubs::readIndex).contains(stubClassName);
+    }
+
+    private static Set<String> readIndex(ClassLoader classLoader) {
+        Set<String> stubClassNames = new HashSet<>();
+        try {
+            Enumeration<URL> indexes = classLoader.getResources(INDEX_RESOURCE);
+            while (indexes.hasMoreElements())
+                readIndex(indexes.nextElement(), stubClassNames);
+        } catch (IOException ignored) { // without a readable index, stubs will simply be generated
+        }
+        return stubClassNames;
+    }
+
+    private static void readIndex(URL index, Set<String> stubClassNames) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(index.openStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null)
+                if (!line.trim().isEmpty())
+                    stubClassNames.add(line.trim());
+        }
+    }
+}
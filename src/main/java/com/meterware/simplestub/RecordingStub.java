@@ -0,0 +1,21 @@
+package com.meterware.simplestub;
+/*
+ * Copyright (c) 2026 Russell Gold
+ *
+ * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
+ */
+
+/**
+ * Implemented by stubs created with {@link Stub#createRecordingStub}, whose generated methods record each call.
+ *
+ * @author Russell Gold
+ * @since 1.3.4
+ */
+public interface RecordingStub {
+
+    /**
+     * Returns the journal of calls made to the generated methods of this stub.
+     * @return the journal owned by this stub
+     */
+    InvocationJournal getInvocationJournal();
+}
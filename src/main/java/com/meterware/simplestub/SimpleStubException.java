@@ -1,6 +1,6 @@
 package com.meterware.simplestub;
 /*
- * Copyright (c) 2014-2018 Russell Gold
+ * Copyright (c) 2014-2026 Russell Gold
  *
  * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
  */
@@ -18,4 +18,15 @@ public class SimpleStubException extends RuntimeException {
     public SimpleStubException(String message, Throwable cause, Object... parameters) {
         super(String.format(message, parameters), cause);
     }
+
+    /**
+     * Creates an exception which may omit its stack trace. Suppressed exceptions are disabled, so that
+     * a single instance may safely be thrown more than once.
+     * @param message the detail message, which is not formatted
+     * @param writableStackTrace false if the exception should have no stack trace
+     * @since 1.3.4
+     */
+    protected SimpleStubException(String message, boolean writableStackTrace) {
+        super(message, null, false, writableStackTrace);
+    }
 }
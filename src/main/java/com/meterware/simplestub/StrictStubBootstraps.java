@@ -0,0 +1,65 @@
+package com.meterware.simplestub;
+/*
+ * Copyright (c) 2026 Russell Gold
+ *
+ * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
+ */
+import java.lang.invoke.CallSite;
+import java.lang.invoke.ConstantCallSite;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Supplies the exceptions thrown by the methods of generated strict stubs. By default, each call creates a new
+ * exception with a full stack trace; if the {@link Stub#STACKLESS_STRICT_EXCEPTIONS_PROPERTY} property is set,
+ * each method instead throws a single exception, created without a stack trace.
+ * This class is public only so that generated stubs can use it; it is not intended to be called directly.
+ *
+ * @author Russell Gold
+ * @since 1.3.4
+ */
+public class StrictStubBootstraps {
+
+    private static final MethodHandle EXCEPTION_CONSTRUCTOR = getExceptionConstructor();
+
+    /** True if strict stubs throw preallocated exceptions; read once, when the first strict stub method is linked. */
+    private static final boolean STACKLESS_EXCEPTIONS = Boolean.getBoolean(Stub.STACKLESS_STRICT_EXCEPTIONS_PROPERTY);
+
+    private static MethodHandle getExceptionConstructor() {
+        try {
+            return MethodHandles.lookup().findConstructor(UnexpectedMethodCallException.class, MethodType.methodType(void.class, String.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalStateException("Unable to find constructor for " + UnexpectedMethodCallException.class.getName(), e);
+        }
+    }
+
+    private StrictStubBootstraps() {
+    }
+
+    /**
+     * Links a call site to the exception to be thrown by a strict stub method.
+     * @param lookup the lookup of the stub class
+     * @param name the name of the call site
+     * @param type the type of the call site, which takes no arguments and returns the exception
+     * @param message the message for the exception, identifying the method called
+     * @return a call site which returns either a new exception on each call, or a single preallocated one
+     */
+    public static CallSite unexpectedCall(MethodHandles.Lookup lookup, String name, MethodType type, String message) {
+        UnexpectedMethodCallException preallocated = preallocate(message);
+        if (preallocated != null)
+            return new ConstantCallSite(MethodHandles.constant(type.returnType(), preallocated));
+        else
+            return new ConstantCallSite(MethodHandles.insertArguments(EXCEPTION_CONSTRUCTOR, 0, message).asType(type));
+    }
+
+    /**
+     * Returns the exception to be thrown on every call to a strict stub method, or null if each call should
+     * create its own exception.
+     * @param message the message for the exception, identifying the method called
+     * @return a stackless exception, or null if stackless exceptions are not enabled
+     */
+    public static UnexpectedMethodCallException preallocate(String message) {
+        return STACKLESS_EXCEPTIONS ? new UnexpectedMethodCallException(message, false) : null;
+    }
+}
@@ -1,9 +1,12 @@
 package com.meterware.simplestub;
 /*
- * Copyright (c) 2015-2016 Russell Gold
+ * Copyright (c) 2015-2026 Russell Gold
  *
  * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
  */
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
 import com.meterware.simplestub.generation.StubKind;
 
 /**
@@ -14,6 +17,44 @@ import com.meterware.simplestub.generation.StubKind;
 @SuppressWarnings("WeakerAccess")
 abstract public class Stub {
 
+    /**
+     * The system property which, when set to true, causes stub classes to be defined as hidden classes on JDK 15
+     * and later. Such classes cannot be found by name, but are unloaded once no longer referenced.
+     * @since 1.3.4
+     */
+    public static final String HIDDEN_CLASSES_PROPERTY = "simplestub.hidden.classes";
+
+    /**
+     * The system property which, when set to true, causes each method of a strict stub to throw a single
+     * preallocated {@link UnexpectedMethodCallException}, without a stack trace, rather than creating a new one
+     * on each call. The property is read only once, so it must be set before the first strict stub class is generated;
+     * the exception still reports the method called.
+     * @since 1.3.4
+     */
+    public static final String STACKLESS_STRICT_EXCEPTIONS_PROPERTY = "simplestub.strict.stackless";
+
+    /**
+     * The system property which sets the number of calls retained by the journal of each recording stub.
+     * If not set, {@link InvocationJournal#DEFAULT_CAPACITY} calls are retained.
+     * @since 1.3.4
+     */
+    public static final String RECORDING_CAPACITY_PROPERTY = "simplestub.recording.capacity";
+
+    /**
+     * The system property which, when set to true, causes {@link #createStub} and {@link #createNiceStub} to create
+     * counting stubs, whose generated methods count the calls made to them. The counts are returned by {@link #counts}.
+     * @since 1.3.4
+     */
+    public static final String COUNTING_PROPERTY = "simplestub.counting";
+
+    /**
+     * The system property which names the stub generator to use, such as <code>asm</code> or <code>javassist</code>.
+     * If not set, the available generator with the highest rank is used.
+     * @see com.meterware.simplestub.generation.StubGeneratorFactory#getName()
+     * @since 1.3.4
+     */
+    public static final String GENERATOR_PROPERTY = "simplestub.generator";
+
     /**
      * Instantiates a stub from an abstract class or interface, generating implementations for any abstract methods.
      * Generated methods will do nothing. If they are defined as returning value, they will return zero, false, or null, as appropriate.
@@ -24,7 +65,11 @@ abstract public class Stub {
      * @return a newly instantiated stub
      */
     public static <T> T createStub(Class<T> aClass, Object... parameters) {
-        return createStub(aClass, StubKind.DEFAULT, parameters);
+        return createStub(aClass, isCounting() ? StubKind.COUNTING : StubKind.DEFAULT, parameters);
+    }
+
+    private static boolean isCounting() {
+        return Boolean.getBoolean(COUNTING_PROPERTY);
     }
 
     private static <T> T createStub(Class<T> aClass, StubKind stubKind, Object[] parameters) {
@@ -44,7 +89,7 @@ abstract public class Stub {
      * @since 1.2.2
      */
     public static <T> T createNiceStub(Class<T> aClass, Object... parameters) {
-        return createStub(aClass, StubKind.NICE, parameters);
+        return createStub(aClass, isCounting() ? StubKind.NICE_COUNTING : StubKind.NICE, parameters);
     }
 
     /**
@@ -59,4 +104,179 @@ abstract public class Stub {
         return createStub(aClass, StubKind.STRICT, parameters);
     }
 
+    /**
+     * Instantiates a stub from an abstract class or interface, whose generated methods record each call in a journal
+     * before returning zero, false, or null, as appropriate. The stub implements {@link RecordingStub}.
+     * @param aClass the class from which a stub should be generated.
+     * @param parameters any parameters needed for the constructor. If the class is an inner class, the first parameter
+     *                   must be the outer class instance.
+     * @param <T> the abstract class
+     * @return a newly instantiated stub
+     * @since 1.3.4
+     */
+    public static <T> T createRecordingStub(Class<T> aClass, Object... parameters) {
+        return createStub(aClass, StubKind.RECORDING, parameters);
+    }
+
+    /**
+     * Instantiates a stub from an abstract class or interface, whose generated methods charge each call against
+     * a {@link CallBudget} before returning zero, false, or null, as appropriate. Once limits are set on the budget,
+     * a call which exceeds them throws a {@link CallBudgetExceededException}. The stub implements {@link BudgetedStub}.
+     * @param aClass the class from which a stub should be generated.
+     * @param parameters any parameters needed for the constructor. If the class is an inner class, the first parameter
+     *                   must be the outer class instance.
+     * @param <T> the abstract class
+     * @return a newly instantiated stub
+     * @since 1.3.4
+     */
+    public static <T> T createBudgetedStub(Class<T> aClass, Object... parameters) {
+        return createStub(aClass, StubKind.BUDGETED, parameters);
+    }
+
+    /**
+     * Instantiates a stub from an abstract class or interface, whose generated methods wait for the delay chosen by
+     * a {@link LatencySimulator} before returning zero, false, or null, as appropriate. The stub implements
+     * {@link LatencyStub}.
+     * @param aClass the class from which a stub should be generated.
+     * @param parameters any parameters needed for the constructor. If the class is an inner class, the first parameter
+     *                   must be the outer class instance.
+     * @param <T> the abstract class
+     * @return a newly instantiated stub
+     * @since 1.3.4
+     */
+    public static <T> T createLatencyStub(Class<T> aClass, Object... parameters) {
+        return createStub(aClass, StubKind.LATENCY, parameters);
+    }
+
+    /**
+     * Instantiates a stub from an abstract class or interface, whose generated methods wait for the delay chosen by
+     * a {@link LatencySimulator} before returning the same values as those of a {@link #createNiceStub nice stub}.
+     * The stub implements {@link LatencyStub}.
+     * @param aClass the class from which a stub should be generated.
+     * @param parameters any parameters needed for the constructor. If the class is an inner class, the first parameter
+     *                   must be the outer class instance.
+     * @param <T> the abstract class
+     * @return a newly instantiated stub
+     * @since 1.3.4
+     */
+    public static <T> T createNiceLatencyStub(Class<T> aClass, Object... parameters) {
+        return createStub(aClass, StubKind.NICE_LATENCY, parameters);
+    }
+
+    /**
+     * Instantiates a stub from an abstract class or interface, whose generated methods return zero, false, or null,
+     * as appropriate, until configured otherwise by {@link #when}. Each method is bound to its behavior through
+     * an <code>invokedynamic</code> call site, so that unconfigured methods cost no more than those of a default stub.
+     * The stub implements {@link ConfigurableStub}.
+     * @param aClass the class from which a stub should be generated.
+     * @param parameters any parameters needed for the constructor. If the class is an inner class, the first parameter
+     *                   must be the outer class instance.
+     * @param <T> the abstract class
+     * @return a newly instantiated stub
+     * @since 1.3.4
+     */
+    public static <T> T createConfigurableStub(Class<T> aClass, Object... parameters) {
+        return createStub(aClass, StubKind.CONFIGURABLE, parameters);
+    }
+
+    /**
+     * Returns the journal of calls made to the generated methods of a recording stub.
+     * @param stub a stub created by {@link #createRecordingStub}
+     * @return the journal owned by the stub
+     * @since 1.3.4
+     */
+    public static InvocationJournal getInvocationJournal(Object stub) {
+        if (!(stub instanceof RecordingStub))
+            throw new SimpleStubException("%s is not a recording stub", stub);
+        return ((RecordingStub) stub).getInvocationJournal();
+    }
+
+    /**
+     * Returns the number of calls made to each generated method of a counting stub.
+     * @param stub a stub created while the {@link #COUNTING_PROPERTY} property was set,
+     *             or with a counting {@link StubKind}
+     * @return a snapshot of the counts, keyed by the method name followed by its descriptor
+     * @since 1.3.4
+     */
+    public static Map<String, Long> counts(Object stub) {
+        if (!(stub instanceof CountingStub))
+            throw new SimpleStubException("%s is not a counting stub", stub);
+        return ((CountingStub) stub).getInvocationCounters().getCounts();
+    }
+
+    /**
+     * Returns the call budget of a budgeted stub, on which limits may be set.
+     * @param stub a stub created by {@link #createBudgetedStub}
+     * @return the budget owned by the stub
+     * @since 1.3.4
+     */
+    public static CallBudget getCallBudget(Object stub) {
+        if (!(stub instanceof BudgetedStub))
+            throw new SimpleStubException("%s is not a budgeted stub", stub);
+        return ((BudgetedStub) stub).getCallBudget();
+    }
+
+    /**
+     * Returns the latency simulator of a latency stub, on which delays and throughput limits may be set.
+     * @param stub a stub created by {@link #createLatencyStub} or {@link #createNiceLatencyStub}
+     * @return the simulator owned by the stub
+     * @since 1.3.4
+     */
+    public static LatencySimulator getLatencySimulator(Object stub) {
+        if (!(stub instanceof LatencyStub))
+            throw new SimpleStubException("%s is not a latency stub", stub);
+        return ((LatencyStub) stub).getLatencySimulator();
+    }
+
+    /**
+     * Returns an object which configures the behavior of the generated methods of a configurable stub.
+     * @param stub a stub created by {@link #createConfigurableStub}
+     * @return the configuration of the stub
+     * @since 1.3.4
+     */
+    public static StubConfiguration when(Object stub) {
+        if (!(stub instanceof ConfigurableStub))
+            throw new SimpleStubException("%s is not a configurable stub", stub);
+        return new StubConfiguration(stub);
+    }
+
+    /**
+     * Creates a reusable factory for stubs of an abstract class or interface. The stub class is generated and its
+     * constructor resolved once, so that repeated instantiation avoids the cost of matching constructor parameters.
+     * @param aClass the class from which stubs should be generated.
+     * @param stubKind the kind of stubs to create
+     * @param parameterTypes the parameter types of the constructor to use. If the class is an inner class,
+     *                       the first must be the outer class.
+     * @param <T> the abstract class
+     * @return a factory which creates stubs
+     * @since 1.3.4
+     */
+    public static <T> StubFactory<T> factory(Class<T> aClass, StubKind stubKind, Class<?>... parameterTypes) {
+        return new StubLoader(aClass, stubKind).createFactory(parameterTypes);
+    }
+
+    /**
+     * Starts generating stub classes in the background, so that later calls to create stubs need not wait for them.
+     * Classes are generated in parallel on the common fork-join pool.
+     * @param stubKind the kind of stubs to generate
+     * @param classes the abstract classes or interfaces whose stubs should be generated
+     * @return a future which completes when all of the stub classes have been generated
+     * @since 1.3.4
+     */
+    public static CompletableFuture<Void> preload(StubKind stubKind, Class<?>... classes) {
+        return StubPreloader.preload(stubKind, classes);
+    }
+
+    /**
+     * Starts generating stub classes in the background for all abstract classes and interfaces in the specified package,
+     * as seen by the thread context classloader. Subpackages are not included.
+     * @param stubKind the kind of stubs to generate
+     * @param packageName the name of the package whose classes should be stubbed
+     * @return a future which completes when all of the stub classes have been generated
+     * @since 1.3.4
+     */
+    public static CompletableFuture<Void> preloadPackage(StubKind stubKind, String packageName) {
+        return StubPreloader.preloadPackage(stubKind, packageName);
+    }
+
 }
@@ -0,0 +1,278 @@
+package com.meterware.simplestub;
+/*
+ * Copyright (c) 2026 Russell Gold
+ *
+ * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
+ */
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import com.meterware.simplestub.generation.StubGenerator;
+import com.meterware.simplestub.generation.StubKind;
+
+/**
+ * An optional on-disk cache of generated stub bytecode, shared by all JVMs which use the same cache directory.
+ * It is enabled by setting the <code>simplestub.cache.dir</code> system property to the directory to use.
+ *
+ * Each entry is a file whose name is a hash of everything which determines the generated stub: the bytecode of
+ * the base class and all of its superclasses and interfaces, the stub kind, the stub class name, and the code of
+ * the generator used. That code is the whole of each jar or class directory from which the generator and this
+ * library were loaded, so that any change to the generator, its method generators or the runtime support classes
+ * its stubs call gives new entries. Stubs from a generator whose code cannot be read are not cached.
+ * Entries are written to a temporary file and atomically renamed into place, so that concurrent JVMs never see
+ * a partially written entry, and need no locks.
+ *
+ * @author Russell Gold
+ * @since 1.3.4
+ */
+public class StubBytecodeCache {
+
+    /** The system property which enables the cache and specifies its directory. */
+    public static final String CACHE_DIRECTORY_PROPERTY = "simplestub.cache.dir";
+
+    private static final byte[] CLASS_FILE_MAGIC = {(byte) 0xCA, (byte) 0xFE, (byte) 0xBA, (byte) 0xBE};
+
+    private static final byte[] NO_DIGEST = new byte[0];
+
+    /** The digest of the code of each generator class, computed once, or NO_DIGEST if the code cannot be read. */
+    private static final ClassValue<byte[]> generatorDigests = new ClassValue<byte[]>() {
+        @Override
+        protected byte[] computeValue(Class<?> generatorClass) {
+            return digestGeneratorCode(generatorClass);
+        }
+    };
+
+    private static volatile StubBytecodeCache instance;
+
+    private final File directory;
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    StubBytecodeCache(File directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Returns the cache for the directory specified by the <code>simplestub.cache.dir</code> system property.
+     * @return the cache, or null if no cache directory is specified
+     */
+    public static StubBytecodeCache getInstance() {
+        String directoryName = System.getProperty(CACHE_DIRECTORY_PROPERTY);
+        if (directoryName == null) return null;
+
+        StubBytecodeCache cache = instance;
+        if (cache == null || !cache.directory.equals(new File(directoryName)))
+            instance = cache = new StubBytecodeCache(new File(directoryName));
+        return cache;
+    }
+
+    /**
+     * Returns the directory in which the cache entries are stored.
+     */
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Returns the number of stubs whose bytecode was found in the cache.
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * Returns the number of stubs whose bytecode had to be generated.
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Returns the bytecode for a stub class, either from the cache or by generating and caching it.
+     * @param baseClass the class from which the stub is generated
+     * @param kind the kind of stub
+     * @param stubClassName the name of the stub class
+     * @param generator the generator to use if the bytecode is not cached
+     * @return the contents of the stub class file
+     */
+    byte[] getStubClassBytes(Class<?> baseClass, StubKind kind, String stubClassName, StubGenerator generator) {
+        Path entry = getEntry(baseClass, kind, stubClassName, generator);
+        byte[] classBytes = entry == null ? null : readEntry(entry);
+        if (classBytes != null) {
+            hitCount.incrementAndGet();
+            return classBytes;
+        }
+
+        missCount.incrementAndGet();
+        classBytes = generator.generateStubClassBytes(stubClassName);
+        if (entry != null) writeEntry(entry, classBytes);
+        return classBytes;
+    }
+
+    private Path getEntry(Class<?> baseClass, StubKind kind, String stubClassName, StubGenerator generator) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            update(digest, stubClassName);
+            update(digest, kind.name());
+            update(digest, generator.getClass().getName());
+            byte[] generatorDigest = generatorDigests.get(generator.getClass());
+            if (generatorDigest == NO_DIGEST) return null;
+            digest.update(generatorDigest);
+            for (Class<?> aClass : getHierarchy(baseClass))
+                if (!updateWithClassBytes(digest, aClass)) return null;
+
+            return new File(directory, toHexString(digest.digest()) + ".class").toPath();
+        } catch (NoSuchAlgorithmException | IOException e) {
+            return null;
+        }
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    private static byte[] digestGeneratorCode(Class<?> generatorClass) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Path location : getCodeLocations(generatorClass, StubGenerator.class)) {
+                if (location == null) return NO_DIGEST;
+                if (Files.isDirectory(location))
+                    updateWithDirectory(digest, location);
+                else
+                    digest.update(Files.readAllBytes(location));
+            }
+            return digest.digest();
+        } catch (NoSuchAlgorithmException | IOException | UncheckedIOException e) {
+            return NO_DIGEST;
+        }
+    }
+
+    private static Set<Path> getCodeLocations(Class<?>... classes) {
+        Set<Path> locations = new LinkedHashSet<>();
+        for (Class<?> aClass : classes)
+            locations.add(getCodeLocation(aClass));
+        return locations;
+    }
+
+    private static Path getCodeLocation(Class<?> aClass) {
+        try {
+            CodeSource codeSource = aClass.getProtectionDomain().getCodeSource();
+            URL location = codeSource == null ? null : codeSource.getLocation();
+            return location == null || !location.getProtocol().equals("file") ? null : Paths.get(location.toURI());
+        } catch (SecurityException | URISyntaxException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    // The files are read in order of their paths, so that the digest does not depend on the order of the directory.
+    private static void updateWithDirectory(MessageDigest digest, Path directory) throws IOException {
+        List<Path> files;
+        try (Stream<Path> paths = Files.walk(directory)) {
+            files = paths.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+        }
+        for (Path file : files) {
+            update(digest, directory.relativize(file).toString().replace(File.separatorChar, '/'));
+            digest.update(Files.readAllBytes(file));
+        }
+    }
+
+    private Set<Class<?>> getHierarchy(Class<?> baseClass) {
+        Set<Class<?>> hierarchy = new LinkedHashSet<>();
+        addHierarchy(hierarchy, baseClass);
+        return hierarchy;
+    }
+
+    private void addHierarchy(Set<Class<?>> hierarchy, Class<?> aClass) {
+        if (aClass == null || !hierarchy.add(aClass)) return;
+
+        addHierarchy(hierarchy, aClass.getSuperclass());
+        for (Class<?> anInterface : aClass.getInterfaces())
+            addHierarchy(hierarchy, anInterface);
+    }
+
+    // JDK classes change only with the JDK, so identify them by the JDK version rather than reading their bytecode.
+    private boolean updateWithClassBytes(MessageDigest digest, Class<?> aClass) throws IOException {
+        update(digest, aClass.getName());
+        if (aClass.getClassLoader() == null) {
+            update(digest, System.getProperty("java.version"));
+            return true;
+        }
+
+        try (InputStream inputStream = aClass.getClassLoader().getResourceAsStream(aClass.getName().replace('.', '/') + ".class")) {
+            if (inputStream == null) return false;
+            digest.update(readAllBytes(inputStream));
+            return true;
+        }
+    }
+
+    private byte[] readAllBytes(InputStream inputStream) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int count;
+        while ((count = inputStream.read(buffer)) > 0)
+            outputStream.write(buffer, 0, count);
+        return outputStream.toByteArray();
+    }
+
+    private String toHexString(byte[] bytes) {
+        StringBuilder sb = new StringBuilder();
+        for (byte b : bytes)
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        return sb.toString();
+    }
+
+    private byte[] readEntry(Path entry) {
+        try {
+            byte[] classBytes = Files.readAllBytes(entry);
+            return isClassFile(classBytes) ? classBytes : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private boolean isClassFile(byte[] classBytes) {
+        if (classBytes.length < CLASS_FILE_MAGIC.length) return false;
+        for (int i = 0; i < CLASS_FILE_MAGIC.length; i++)
+            if (classBytes[i] != CLASS_FILE_MAGIC[i]) return false;
+        return true;
+    }
+
+    private void writeEntry(Path entry, byte[] classBytes) {
+        Path tempFile = null;
+        try {
+            Files.createDirectories(entry.getParent());
+            tempFile = Files.createTempFile(entry.getParent(), "stub", ".tmp");
+            Files.write(tempFile, classBytes);
+            Files.move(tempFile, entry, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {  // a failure to cache only means that the stub will be generated again
+            deleteQuietly(tempFile);
+        }
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            if (file != null) Files.deleteIfExists(file);
+        } catch (IOException ignored) {
+        }
+    }
+}
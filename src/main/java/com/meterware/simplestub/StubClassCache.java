@@ -0,0 +1,123 @@
+package com.meterware.simplestub;
+/*
+ * Copyright (c) 2026 Russell Gold
+ *
+ * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
+ */
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.function.Supplier;
+
+import com.meterware.simplestub.generation.StubKind;
+
+/**
+ * A cache of the stub classes already generated, keyed by base class, stub kind and defining classloader.
+ * Entries are attached to the base class, and the stub classes themselves are only weakly held,
+ * so that the cache never prevents a classloader from being unloaded.
+ *
+ * Each stub class is generated only once: when several threads ask for the same missing stub, one of them
+ * generates it and the others wait for the result.
+ *
+ * @author Russell Gold
+ */
+class StubClassCache {
+
+    /** A cached class which is not usable is replaced once; if the replacement is not usable either, generation fails. */
+    private static final int MAX_ATTEMPTS = 2;
+
+    private final ClassValue<ConcurrentMap<StubKind, StubClassFuture>> stubClasses = new ClassValue<ConcurrentMap<StubKind, StubClassFuture>>() {
+        @Override
+        protected ConcurrentMap<StubKind, StubClassFuture> computeValue(Class<?> baseClass) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    /**
+     * Returns the stub class of the specified kind, generating it if it has not already been defined in the specified
+     * classloader or one of its ancestors.
+     * @param baseClass the class from which the stub is generated
+     * @param kind the kind of stub
+     * @param classLoader the classloader from which the stub must be visible
+     * @param generator the means to generate the stub class if it is not already cached
+     * @return the stub class
+     */
+    Class<?> getStubClass(Class<?> baseClass, StubKind kind, ClassLoader classLoader, Supplier<Class<?>> generator) {
+        ConcurrentMap<StubKind, StubClassFuture> futures = stubClasses.get(baseClass);
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            StubClassFuture future = getOrStartGeneration(futures, kind, generator);
+            Class<?> stubClass = future.getStubClass(futures, kind);
+            if (stubClass != null && isVisibleFrom(stubClass.getClassLoader(), classLoader)) return stubClass;
+
+            futures.remove(kind, future);
+        }
+        throw new SimpleStubException("Unable to obtain a %s stub class for %s visible from %s", kind, baseClass.getName(), classLoader);
+    }
+
+    // A stub class defined by a parent loader, for example one written at build time, is found by delegation.
+    private boolean isVisibleFrom(ClassLoader stubClassLoader, ClassLoader classLoader) {
+        if (stubClassLoader == null) return true;
+
+        for (ClassLoader loader = classLoader; loader != null; loader = loader.getParent())
+            if (loader == stubClassLoader) return true;
+        return false;
+    }
+
+    private StubClassFuture getOrStartGeneration(ConcurrentMap<StubKind, StubClassFuture> futures, StubKind kind, Supplier<Class<?>> generator) {
+        StubClassFuture future = futures.get(kind);
+        if (future != null) return future;
+
+        StubClassFuture newFuture = new StubClassFuture(generator);
+        future = futures.putIfAbsent(kind, newFuture);
+        if (future != null) return future;
+
+        newFuture.run();
+        return newFuture;
+    }
+
+    static class StubClassFuture extends FutureTask<WeakReference<Class<?>>> {
+
+        StubClassFuture(Supplier<Class<?>> generator) {
+            super(() -> new WeakReference<>(generator.get()));
+        }
+
+        /**
+         * Waits for the generation to complete and returns the result. If generation failed, the failed entry is
+         * removed so that a later request may try again, and the failure is reported to every waiting caller.
+         */
+        Class<?> getStubClass(ConcurrentMap<StubKind, StubClassFuture> futures, StubKind kind) {
+            try {
+                return getUninterruptibly().get();
+            } catch (ExecutionException e) {
+                futures.remove(kind, this);
+                throw asUncheckedException(e.getCause());
+            }
+        }
+
+        private WeakReference<Class<?>> getUninterruptibly() throws ExecutionException {
+            boolean interrupted = false;
+            try {
+                while (true) {
+                    try {
+                        return get();
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+            } finally {
+                if (interrupted) Thread.currentThread().interrupt();
+            }
+        }
+
+        private RuntimeException asUncheckedException(Throwable cause) {
+            if (cause instanceof Error)
+                throw (Error) cause;
+            else if (cause instanceof RuntimeException)
+                return (RuntimeException) cause;
+            else
+                return new SimpleStubException("Unable to generate stub class", cause);
+        }
+    }
+}
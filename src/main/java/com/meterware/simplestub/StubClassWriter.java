@@ -0,0 +1,120 @@
+package com.meterware.simplestub;
+/*
+ * Copyright (c) 2026 Russell Gold
+ *
+ * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
+ */
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+
+import com.meterware.simplestub.generation.StubGenerator;
+import com.meterware.simplestub.generation.StubKind;
+
+/**
+ * Writes stub classes to a directory at build time, so that tests can load them rather than generating them.
+ * The classes are written under the names which {@link Stub} would give them, along with an index which tells
+ * SimpleStub which stubs are available. It may be run during the <code>process-test-classes</code> phase,
+ * for example with the exec-maven-plugin:
+ * <pre>
+ *     java com.meterware.simplestub.StubClassWriter target/test-classes com.acme.Fake nice:com.acme.Service
+ * </pre>
+ * Each class name may be prefixed by the kind of stub to write, named in lower case: for example <code>nice:</code>,
+ * <code>strict:</code> or <code>nice_counting:</code>. The default kind is used if none is specified.
+ *
+ * @author Russell Gold
+ * @since 1.3.4
+ */
+public class StubClassWriter {
+
+    private final File outputDirectory;
+    private final Set<String> writtenClassNames = new TreeSet<>();
+
+    /**
+     * Creates a writer for the specified directory, which should be on the test classpath.
+     * @param outputDirectory the root directory for the class files
+     */
+    public StubClassWriter(File outputDirectory) {
+        this.outputDirectory = outputDirectory;
+    }
+
+    /**
+     * Writes a stub class file for the specified base class and stub kind.
+     * @param baseClass the abstract class or interface to stub
+     * @param kind the kind of stub to write
+     * @return the name of the written stub class
+     * @throws IOException if unable to write the class file
+     */
+    public String write(Class<?> baseClass, StubKind kind) throws IOException {
+        String stubClassName = new StubLoader(baseClass, kind).getStubClassName();
+        byte[] classBytes = StubGenerator.create(baseClass, kind).generateStubClassBytes(stubClassName);
+
+        File classFile = new File(outputDirectory, stubClassName.replace('.', File.separatorChar) + ".class");
+        Files.createDirectories(classFile.getParentFile().toPath());
+        Files.write(classFile.toPath(), classBytes);
+        writtenClassNames.add(stubClassName);
+        return stubClassName;
+    }
+
+    /**
+     * Writes the index of the stub classes written so far, retaining any entries already in the index.
+     * @throws IOException if unable to write the index
+     */
+    public void writeIndex() throws IOException {
+        File indexFile = new File(outputDirectory, PrebuiltStubs.INDEX_RESOURCE);
+        Set<String> stubClassNames = new TreeSet<>(writtenClassNames);
+        if (indexFile.exists())
+            stubClassNames.addAll(Files.readAllLines(indexFile.toPath(), StandardCharsets.UTF_8));
+
+        Files.createDirectories(indexFile.getParentFile().toPath());
+        Files.write(indexFile.toPath(), stubClassNames, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes stub classes for the named classes, and their index.
+     * @param args the output directory, followed by the names of the classes to stub,
+     *             each optionally prefixed by a stub kind.
+     * @throws Exception if unable to load a class or write its stub
+     */
+    public static void main(String... args) throws Exception {
+        if (args.length < 2)
+            throw new IllegalArgumentException("Usage: StubClassWriter <output directory> [kind:]<class name>...");
+
+        StubClassWriter writer = new StubClassWriter(new File(args[0]));
+        for (StubSpec spec : toStubSpecs(args))
+            writer.write(spec.getBaseClass(), spec.getKind());
+        writer.writeIndex();
+    }
+
+    private static List<StubSpec> toStubSpecs(String[] args) throws ClassNotFoundException {
+        List<StubSpec> specs = new ArrayList<>();
+        for (int i = 1; i < args.length; i++)
+            specs.add(new StubSpec(args[i]));
+        return specs;
+    }
+
+    private static class StubSpec {
+        private final StubKind kind;
+        private final Class<?> baseClass;
+
+        StubSpec(String spec) throws ClassNotFoundException {
+            int separator = spec.indexOf(':');
+            kind = separator < 0 ? StubKind.DEFAULT : StubKind.valueOf(spec.substring(0, separator).toUpperCase(Locale.ENGLISH));
+            baseClass = Class.forName(spec.substring(separator + 1), false, Thread.currentThread().getContextClassLoader());
+        }
+
+        StubKind getKind() {
+            return kind;
+        }
+
+        Class<?> getBaseClass() {
+            return baseClass;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.meterware.simplestub;
+/*
+ * Copyright (c) 2026 Russell Gold
+ *
+ * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
+ */
+import java.util.List;
+
+/**
+ * Configures the behavior of the generated methods of a single configurable stub, at runtime. Methods which have not
+ * been configured return zero, false or null.
+ * <pre>
+ *     Stub.when(service)
+ *         .method("getCount").returns(42)
+ *         .method("lookup").answers(args -&gt; "name-" + args[0])
+ *         .method("save").throwsException(new IOException("disk full"));
+ * </pre>
+ *
+ * @author Russell Gold
+ * @since 1.3.4
+ */
+public class StubConfiguration {
+
+    private final Object stub;
+
+    StubConfiguration(Object stub) {
+        this.stub = stub;
+    }
+
+    /**
+     * Selects the generated methods to configure.
+     * @param methodName the name of the methods, or a name followed by a descriptor to select a single overload
+     * @return an object which configures the selected methods
+     */
+    public MethodConfiguration method(String methodName) {
+        List<ConfigurableMethod> methods = ConfigurableStubBootstraps.getMethods(stub.getClass(), methodName);
+        if (methods.isEmpty())
+            throw new SimpleStubException("No generated method named %s", methodName);
+        return new MethodConfiguration(methods);
+    }
+
+    /**
+     * Restores the default behavior of every generated method of the stub.
+     * @return this configuration
+     */
+    public StubConfiguration reset() {
+        for (ConfigurableMethod method : ConfigurableStubBootstraps.getMethods(stub.getClass(), null))
+            method.reset(stub);
+        return this;
+    }
+
+    /**
+     * Configures the behavior of the selected methods of a stub.
+     */
+    public class MethodConfiguration {
+
+        private final List<ConfigurableMethod> methods;
+
+        private MethodConfiguration(List<ConfigurableMethod> methods) {
+            this.methods = methods;
+        }
+
+        /**
+         * Makes the selected methods return a value.
+         * @param value the value to return, which must be assignable to the return type of each method
+         * @return the configuration of the stub
+         */
+        public StubConfiguration returns(Object value) {
+            for (ConfigurableMethod method : methods)
+                method.checkReturnValue(value);
+            for (ConfigurableMethod method : methods)
+                method.returns(stub, value);
+            return StubConfiguration.this;
+        }
+
+        /**
+         * Makes the selected methods return the results of an answer, which receives the arguments of each call.
+         * @param answer the answer to compute results
+         * @return the configuration of the stub
+         */
+        public StubConfiguration answers(Answer answer) {
+            for (ConfigurableMethod method : methods)
+                method.answers(stub, answer);
+            return StubConfiguration.this;
+        }
+
+        /**
+         * Makes the selected methods throw an exception. The same exception is thrown by every call.
+         * @param throwable the exception to throw
+         * @return the configuration of the stub
+         */
+        public StubConfiguration throwsException(Throwable throwable) {
+            for (ConfigurableMethod method : methods)
+                method.throwsException(stub, throwable);
+            return StubConfiguration.this;
+        }
+
+        /**
+         * Restores the default behavior of the selected methods.
+         * @return the configuration of the stub
+         */
+        public StubConfiguration reset() {
+            for (ConfigurableMethod method : methods)
+                method.reset(stub);
+            return StubConfiguration.this;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.meterware.simplestub;
+/*
+ * Copyright (c) 2026 Russell Gold
+ *
+ * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
+ */
+
+/**
+ * A reusable source of stub instances, created by {@link Stub#factory}. The stub class and its constructor
+ * are resolved when the factory is created, so each call to {@link #create} costs little more than a direct
+ * constructor invocation.
+ *
+ * @param <T> the class being stubbed
+ * @author Russell Gold
+ * @since 1.3.4
+ */
+public interface StubFactory<T> {
+
+    /**
+     * Instantiates a new stub.
+     * @param parameters the constructor parameters, matching the parameter types specified when the factory was created.
+     *                   A variable argument list must be passed as a single array.
+     * @return a newly instantiated stub
+     */
+    T create(Object... parameters);
+}
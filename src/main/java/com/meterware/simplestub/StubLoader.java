@@ -1,16 +1,19 @@
 package com.meterware.simplestub;
 /*
- * Copyright (c) 2015-2019 Russell Gold
+ * Copyright (c) 2015-2026 Russell Gold
  *
  * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
  */
-import java.lang.reflect.Array;
+import java.lang.invoke.MethodHandles;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Modifier;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import com.meterware.simplestub.generation.StubGenerator;
 import com.meterware.simplestub.generation.StubKind;
@@ -38,7 +41,15 @@ class StubLoader {
         PRIMITIVE_TYPES.put(Double.TYPE,    Double.class);
     }
 
-    private StubGenerator generator;
+    private final static StubClassCache STUB_CLASSES = new StubClassCache();
+
+    private final static ClassValue<ConcurrentMap<ArgumentTypes, ConstructorPlan>> CONSTRUCTOR_PLANS = new ClassValue<ConcurrentMap<ArgumentTypes, ConstructorPlan>>() {
+        @Override
+        protected ConcurrentMap<ArgumentTypes, ConstructorPlan> computeValue(Class<?> stubClass) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
     private final Class<?> baseClass;
     private StubKind kind;
     private Type type;
@@ -46,7 +57,6 @@ class StubLoader {
     StubLoader(Class<?> baseClass, StubKind kind) {
         this.baseClass = baseClass;
         this.kind = kind;
-        this.generator = StubGenerator.create(baseClass, kind);
         this.type = baseClass.getClassLoader() == null ? Type.jdkClass : Type.userClass;
     }
 
@@ -84,7 +94,7 @@ class StubLoader {
     }
 
     /**
-     * Instantiates a stub from an abstract class. The class must have been marked with the @SimpleStub annotation.
+     * Instantiates a stub from an abstract class.
      *
      * @param parameters any parameters needed for the constructor. If the class is an inner class, the first parameter
      *                   must be the outer class instance.
@@ -92,30 +102,131 @@ class StubLoader {
      */
     @SuppressWarnings("unchecked")
     <T> T create(Object... parameters) {
+        LambdaStubFactory<?> lambdaStubFactory = parameters.length == 0 ? getLambdaStubFactory() : null;
+        if (lambdaStubFactory != null)
+            return (T) lambdaStubFactory.create();
+
         try {
             Class<?> stubClass = getStubClass();
-            Constructor<?> constructor = getConstructor(stubClass, parameters);
-            constructor.setAccessible(true);
-            if (isVarArgs(constructor))
-                return (T) constructor.newInstance(toVarArgList(constructor, parameters));
-            else
-                return (T) constructor.newInstance(parameters);
+            return (T) getConstructorPlan(stubClass, parameters).newInstance(parameters);
         } catch (InstantiationException | IllegalAccessException | NoSuchMethodException | InvocationTargetException e) {
             throw new SimpleStubException("Unable to instantiate stub for " + baseClass.getName(), e);
         }
     }
 
-    private Object[] toVarArgList(Constructor<?> constructor, Object[] parameters) {
-        Object[] result = new Object[numConstructorArgs(constructor)];
-        System.arraycopy(parameters, 0, result, 0, result.length-1);
-        result[result.length - 1] = isNonVarArgsInvocation(constructor, parameters)
-                                        ? lastElement(parameters)
-                                        : remainingArgsAsArray(parameters, constructor);
-        return result;
+    private ConstructorPlan getConstructorPlan(Class<?> stubClass, Object[] parameters) throws NoSuchMethodException {
+        ConcurrentMap<ArgumentTypes, ConstructorPlan> plans = CONSTRUCTOR_PLANS.get(stubClass);
+        ArgumentTypes argumentTypes = new ArgumentTypes(parameters);
+        ConstructorPlan plan = plans.get(argumentTypes);
+        if (plan == null) {
+            plan = createConstructorPlan(stubClass, parameters);
+            plans.keySet().removeIf(ArgumentTypes::isStale);
+            plans.putIfAbsent(argumentTypes, plan);
+        }
+        return plan;
     }
 
-    private Object remainingArgsAsArray(Object[] parameters, Constructor<?> constructor) {
-        return slice(lastConstructorArg(constructor).getComponentType(), parameters, numConstructorArgs(constructor)-1);
+    private ConstructorPlan createConstructorPlan(Class<?> stubClass, Object[] parameters) throws NoSuchMethodException {
+        Constructor<?> constructor = getConstructor(stubClass, parameters);
+        if (isVarArgs(constructor) && !isNonVarArgsInvocation(constructor, parameters))
+            return ConstructorPlan.packingVarArgs(constructor);
+        else
+            return ConstructorPlan.direct(constructor);
+    }
+
+    /**
+     * The classes of a set of actual constructor parameters, with null for any null parameter. Since constructor
+     * selection depends only on these classes, they serve as the key for reusing a constructor plan. The classes
+     * are weakly held, so that a cached plan does not prevent the unloading of the argument classes' loaders.
+     */
+    static class ArgumentTypes {
+        private final WeakReference<?>[] classes;
+        private final int hashCode;
+
+        ArgumentTypes(Object[] parameters) {
+            classes = new WeakReference<?>[parameters.length];
+            for (int i = 0; i < parameters.length; i++)
+                classes[i] = parameters[i] == null ? null : new WeakReference<>(parameters[i].getClass());
+            hashCode = computeHashCode();
+        }
+
+        private int computeHashCode() {
+            int result = 1;
+            for (WeakReference<?> aClass : classes)
+                result = 31 * result + (aClass == null ? 0 : aClass.get().hashCode());
+            return result;
+        }
+
+        /**
+         * Returns true if any of the argument classes has been collected, so that this key can never match again.
+         */
+        boolean isStale() {
+            for (WeakReference<?> aClass : classes)
+                if (aClass != null && aClass.get() == null) return true;
+            return false;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof ArgumentTypes)) return false;
+
+            WeakReference<?>[] other = ((ArgumentTypes) o).classes;
+            if (other.length != classes.length) return false;
+            for (int i = 0; i < classes.length; i++)
+                if (!sameClass(classes[i], other[i])) return false;
+            return true;
+        }
+
+        private static boolean sameClass(WeakReference<?> first, WeakReference<?> second) {
+            if (first == null || second == null) return first == second;
+
+            Object aClass = first.get();
+            return aClass != null && aClass == second.get();
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    /**
+     * Generates the stub class, if it has not already been generated, without instantiating it.
+     */
+    void preload() {
+        if (getLambdaStubFactory() == null)
+            getStubClass();
+    }
+
+    // Functional interfaces are implemented by lambdas, rather than by generated stub classes, where possible.
+    private LambdaStubFactory<?> getLambdaStubFactory() {
+        return LambdaStubFactory.getFactory(baseClass, kind);
+    }
+
+    /**
+     * Creates a factory for stubs, bound to the stub constructor with the specified parameter types.
+     *
+     * @param parameterTypes the parameter types of the constructor to use.
+     * @return a factory which instantiates stubs
+     */
+    @SuppressWarnings("unchecked")
+    <T> StubFactory<T> createFactory(Class<?>... parameterTypes) {
+        LambdaStubFactory<?> lambdaStubFactory = parameterTypes.length == 0 ? getLambdaStubFactory() : null;
+        if (lambdaStubFactory != null)
+            return (StubFactory<T>) lambdaStubFactory;
+
+        Class<?> stubClass = getStubClass();
+        try {
+            Constructor<?> constructor = stubClass.getDeclaredConstructor(parameterTypes);
+            constructor.setAccessible(true);
+            return new MethodHandleStubFactory<>(baseClass, MethodHandles.lookup().unreflectConstructor(constructor));
+        } catch (NoSuchMethodException e) {
+            throw new SimpleStubException("Unable to create stub factory for %s because no constructor accepts %s",
+                                          baseClass.getName(), Arrays.toString(parameterTypes));
+        } catch (IllegalAccessException e) {
+            throw new SimpleStubException("Unable to create stub factory for %s", e, baseClass.getName());
+        }
     }
 
     private boolean isNonVarArgsInvocation(Constructor<?> constructor, Object[] parameters) {
@@ -135,13 +246,6 @@ class StubLoader {
         return array[array.length-1];
     }
 
-    private Object slice(Class<?> componentType, Object[] source, int first) {
-        Object result = Array.newInstance(componentType, source.length - first);
-        for (int i = 0; i < source.length - first; i++)
-            Array.set(result, i, source[first + i]);
-        return result;
-    }
-
     private Constructor<?> getConstructor(Class<?> stubClass, Object... parameters) throws NoSuchMethodException {
         Constructor<?> constructor = findConstructor(stubClass, parameters);
         if (constructor != null) return constructor;
@@ -215,10 +319,50 @@ class StubLoader {
     }
 
     private Class<?> getStubClass() {
+        verifyAbstractClass();
+
+        Class<?> anchorClass = type.getAnchorClass(baseClass);
+        return STUB_CLASSES.getStubClass(baseClass, kind, anchorClass.getClassLoader(),
+                    () -> defineStubClass(createStubClassName(baseClass.getName(), baseClass), anchorClass));
+    }
+
+    private void verifyAbstractClass() {
         if (!isAbstractClass())
             throw new SimpleStubException("Class " + baseClass.getName() + " is not abstract");
+    }
+
+    /**
+     * Returns the name of the stub class for the base class and kind of this loader.
+     */
+    String getStubClassName() {
+        verifyAbstractClass();
+        return createStubClassName(baseClass.getName(), baseClass);
+    }
 
-        return getStubClass(createStubClassName(baseClass.getName(), baseClass), type.getAnchorClass(baseClass));
+    // A cache miss means that this loader has not yet generated the stub, so unless the stub was written at build time,
+    // generate it without probing the classloader. Only if the definition fails is there a chance that the stub class
+    // already exists.
+    private Class<?> defineStubClass(String stubClassName, Class<?> anchorClass) {
+        Class<?> prebuiltClass = PrebuiltStubs.isPrebuilt(anchorClass.getClassLoader(), stubClassName)
+                                    ? findExistingStubClass(stubClassName, anchorClass)
+                                    : null;
+        if (prebuiltClass != null) return prebuiltClass;
+
+        try {
+            return loadStubClass(stubClassName, anchorClass);
+        } catch (LinkageError | SimpleStubException e) {
+            Class<?> existingClass = findExistingStubClass(stubClassName, anchorClass);
+            if (existingClass == null) throw e;
+            return existingClass;
+        }
+    }
+
+    private Class<?> findExistingStubClass(String stubClassName, Class<?> anchorClass) {
+        try {
+            return anchorClass.getClassLoader().loadClass(stubClassName);
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
     }
 
     private boolean isAbstractClass() {
@@ -229,12 +373,32 @@ class StubLoader {
         try {
             return anchorClass.getClassLoader().loadClass(stubClassName);
         } catch (ClassNotFoundException e) { // class has not already been created; create it now
-            return loadStubClass(stubClassName, anchorClass);
+            return StubGenerator.create(baseClass, kind).generateStubClass(stubClassName, anchorClass);
         }
     }
 
     private Class<?> loadStubClass(String stubClassName, Class<?> anchorClass) {
-        return generator.generateStubClass(stubClassName, anchorClass);
+        StubGenerator generator = StubGenerator.create(baseClass, kind);
+        StubBytecodeCache bytecodeCache = StubBytecodeCache.getInstance();
+        boolean unloadable = Boolean.getBoolean(Stub.HIDDEN_CLASSES_PROPERTY);
+        if (bytecodeCache == null && !unloadable)
+            return generator.generateStubClass(stubClassName, anchorClass);
+
+        byte[] classBytes = bytecodeCache == null
+                    ? generator.generateStubClassBytes(stubClassName)
+                    : bytecodeCache.getStubClassBytes(baseClass, kind, stubClassName, generator);
+        return defineClass(anchorClass, stubClassName, classBytes, unloadable);
+    }
+
+    private Class<?> defineClass(Class<?> anchorClass, String stubClassName, byte[] classBytes, boolean unloadable) {
+        try {
+            if (unloadable)
+                return ClassUtils.defineUnloadableClass(anchorClass, stubClassName, classBytes);
+            else
+                return ClassUtils.defineClass(anchorClass, stubClassName, classBytes);
+        } catch (IllegalAccessException e) {
+            throw new SimpleStubException("error creating stub for %s", e, baseClass.getName());
+        }
     }
 
     private String createStubClassName(String className, Class<?> baseClass) {
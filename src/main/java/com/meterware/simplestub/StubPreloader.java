@@ -0,0 +1,158 @@
+package com.meterware.simplestub;
+/*
+ * Copyright (c) 2026 Russell Gold
+ *
+ * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
+ */
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Modifier;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import com.meterware.simplestub.generation.StubKind;
+
+/**
+ * Generates stub classes ahead of their first use, in parallel.
+ *
+ * @author Russell Gold
+ */
+class StubPreloader {
+
+    private static final String CLASS_FILE_SUFFIX = ".class";
+
+    private StubPreloader() {
+    }
+
+    /**
+     * Starts generating the stub classes for the specified classes on the common fork-join pool.
+     * @param kind the kind of stubs to generate
+     * @param classes the classes to stub
+     * @return a future which completes when all of the stub classes have been generated
+     */
+    static CompletableFuture<Void> preload(StubKind kind, Class<?>... classes) {
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (Class<?> aClass : classes)
+            futures.add(CompletableFuture.runAsync(() -> new StubLoader(aClass, kind).preload(), ForkJoinPool.commonPool()));
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]));
+    }
+
+    /**
+     * Starts generating the stub classes for the stubbable classes in the specified package.
+     * @param kind the kind of stubs to generate
+     * @param packageName the name of the package whose classes are to be stubbed
+     * @return a future which completes when all of the stub classes have been generated
+     */
+    static CompletableFuture<Void> preloadPackage(StubKind kind, String packageName) {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        return CompletableFuture.supplyAsync(() -> findStubbableClassesUnchecked(classLoader, packageName), ForkJoinPool.commonPool())
+                                .thenCompose(classes -> preload(kind, classes.toArray(new Class<?>[0])));
+    }
+
+    private static List<Class<?>> findStubbableClassesUnchecked(ClassLoader classLoader, String packageName) {
+        try {
+            return findStubbableClasses(classLoader, packageName);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the classes in the specified package for which stubs may be generated: abstract classes and interfaces
+     * which are neither annotations, enums, nor private. Subpackages are not included.
+     * @param classLoader the classloader whose classpath is to be searched
+     * @param packageName the name of the package to search
+     * @return the classes which can be stubbed
+     * @throws IOException if unable to read the classpath
+     */
+    static List<Class<?>> findStubbableClasses(ClassLoader classLoader, String packageName) throws IOException {
+        List<Class<?>> classes = new ArrayList<>();
+        for (String className : findClassNames(classLoader, packageName)) {
+            Class<?> aClass = loadClass(classLoader, className);
+            if (aClass != null && isStubbable(aClass))
+                classes.add(aClass);
+        }
+        return classes;
+    }
+
+    private static Set<String> findClassNames(ClassLoader classLoader, String packageName) throws IOException {
+        String packagePath = packageName.replace('.', '/');
+        Set<String> classNames = new TreeSet<>();
+        Enumeration<URL> packageUrls = classLoader.getResources(packagePath);
+        while (packageUrls.hasMoreElements())
+            addClassNames(classNames, packageUrls.nextElement(), packageName, packagePath);
+        return classNames;
+    }
+
+    private static void addClassNames(Set<String> classNames, URL packageUrl, String packageName, String packagePath) throws IOException {
+        if (packageUrl.getProtocol().equals("file"))
+            addClassNamesFromDirectory(classNames, toFile(packageUrl), packageName);
+        else if (packageUrl.getProtocol().equals("jar"))
+            addClassNamesFromJar(classNames, ((JarURLConnection) packageUrl.openConnection()).getJarFile(), packagePath);
+    }
+
+    private static File toFile(URL url) throws IOException {
+        try {
+            return new File(url.toURI());
+        } catch (URISyntaxException e) {
+            throw new IOException("Unable to read " + url, e);
+        }
+    }
+
+    private static void addClassNamesFromDirectory(Set<String> classNames, File directory, String packageName) {
+        String[] fileNames = directory.list();
+        if (fileNames == null) return;
+
+        for (String fileName : fileNames)
+            if (fileName.endsWith(CLASS_FILE_SUFFIX))
+                classNames.add(packageName + '.' + toSimpleName(fileName));
+    }
+
+    private static String toSimpleName(String fileName) {
+        return fileName.substring(0, fileName.length() - CLASS_FILE_SUFFIX.length());
+    }
+
+    private static void addClassNamesFromJar(Set<String> classNames, JarFile jarFile, String packagePath) {
+        Enumeration<JarEntry> entries = jarFile.entries();
+        while (entries.hasMoreElements()) {
+            String entryName = entries.nextElement().getName();
+            if (isClassInPackage(entryName, packagePath))
+                classNames.add(toSimpleName(entryName).replace('/', '.'));
+        }
+    }
+
+    private static boolean isClassInPackage(String entryName, String packagePath) {
+        return entryName.endsWith(CLASS_FILE_SUFFIX)
+                && entryName.startsWith(packagePath + '/')
+                && entryName.indexOf('/', packagePath.length() + 1) < 0;
+    }
+
+    private static Class<?> loadClass(ClassLoader classLoader, String className) {
+        try {
+            return Class.forName(className, false, classLoader);
+        } catch (ClassNotFoundException | LinkageError e) {
+            return null;
+        }
+    }
+
+    private static boolean isStubbable(Class<?> aClass) {
+        return Modifier.isAbstract(aClass.getModifiers())
+                && !Modifier.isPrivate(aClass.getModifiers())
+                && !aClass.isAnnotation()
+                && !aClass.isEnum()
+                && !aClass.isAnonymousClass()
+                && !aClass.isLocalClass()
+                && !aClass.isSynthetic();
+    }
+}
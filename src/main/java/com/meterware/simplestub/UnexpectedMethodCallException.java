@@ -1,6 +1,6 @@
 package com.meterware.simplestub;
 /*
- * Copyright (c) 2014-2015 Russell Gold
+ * Copyright (c) 2014-2026 Russell Gold
  *
  * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
  */
@@ -13,4 +13,8 @@ public class UnexpectedMethodCallException extends SimpleStubException {
     public UnexpectedMethodCallException(String message) {
         super(message);
     }
+
+    UnexpectedMethodCallException(String message, boolean writableStackTrace) {
+        super(message, writableStackTrace);
+    }
 }
@@ -0,0 +1,128 @@
+package com.meterware.simplestub.generation;
+/*
+ * Copyright (c) 2026 Russell Gold
+ *
+ * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
+ */
+
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * An index of the methods which a stub of each class must implement. The methods for each class are computed once,
+ * from the already computed results for its superclass and interfaces, and are shared by all kinds of stubs and by
+ * all subclasses.
+ *
+ * @author Russell Gold
+ */
+public class AbstractMethodIndex {
+
+    /** The non-default methods of the interfaces implemented by each class or its superclasses. */
+    private static final ClassValue<Map<MethodSpec, Method>> interfaceMethods = new ClassValue<Map<MethodSpec, Method>>() {
+        @Override
+        protected Map<MethodSpec, Method> computeValue(Class<?> aClass) {
+            return computeInterfaceMethods(aClass);
+        }
+    };
+
+    /** The most-derived declaration of each method declared by each class or its superclasses. */
+    private static final ClassValue<Map<MethodSpec, Method>> declaredMethods = new ClassValue<Map<MethodSpec, Method>>() {
+        @Override
+        protected Map<MethodSpec, Method> computeValue(Class<?> aClass) {
+            return computeDeclaredMethods(aClass);
+        }
+    };
+
+    /** The methods which a stub of each class must implement. */
+    private static final ClassValue<Collection<Method>> abstractMethods = new ClassValue<Collection<Method>>() {
+        @Override
+        protected Collection<Method> computeValue(Class<?> aClass) {
+            return computeAbstractMethods(aClass);
+        }
+    };
+
+    private AbstractMethodIndex() {
+    }
+
+    /**
+     * Returns the methods which a stub of the specified class or interface must implement.
+     * @param baseClass the class to be stubbed
+     * @return an unmodifiable collection of methods
+     */
+    public static Collection<Method> getAbstractMethods(Class<?> baseClass) {
+        return abstractMethods.get(baseClass);
+    }
+
+    private static Map<MethodSpec, Method> computeInterfaceMethods(Class<?> aClass) {
+        Map<MethodSpec, Method> methods = new HashMap<>();
+        for (Class<?> anInterface : aClass.getInterfaces())
+            for (Method method : anInterface.getMethods())
+                if (!method.isDefault())
+                    methods.putIfAbsent(new MethodSpec(method), method);
+
+        if (aClass.getSuperclass() != null)
+            interfaceMethods.get(aClass.getSuperclass()).forEach(methods::putIfAbsent);
+        return Collections.unmodifiableMap(methods);
+    }
+
+    private static Map<MethodSpec, Method> computeDeclaredMethods(Class<?> aClass) {
+        Map<MethodSpec, Method> methods = new HashMap<>();
+        if (aClass.getSuperclass() != null)
+            methods.putAll(declaredMethods.get(aClass.getSuperclass()));
+
+        for (Method method : aClass.getDeclaredMethods())
+            methods.put(new MethodSpec(method), method);
+        return Collections.unmodifiableMap(methods);
+    }
+
+    // A method declared in the class hierarchy overrides any interface method with the same signature.
+    private static Collection<Method> computeAbstractMethods(Class<?> aClass) {
+        Map<MethodSpec, Method> methods = new LinkedHashMap<>(interfaceMethods.get(aClass));
+        for (Map.Entry<MethodSpec, Method> entry : declaredMethods.get(aClass).entrySet())
+            if (Modifier.isAbstract(entry.getValue().getModifiers()))
+                methods.putIfAbsent(entry.getKey(), entry.getValue());
+            else
+                methods.remove(entry.getKey());
+        return Collections.unmodifiableCollection(methods.values());
+    }
+
+    /**
+     * Identifies a method by its name and descriptor, so that only methods with the same signature and return type
+     * are considered the same.
+     */
+    public static class MethodSpec {
+        private final String name;
+        private final String descriptor;
+        private final int hashCode;
+
+        MethodSpec(Method method) {
+            this(method.getName(), MethodType.methodType(method.getReturnType(), method.getParameterTypes()).toMethodDescriptorString());
+        }
+
+        public MethodSpec(String name, String descriptor) {
+            this.name = name;
+            this.descriptor = descriptor;
+            this.hashCode = 31 * name.hashCode() + descriptor.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof MethodSpec && equals((MethodSpec) other);
+        }
+
+        private boolean equals(MethodSpec other) {
+            return name.equals(other.name) && descriptor.equals(other.descriptor);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.meterware.simplestub.generation;
+/*
+ * Copyright (c) 2026 Russell Gold
+ *
+ * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
+ */
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Future;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * The values returned by nice stub methods whose return types are common JDK collection, optional, stream and future
+ * types. Each is obtained from a static factory method which takes no arguments. All but the streams and futures
+ * return shared immutable instances. Each call returns a new stream, since a stream may be used only once, and
+ * a new future, since a future may be changed by whoever receives it.
+ *
+ * @author Russell Gold
+ * @since 1.3.4
+ */
+public class EmptyValues {
+
+    private static final Map<String, Method> factories = new HashMap<>();
+
+    static {
+        addFactory(Iterable.class, Collections.class, "emptyList");
+        addFactory(Collection.class, Collections.class, "emptyList");
+        addFactory(List.class, Collections.class, "emptyList");
+        addFactory(Set.class, Collections.class, "emptySet");
+        addFactory(SortedSet.class, Collections.class, "emptySortedSet");
+        addFactory(NavigableSet.class, Collections.class, "emptyNavigableSet");
+        addFactory(Map.class, Collections.class, "emptyMap");
+        addFactory(SortedMap.class, Collections.class, "emptySortedMap");
+        addFactory(NavigableMap.class, Collections.class, "emptyNavigableMap");
+        addFactory(Iterator.class, Collections.class, "emptyIterator");
+        addFactory(ListIterator.class, Collections.class, "emptyListIterator");
+        addFactory(Enumeration.class, Collections.class, "emptyEnumeration");
+        addFactory(Optional.class, Optional.class, "empty");
+        addFactory(OptionalInt.class, OptionalInt.class, "empty");
+        addFactory(OptionalLong.class, OptionalLong.class, "empty");
+        addFactory(OptionalDouble.class, OptionalDouble.class, "empty");
+        addFactory(Stream.class, Stream.class, "empty");
+        addFactory(IntStream.class, IntStream.class, "empty");
+        addFactory(LongStream.class, LongStream.class, "empty");
+        addFactory(DoubleStream.class, DoubleStream.class, "empty");
+        addFactory(Future.class, EmptyValues.class, "completedFuture");
+        addFactory(CompletionStage.class, EmptyValues.class, "completedFuture");
+        addFactory(CompletableFuture.class, EmptyValues.class, "completedFuture");
+    }
+
+    private static void addFactory(Class<?> returnType, Class<?> factoryClass, String factoryMethodName) {
+        try {
+            factories.put(returnType.getName(), factoryClass.getMethod(factoryMethodName));
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("No factory method " + factoryClass.getName() + "." + factoryMethodName, e);
+        }
+    }
+
+    private EmptyValues() {
+    }
+
+    /**
+     * Returns the static method which a nice stub should call to obtain the value to return.
+     * @param returnTypeName the fully-qualified name of the return type of the stub method
+     * @return a public static method with no parameters, or null if the type has no special empty value
+     */
+    public static Method getFactory(String returnTypeName) {
+        return factories.get(returnTypeName);
+    }
+
+    /**
+     * Returns a new future, already completed with a null value.
+     */
+    public static <T> CompletableFuture<T> completedFuture() {
+        return CompletableFuture.completedFuture(null);
+    }
+}
@@ -1,11 +1,10 @@
 package com.meterware.simplestub.generation;
 /*
- * Copyright (c) 2015-2022 Russell Gold
+ * Copyright (c) 2015-2026 Russell Gold
  *
  * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
  */
-import java.util.ArrayList;
-import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * A base class for stub generation.
@@ -13,45 +12,38 @@ import java.util.List;
  * @author Russell Gold
  */
 public abstract class StubGenerator {
-    private static final String[] FACTORY_NAMES = {
-            "com.meterware.simplestub.generation.asm.AsmStubGeneratorFactory",
-            "com.meterware.simplestub.generation.javassist.JavassistStubGeneratorFactory"
-    };
-
-    private static StubGeneratorFactory factory;
+    private static final AtomicReference<StubGeneratorFactory> factory = new AtomicReference<>();
 
     public static StubGenerator create(Class<?> baseClass, StubKind kind) {
         return getStubGeneratorFactory().createStubGenerator(baseClass, kind);
     }
 
     public static StubGeneratorFactory getStubGeneratorFactory() {
-        if (factory == null)
-            factory = loadStubGeneratoryFactory();
-        return factory;
-    }
-
-    private static StubGeneratorFactory loadStubGeneratoryFactory() {
-        List<String> libraries = new ArrayList<>();
-
-        for (String factoryName : FACTORY_NAMES) {
-            StubGeneratorFactory candidate = loadCandidate(factoryName);
-            if (candidate != null && candidate.isAvailable())
-                return candidate;
-            else if (candidate != null)
-                libraries.add(candidate.getLibraryName());
+        StubGeneratorFactory selected = factory.get();
+        if (selected == null) {
+            factory.compareAndSet(null, StubGeneratorRegistry.selectDefault());
+            selected = factory.get();
         }
-
-        return new NullStubGeneratorFactory(libraries);
+        return selected;
     }
 
-    private static StubGeneratorFactory loadCandidate(String factoryName) {
-        try {
-            return (StubGeneratorFactory) Class.forName(factoryName).getConstructor().newInstance();
-        } catch (Exception e) {
-            return null;
-        }
+    /**
+     * Selects the factory used to create stub generators. Stub classes which have already been generated
+     * continue to be used.
+     * @param stubGeneratorFactory the factory to use, or null to select one as when the library is first used
+     * @since 1.3.4
+     */
+    public static void setStubGeneratorFactory(StubGeneratorFactory stubGeneratorFactory) {
+        factory.set(stubGeneratorFactory);
     }
 
     public abstract Class<?> generateStubClass(String stubClassName, Class<?> anchorClass);
 
+    /**
+     * Generates the bytecode for a stub class, without defining the class.
+     * @param stubClassName the fully-qualified name of the stub class
+     * @return the contents of a class file
+     */
+    public abstract byte[] generateStubClassBytes(String stubClassName);
+
 }
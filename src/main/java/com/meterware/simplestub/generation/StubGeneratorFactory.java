@@ -1,12 +1,14 @@
 package com.meterware.simplestub.generation;
 /*
- * Copyright (c) 2015-2016 Russell Gold
+ * Copyright (c) 2015-2026 Russell Gold
  *
  * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
  */
 
 /**
- * An interface for creating stub generators.
+ * An interface for creating stub generators. Implementations are found with {@link java.util.ServiceLoader},
+ * and so may be added by listing them in a <code>META-INF/services/com.meterware.simplestub.generation.StubGeneratorFactory</code>
+ * file on the class path.
  *
  * @author Russell Gold
  */
@@ -18,4 +20,22 @@ public interface StubGeneratorFactory {
     boolean isAvailable();
 
     String getLibraryName();
+
+    /**
+     * Returns the name by which this factory may be selected, either with {@link StubGeneratorRegistry#getFactory(String)}
+     * or by the <code>simplestub.generator</code> system property.
+     * @since 1.3.4
+     */
+    default String getName() {
+        return getClass().getName();
+    }
+
+    /**
+     * Returns the rank of this factory. When no factory is named, the available factory with the highest rank is used;
+     * a factory which supports more kinds of stubs, or generates them faster, should have a higher rank.
+     * @since 1.3.4
+     */
+    default int getRank() {
+        return 0;
+    }
 }
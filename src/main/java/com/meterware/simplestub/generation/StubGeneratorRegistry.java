@@ -0,0 +1,100 @@
+package com.meterware.simplestub.generation;
+/*
+ * Copyright (c) 2026 Russell Gold
+ *
+ * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
+ */
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+import com.meterware.simplestub.SimpleStubException;
+import com.meterware.simplestub.Stub;
+
+/**
+ * The stub generator factories found on the class path, ranked from the most to the least preferred. Factories
+ * are found once, with {@link ServiceLoader}; any whose classes cannot be loaded are ignored.
+ *
+ * @author Russell Gold
+ * @since 1.3.4
+ */
+public class StubGeneratorRegistry {
+
+    private StubGeneratorRegistry() {
+    }
+
+    // The factories are found when first needed; class initialization publishes them safely to all threads.
+    private static class Discovered {
+        private static final List<StubGeneratorFactory> factories = rank(load());
+    }
+
+    /**
+     * Returns all of the factories found, whether or not they are available, ranked from the most preferred.
+     * @return an unmodifiable list of factories
+     */
+    public static List<StubGeneratorFactory> getFactories() {
+        return Discovered.factories;
+    }
+
+    /**
+     * Returns the available factory with the specified name.
+     * @param name the name of the factory, as returned by {@link StubGeneratorFactory#getName()}
+     * @return a factory which may be used to generate stubs
+     * @throws SimpleStubException if no such factory is available
+     */
+    public static StubGeneratorFactory getFactory(String name) {
+        return getFactory(getFactories(), name);
+    }
+
+    /**
+     * Returns the factory to use when none has been selected: the one named by the {@link Stub#GENERATOR_PROPERTY}
+     * system property if it is set, and the available factory with the highest rank otherwise.
+     */
+    static StubGeneratorFactory selectDefault() {
+        return select(getFactories(), System.getProperty(Stub.GENERATOR_PROPERTY));
+    }
+
+    static StubGeneratorFactory select(List<StubGeneratorFactory> factories, String name) {
+        if (name != null) return getFactory(factories, name);
+
+        List<String> libraries = new ArrayList<>();
+        for (StubGeneratorFactory candidate : factories)
+            if (candidate.isAvailable())
+                return candidate;
+            else
+                libraries.add(candidate.getLibraryName());
+
+        return new NullStubGeneratorFactory(libraries);
+    }
+
+    private static StubGeneratorFactory getFactory(List<StubGeneratorFactory> factories, String name) {
+        for (StubGeneratorFactory candidate : factories)
+            if (candidate.getName().equals(name) && candidate.isAvailable())
+                return candidate;
+
+        throw new SimpleStubException("No stub generator named '%s' is available", name);
+    }
+
+    static List<StubGeneratorFactory> rank(List<StubGeneratorFactory> factories) {
+        List<StubGeneratorFactory> ranked = new ArrayList<>(factories);
+        ranked.sort(Comparator.comparingInt(StubGeneratorFactory::getRank).reversed());
+        return Collections.unmodifiableList(ranked);
+    }
+
+    private static List<StubGeneratorFactory> load() {
+        List<StubGeneratorFactory> factories = new ArrayList<>();
+        Iterator<StubGeneratorFactory> providers = ServiceLoader.load(StubGeneratorFactory.class, StubGeneratorFactory.class.getClassLoader()).iterator();
+        while (true) {
+            try {
+                if (!providers.hasNext()) return factories;
+                factories.add(providers.next());
+            } catch (ServiceConfigurationError | LinkageError ignore) {
+                // the factory is not supported by this JDK, or depends on a library which is not present
+            }
+        }
+    }
+}
@@ -1,6 +1,6 @@
 package com.meterware.simplestub.generation;
 /*
- * Copyright (c) 2016-2018 Russell Gold
+ * Copyright (c) 2016-2026 Russell Gold
  *
  * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
  */
@@ -26,11 +26,53 @@ public enum StubKind {
         public String getStubClassSuffix() {
             return SIMPLESTUB_STRICT_SUFFIX;
         }
+    }, RECORDING {
+        @Override
+        public String getStubClassSuffix() {
+            return SIMPLESTUB_RECORDING_SUFFIX;
+        }
+    }, COUNTING {
+        @Override
+        public String getStubClassSuffix() {
+            return SIMPLESTUB_COUNTING_SUFFIX;
+        }
+    }, NICE_COUNTING {
+        @Override
+        public String getStubClassSuffix() {
+            return SIMPLESTUB_NICE_COUNTING_SUFFIX;
+        }
+    }, BUDGETED {
+        @Override
+        public String getStubClassSuffix() {
+            return SIMPLESTUB_BUDGETED_SUFFIX;
+        }
+    }, LATENCY {
+        @Override
+        public String getStubClassSuffix() {
+            return SIMPLESTUB_LATENCY_SUFFIX;
+        }
+    }, NICE_LATENCY {
+        @Override
+        public String getStubClassSuffix() {
+            return SIMPLESTUB_NICE_LATENCY_SUFFIX;
+        }
+    }, CONFIGURABLE {
+        @Override
+        public String getStubClassSuffix() {
+            return SIMPLESTUB_CONFIGURABLE_SUFFIX;
+        }
     };
 
     private final static String SIMPLESTUB_SUFFIX = "$$_com_meterware_SimpleStub";
     private final static String SIMPLESTUB_NICE_SUFFIX = "$$_com_meterware_SimpleStub_Nice";
     private final static String SIMPLESTUB_STRICT_SUFFIX = "$$_com_meterware_SimpleStub_Strict";
+    private final static String SIMPLESTUB_RECORDING_SUFFIX = "$$_com_meterware_SimpleStub_Recording";
+    private final static String SIMPLESTUB_COUNTING_SUFFIX = "$$_com_meterware_SimpleStub_Counting";
+    private final static String SIMPLESTUB_NICE_COUNTING_SUFFIX = "$$_com_meterware_SimpleStub_Nice_Counting";
+    private final static String SIMPLESTUB_BUDGETED_SUFFIX = "$$_com_meterware_SimpleStub_Budgeted";
+    private final static String SIMPLESTUB_LATENCY_SUFFIX = "$$_com_meterware_SimpleStub_Latency";
+    private final static String SIMPLESTUB_NICE_LATENCY_SUFFIX = "$$_com_meterware_SimpleStub_Nice_Latency";
+    private final static String SIMPLESTUB_CONFIGURABLE_SUFFIX = "$$_com_meterware_SimpleStub_Configurable";
 
     abstract public String getStubClassSuffix();
 
@@ -1,22 +1,17 @@
 package com.meterware.simplestub.generation.asm;
 /*
- * Copyright (c) 2015-2022 Russell Gold
+ * Copyright (c) 2015-2026 Russell Gold
  *
  * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
  */
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.Method;
-import java.lang.reflect.Modifier;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.EnumMap;
-import java.util.HashSet;
-import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 import com.meterware.simplestub.ClassUtils;
+import com.meterware.simplestub.ConfigurableStub;
+import com.meterware.simplestub.InvocationCounters;
 import com.meterware.simplestub.SimpleStubException;
 import com.meterware.simplestub.generation.StubGenerator;
 import com.meterware.simplestub.generation.StubKind;
@@ -38,103 +33,116 @@ class AsmStubGenerator extends StubGenerator {
         methodGenerators.put(StubKind.DEFAULT, new DefaultMethodGenerator());
         methodGenerators.put(StubKind.NICE, new NiceMethodGenerator());
         methodGenerators.put(StubKind.STRICT, new StrictMethodGenerator());
+        methodGenerators.put(StubKind.RECORDING, new RecordingMethodGenerator());
+        methodGenerators.put(StubKind.COUNTING, new DefaultMethodGenerator(OwnedObject.COUNTERS));
+        methodGenerators.put(StubKind.NICE_COUNTING, new NiceMethodGenerator(OwnedObject.COUNTERS));
+        methodGenerators.put(StubKind.BUDGETED, new DefaultMethodGenerator(OwnedObject.BUDGET));
+        methodGenerators.put(StubKind.LATENCY, new DefaultMethodGenerator(OwnedObject.LATENCY));
+        methodGenerators.put(StubKind.NICE_LATENCY, new NiceMethodGenerator(OwnedObject.LATENCY));
+        methodGenerators.put(StubKind.CONFIGURABLE, new ConfigurableMethodGenerator());
     }
 
     private final Class<?> baseClass;
     private final MethodGenerator methodGenerator;
+    private final OwnedObject ownedObject;
+    private final String addedInterfaceName;
 
     AsmStubGenerator(Class<?> baseClass, StubKind kind) {
         this.baseClass = baseClass;
         methodGenerator = methodGenerators.get(kind);
+        ownedObject = getOwnedObject(kind);
+        addedInterfaceName = getAddedInterfaceName(kind, ownedObject);
+    }
+
+    private static OwnedObject getOwnedObject(StubKind kind) {
+        switch (kind) {
+            case RECORDING:
+                return OwnedObject.JOURNAL;
+            case COUNTING:
+            case NICE_COUNTING:
+                return OwnedObject.COUNTERS;
+            case BUDGETED:
+                return OwnedObject.BUDGET;
+            case LATENCY:
+            case NICE_LATENCY:
+                return OwnedObject.LATENCY;
+            default:
+                return null;
+        }
     }
 
-    @Override
-    public Class<?> generateStubClass(String stubClassName, Class<?> anchorClass) {
-        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
-        defineClass(stubClassName, cw);
-
-        for (Method method : getAbstractMethods())
-            methodGenerator.addMethod(cw, method);
-
-        cw.visitEnd();
-        return defineClass(anchorClass, stubClassName, cw.toByteArray());
-    }
-
-    private void defineClass(String stubClassName, ClassWriter cw) {
-        if (baseClass.isInterface())
-            defineClass(stubClassName, cw, Object.class, baseClass);
+    private static String getAddedInterfaceName(StubKind kind, OwnedObject ownedObject) {
+        if (kind == StubKind.CONFIGURABLE)
+            return Type.getInternalName(ConfigurableStub.class);
         else
-            defineClass(stubClassName, cw, baseClass);
-    }
-
-    private void defineClass(String stubClassName, ClassWriter cw, Class<?> baseClass, Class<?>... interfaces) {
-        cw.visit(Opcodes.V1_6, Opcodes.ACC_PUBLIC, toInternalName(stubClassName), null, toInternalName(baseClass), toInternalNames(interfaces));
-
-        for (Constructor<?> constructor : baseClass.getDeclaredConstructors())
-            addConstructor(cw, constructor);
+            return ownedObject == null ? null : ownedObject.getInterfaceName();
     }
 
-    private void addConstructor(ClassWriter cw, Constructor<?> constructor) {
-        org.objectweb.asm.commons.Method m = org.objectweb.asm.commons.Method.getMethod(constructor);
-        GeneratorAdapter mg = new GeneratorAdapter(Opcodes.ACC_PUBLIC, m, null, null, cw);
-        mg.loadThis();
-        mg.loadArgs();
-        mg.invokeConstructor(Type.getType(constructor.getDeclaringClass()), m);
-        mg.returnValue();
-        mg.endMethod();
+    @Override
+    public Class<?> generateStubClass(String stubClassName, Class<?> anchorClass) {
+        return defineClass(anchorClass, stubClassName, generateStubClassBytes(stubClassName));
     }
 
-    private Set<Method> getAbstractMethods() {
-        Set<MethodSpec> abstractMethods = new HashSet<>();
+    @Override
+    public byte[] generateStubClassBytes(String stubClassName) {
+        StubClassTemplate template = getTemplate();
+        Type stubType = Type.getObjectType(toInternalName(stubClassName));
+        ClassWriter cw = new ClassWriter(0);  // the method generators compute their own maximum stack and locals
+        cw.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, stubType.getInternalName(), null, template.getSuperName(), getInterfaces(template));
 
-        for (Class<?> aClass = baseClass; aClass != null; aClass = aClass.getSuperclass())
-            for (Class<?> anInterface : aClass.getInterfaces())
-                addInterfaceMethods(abstractMethods, anInterface);
+        String ownedObjectArgument = getOwnedObjectArgument(template);
+        for (String constructorDescriptor : template.getConstructorDescriptors())
+            addConstructor(cw, stubType, template.getSuperName(), constructorDescriptor, ownedObjectArgument);
 
-        for (Class<?> aClass : getClassHierarchy(baseClass))
-            updateAbstractMethods(abstractMethods, aClass);
+        if (ownedObject != null)
+            ownedObject.addField(cw, stubType);
 
-        return toMethodSet(abstractMethods);
-    }
+        int methodIndex = 0;
+        for (StubMethod method : template.getMethods())
+            methodGenerator.addMethod(cw, method, methodIndex++);
 
-    private Set<Method> toMethodSet(Set<MethodSpec> methodSpecs) {
-        Set<Method> methods = new HashSet<>();
-        for (MethodSpec methodSpec : methodSpecs)
-            methods.add(methodSpec.getMethod());
-        return methods;
+        cw.visitEnd();
+        return cw.toByteArray();
     }
 
-    private void addInterfaceMethods(Set<MethodSpec> abstractMethods, Class<?> anInterface) {
-        for (Method method : anInterface.getMethods())
-            if (!method.isDefault())
-                abstractMethods.add(new MethodSpec(method));
+    // Reading the class files avoids loading the classes in method signatures; those generated at runtime have none.
+    private StubClassTemplate getTemplate() {
+        StubClassTemplate template = ClassFileHierarchy.describe(baseClass.getClassLoader(), baseClass.getName());
+        return template != null ? template : StubClassTemplate.reflect(baseClass);
     }
 
-    private Class<?>[] getClassHierarchy(Class<?> baseClass) {
-        List<Class<?>> hierarchy = new ArrayList<>();
-        for (Class<?> aClass = baseClass; aClass != null; aClass = aClass.getSuperclass())
-            hierarchy.add(0, aClass);
-        return hierarchy.toArray(new Class[0]);
-    }
+    private String[] getInterfaces(StubClassTemplate template) {
+        if (addedInterfaceName == null) return template.getInterfaces();
 
-    private void updateAbstractMethods(Set<MethodSpec> abstractMethods, Class<?> aClass) {
-        for (Method method : aClass.getDeclaredMethods())
-            if (Modifier.isAbstract(method.getModifiers()))
-                abstractMethods.add(new MethodSpec(method));
-            else
-                abstractMethods.remove(new MethodSpec(method));
+        String[] interfaces = Arrays.copyOf(template.getInterfaces(), template.getInterfaces().length + 1);
+        interfaces[interfaces.length - 1] = addedInterfaceName;
+        return interfaces;
     }
 
+    // Objects which track calls by index are created with the ids of the methods, in the order they are generated.
+    private String getOwnedObjectArgument(StubClassTemplate template) {
+        if (ownedObject == null || !ownedObject.isCreatedWithMethodIds()) return null;
 
-    private static String[] toInternalNames( Class<?>[] classes ) {
-        String[] result = new String[classes.length];
-        for (int i = 0; i < classes.length; i++)
-            result[i] = toInternalName(classes[i]);
-        return result;
+        StringBuilder sb = new StringBuilder();
+        for (StubMethod method : template.getMethods()) {
+            if (sb.length() > 0) sb.append(InvocationCounters.METHOD_ID_SEPARATOR);
+            sb.append(method.getName()).append(method.getDescriptor());
+        }
+        return sb.toString();
     }
 
-    private static String toInternalName( Class<?> aClass ) {
-        return toInternalName(aClass.getName());
+    private void addConstructor(ClassWriter cw, Type stubType, String superName, String constructorDescriptor, String ownedObjectArgument) {
+        org.objectweb.asm.commons.Method m = new org.objectweb.asm.commons.Method("<init>", constructorDescriptor);
+        GeneratorAdapter mg = new GeneratorAdapter(Opcodes.ACC_PUBLIC, m, null, null, cw);
+        int initializationStack = ownedObject == null ? 0 : ownedObject.initialize(mg, stubType, ownedObjectArgument);
+        mg.loadThis();
+        mg.loadArgs();
+        mg.invokeConstructor(Type.getObjectType(superName), m);
+        mg.returnValue();
+
+        int argumentsSize = Type.getArgumentsAndReturnSizes(constructorDescriptor) >> 2;
+        mg.visitMaxs(Math.max(argumentsSize, initializationStack), argumentsSize);
+        mg.visitEnd();
     }
 
     private static String toInternalName( String stubClassName ) {
@@ -152,32 +160,4 @@ class AsmStubGenerator extends StubGenerator {
     private String getStubName() {
         return baseClass.getName();
     }
-
-    static class MethodSpec {
-        private final Method method;
-
-        MethodSpec(Method method) {
-            this.method = method;
-        }
-
-        public Method getMethod() {
-            return method;
-        }
-
-        @Override
-        public boolean equals(Object other) {
-            return other instanceof MethodSpec && equals((MethodSpec) other);
-        }
-
-        private boolean equals(MethodSpec other) {
-            return method.getName().equals(other.method.getName()) &&
-                    Arrays.equals(method.getParameterTypes(), other.method.getParameterTypes());
-        }
-
-        @Override
-        public int hashCode() {
-            return method.getName().hashCode();
-        }
-    }
-
 }
@@ -1,6 +1,6 @@
 package com.meterware.simplestub.generation.asm;
 /*
- * Copyright (c) 2015-2016 Russell Gold
+ * Copyright (c) 2015-2026 Russell Gold
  *
  * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
  */
@@ -45,4 +45,14 @@ public class AsmStubGeneratorFactory implements StubGeneratorFactory {
     public String getLibraryName() {
         return "asm and asm-commons";
     }
+
+    @Override
+    public String getName() {
+        return "asm";
+    }
+
+    @Override
+    public int getRank() {
+        return 200;
+    }
 }
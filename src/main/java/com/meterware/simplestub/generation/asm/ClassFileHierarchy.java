@@ -0,0 +1,339 @@
+package com.meterware.simplestub.generation.asm;
+/*
+ * Copyright (c) 2026 Russell Gold
+ *
+ * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
+ */
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+import com.meterware.simplestub.SimpleStubException;
+import com.meterware.simplestub.generation.AbstractMethodIndex.MethodSpec;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+/**
+ * Describes classes to be stubbed by reading the class files of the classes and their supertypes, rather than by
+ * reflection. This avoids loading the classes named in method signatures, and permits describing classes which have
+ * not been loaded at all. Supertypes whose class files cannot be read, such as those too new for the ASM library,
+ * are described by reflection instead.
+ *
+ * The descriptions are cached per classloader, and shared by all kinds of stubs and by all subclasses.
+ *
+ * @author Russell Gold
+ */
+class ClassFileHierarchy {
+
+    private static final int PARSING_OPTIONS = ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES;
+    private static final String OBJECT_CLASS_NAME = "java/lang/Object";
+    private static final String CONSTRUCTOR_NAME = "<init>";
+    private static final String STATIC_INITIALIZER_NAME = "<clinit>";
+    private static final String[] NO_INTERFACES = new String[0];
+
+    private static final Map<ClassLoader, ClassFileHierarchy> hierarchies = new WeakHashMap<>();
+
+    private final WeakReference<ClassLoader> classLoaderReference;
+    private final ConcurrentMap<String, ClassFile> classFiles = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Map<MethodSpec, ClassFileMethod>> inheritedInterfaceMethods = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Map<MethodSpec, ClassFileMethod>> interfaceMethods = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Map<MethodSpec, ClassFileMethod>> declaredMethods = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Collection<ClassFileMethod>> abstractMethods = new ConcurrentHashMap<>();
+
+    private ClassFileHierarchy(ClassLoader classLoader) {
+        classLoaderReference = new WeakReference<>(classLoader);
+    }
+
+    /**
+     * Creates a template for stubbing the named class, as found by the specified classloader.
+     * @param classLoader the classloader used to find the class files
+     * @param className the fully-qualified name of the class to stub
+     * @return a new template, or null if the class file of the named class cannot be read
+     */
+    static StubClassTemplate describe(ClassLoader classLoader, String className) {
+        return getHierarchy(classLoader).describe(className.replace('.', '/'));
+    }
+
+    private static ClassFileHierarchy getHierarchy(ClassLoader classLoader) {
+        ClassLoader loader = classLoader != null ? classLoader : ClassLoader.getSystemClassLoader();
+        synchronized (hierarchies) {
+            return hierarchies.computeIfAbsent(loader, ClassFileHierarchy::new);
+        }
+    }
+
+    private StubClassTemplate describe(String name) {
+        ClassFile classFile = getClassFile(name);
+        if (classFile.isReflected()) return null;
+
+        String superName = classFile.isInterface() ? OBJECT_CLASS_NAME : name;
+        String[] interfaces = classFile.isInterface() ? new String[] {name} : NO_INTERFACES;
+
+        return new StubClassTemplate(superName, interfaces,
+                                     getClassFile(superName).getConstructorDescriptors(),
+                                     new ArrayList<StubMethod>(getAbstractMethods(classFile)));
+    }
+
+    private ClassLoader getClassLoader() {
+        return classLoaderReference.get();
+    }
+
+    private ClassFile getClassFile(String name) {
+        ClassFile classFile = classFiles.get(name);
+        if (classFile == null) {
+            classFile = readClassFile(name);
+            ClassFile existing = classFiles.putIfAbsent(name, classFile);
+            if (existing != null) classFile = existing;
+        }
+        return classFile;
+    }
+
+    private ClassFile readClassFile(String name) {
+        try (InputStream inputStream = getClassLoader().getResourceAsStream(name + ".class")) {
+            if (inputStream != null) {
+                ClassFileReader reader = new ClassFileReader();
+                new ClassReader(inputStream).accept(reader, PARSING_OPTIONS);
+                return reader.getClassFile();
+            }
+        } catch (IOException | IllegalArgumentException ignored) {  // an unreadable or unsupported class file
+        }
+        return reflect(name);
+    }
+
+    private ClassFile reflect(String name) {
+        Class<?> aClass = loadClass(name);
+        List<ClassFileMethod> methods = new ArrayList<>();
+        for (Constructor<?> constructor : aClass.getDeclaredConstructors())
+            methods.add(new ClassFileMethod(constructor.getModifiers(), name, CONSTRUCTOR_NAME, Type.getConstructorDescriptor(constructor)));
+        for (Method method : aClass.getDeclaredMethods())
+            methods.add(new ClassFileMethod(method.getModifiers(), name, method.getName(), Type.getMethodDescriptor(method)));
+
+        return new ClassFile(aClass.getModifiers(), name, getInternalName(aClass.getSuperclass()), getInternalNames(aClass.getInterfaces()), methods)
+                    .setReflected();
+    }
+
+    private Class<?> loadClass(String name) {
+        try {
+            return Class.forName(name.replace('/', '.'), false, getClassLoader());
+        } catch (ClassNotFoundException e) {
+            throw new SimpleStubException("Unable to find class %s", e, name.replace('/', '.'));
+        }
+    }
+
+    private static String getInternalName(Class<?> aClass) {
+        return aClass == null ? null : Type.getInternalName(aClass);
+    }
+
+    private static String[] getInternalNames(Class<?>[] classes) {
+        String[] names = new String[classes.length];
+        for (int i = 0; i < classes.length; i++)
+            names[i] = Type.getInternalName(classes[i]);
+        return names;
+    }
+
+    private boolean isInterface(String name) {
+        return getClassFile(name).isInterface();
+    }
+
+    // A method declared in the class hierarchy overrides any interface method with the same signature.
+    private Collection<ClassFileMethod> getAbstractMethods(ClassFile classFile) {
+        return memoize(abstractMethods, classFile, aClass -> {
+            Map<MethodSpec, ClassFileMethod> methods = new LinkedHashMap<>(getInterfaceMethods(aClass));
+            for (Map.Entry<MethodSpec, ClassFileMethod> entry : getDeclaredMethods(aClass).entrySet())
+                if (entry.getValue().isAbstract())
+                    methods.putIfAbsent(entry.getKey(), entry.getValue());
+                else
+                    methods.remove(entry.getKey());
+            return Collections.unmodifiableCollection(methods.values());
+        });
+    }
+
+    // The abstract methods of the interfaces implemented by a class or its superclasses.
+    private Map<MethodSpec, ClassFileMethod> getInterfaceMethods(ClassFile classFile) {
+        return memoize(interfaceMethods, classFile, aClass -> {
+            Map<MethodSpec, ClassFileMethod> methods = new HashMap<>();
+            for (String anInterface : aClass.getInterfaces())
+                getInheritedInterfaceMethods(getClassFile(anInterface)).forEach(methods::putIfAbsent);
+            if (aClass.getSuperName() != null)
+                getInterfaceMethods(getClassFile(aClass.getSuperName())).forEach(methods::putIfAbsent);
+            return methods;
+        });
+    }
+
+    // The abstract methods of an interface and of its superinterfaces, unless overridden by a default method.
+    private Map<MethodSpec, ClassFileMethod> getInheritedInterfaceMethods(ClassFile classFile) {
+        return memoize(inheritedInterfaceMethods, classFile, anInterface -> {
+            Map<MethodSpec, ClassFileMethod> declared = new HashMap<>();
+            for (ClassFileMethod method : anInterface.getMethods())
+                if (!method.isStatic()) declared.put(method.getSpec(), method);
+
+            Map<MethodSpec, ClassFileMethod> methods = new HashMap<>();
+            declared.forEach((spec, method) -> { if (method.isAbstract()) methods.put(spec, method); });
+            for (String superInterface : anInterface.getInterfaces())
+                getInheritedInterfaceMethods(getClassFile(superInterface)).forEach((spec, method) -> {
+                    if (!declared.containsKey(spec)) methods.putIfAbsent(spec, method);
+                });
+            return methods;
+        });
+    }
+
+    // The most-derived declaration of each method declared by a class or its superclasses.
+    private Map<MethodSpec, ClassFileMethod> getDeclaredMethods(ClassFile classFile) {
+        return memoize(declaredMethods, classFile, aClass -> {
+            Map<MethodSpec, ClassFileMethod> methods = new HashMap<>();
+            if (aClass.getSuperName() != null)
+                methods.putAll(getDeclaredMethods(getClassFile(aClass.getSuperName())));
+            for (ClassFileMethod method : aClass.getMethods())
+                methods.put(method.getSpec(), method);
+            return methods;
+        });
+    }
+
+    // Computations may recursively memoize the results for supertypes, which computeIfAbsent does not permit.
+    private <T> T memoize(ConcurrentMap<String, T> cache, ClassFile classFile, Function<ClassFile, T> computation) {
+        T value = cache.get(classFile.getName());
+        if (value == null) {
+            value = computation.apply(classFile);
+            T existing = cache.putIfAbsent(classFile.getName(), value);
+            if (existing != null) value = existing;
+        }
+        return value;
+    }
+
+    /**
+     * The parts of a class file needed to generate a stub. Interfaces are treated as having no superclass,
+     * as they are by reflection. Constructors and static initializers are not included in the methods.
+     */
+    private static class ClassFile {
+        private final int access;
+        private final String name;
+        private final String superName;
+        private final String[] interfaces;
+        private final List<ClassFileMethod> methods = new ArrayList<>();
+        private final List<String> constructorDescriptors = new ArrayList<>();
+        private boolean reflected;
+
+        ClassFile(int access, String name, String superName, String[] interfaces, List<ClassFileMethod> methods) {
+            this.access = access;
+            this.name = name;
+            this.superName = isInterface() ? null : superName;
+            this.interfaces = interfaces == null ? NO_INTERFACES : interfaces;
+            for (ClassFileMethod method : methods)
+                if (method.getName().equals(CONSTRUCTOR_NAME))
+                    constructorDescriptors.add(method.getDescriptor());
+                else if (!method.getName().equals(STATIC_INITIALIZER_NAME))
+                    this.methods.add(method);
+        }
+
+        ClassFile setReflected() {
+            reflected = true;
+            return this;
+        }
+
+        /**
+         * Returns true if this description was obtained by reflection rather than from the class file.
+         */
+        boolean isReflected() {
+            return reflected;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        boolean isInterface() {
+            return (access & Opcodes.ACC_INTERFACE) != 0;
+        }
+
+        String getSuperName() {
+            return superName;
+        }
+
+        String[] getInterfaces() {
+            return interfaces;
+        }
+
+        List<ClassFileMethod> getMethods() {
+            return methods;
+        }
+
+        List<String> getConstructorDescriptors() {
+            return constructorDescriptors;
+        }
+    }
+
+    private class ClassFileMethod extends StubMethod {
+        private final int access;
+        private final MethodSpec spec;
+
+        ClassFileMethod(int access, String declaringClassName, String name, String descriptor) {
+            super(declaringClassName.replace('/', '.'), name, descriptor);
+            this.access = access;
+            this.spec = new MethodSpec(name, descriptor);
+        }
+
+        MethodSpec getSpec() {
+            return spec;
+        }
+
+        boolean isAbstract() {
+            return Modifier.isAbstract(access);
+        }
+
+        boolean isStatic() {
+            return Modifier.isStatic(access);
+        }
+
+        @Override
+        boolean isReturnTypeInterface() {
+            return getReturnType().getSort() == Type.OBJECT && isInterface(getReturnType().getInternalName());
+        }
+    }
+
+    private class ClassFileReader extends ClassVisitor {
+        private int access;
+        private String name;
+        private String superName;
+        private String[] interfaces;
+        private final List<ClassFileMethod> methods = new ArrayList<>();
+
+        ClassFileReader() {
+            super(Opcodes.ASM7);
+        }
+
+        @Override
+        public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+            this.access = access;
+            this.name = name;
+            this.superName = superName;
+            this.interfaces = interfaces;
+        }
+
+        @Override
+        public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+            methods.add(new ClassFileMethod(access, this.name, name, descriptor));
+            return null;
+        }
+
+        ClassFile getClassFile() {
+            return new ClassFile(access, name, superName, interfaces, methods);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.meterware.simplestub.generation.asm;
+/*
+ * Copyright (c) 2026 Russell Gold
+ *
+ * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
+ */
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.commons.GeneratorAdapter;
+import org.objectweb.asm.commons.Method;
+
+/**
+ * Generates methods which pass the stub and their arguments to an <code>invokedynamic</code> call site, whose
+ * target may be changed at runtime. The call site takes the stub as an object, so that its type can be found
+ * by reflection on the stub class's methods.
+ *
+ * @author Russell Gold
+ */
+class ConfigurableMethodGenerator implements MethodGenerator {
+
+    private static final Handle CONFIGURABLE_METHOD_BOOTSTRAP = new Handle(Opcodes.H_INVOKESTATIC,
+            "com/meterware/simplestub/ConfigurableStubBootstraps", "configurableMethod",
+            "(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/invoke/MethodType;)Ljava/lang/invoke/CallSite;", false);
+
+    @Override
+    public void addMethod(ClassWriter cw, StubMethod method, int methodIndex) {
+        Method m = new Method(method.getName(), method.getDescriptor());
+        GeneratorAdapter mg = new GeneratorAdapter(Opcodes.ACC_PUBLIC, m, null, null, cw);
+        mg.loadThis();
+        mg.loadArgs();
+        mg.invokeDynamic(method.getName(), "(Ljava/lang/Object;" + method.getDescriptor().substring(1), CONFIGURABLE_METHOD_BOOTSTRAP);
+        mg.returnValue();
+
+        int argumentsSize = method.getArgumentsSize();
+        mg.visitMaxs(Math.max(argumentsSize, method.getReturnType().getSize()), argumentsSize);
+        mg.visitEnd();
+    }
+}
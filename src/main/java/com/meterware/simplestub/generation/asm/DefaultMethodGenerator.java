@@ -1,60 +1,88 @@
 package com.meterware.simplestub.generation.asm;
 /*
- * Copyright (c) 2015-2016 Russell Gold
+ * Copyright (c) 2015-2026 Russell Gold
  *
  * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
  */
 import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
 import org.objectweb.asm.commons.GeneratorAdapter;
 import org.objectweb.asm.commons.Method;
 
-import java.io.Serializable;
-import java.util.Arrays;
-import java.util.List;
-
 /**
  * @author Russell Gold
  */
 class DefaultMethodGenerator implements MethodGenerator {
-    private static final List<? extends Class<?>> INTEGER_TYPES = createIntegerTypesList();
 
-    @SuppressWarnings("unchecked")
-    private static List<? extends Class<? extends Serializable>> createIntegerTypesList() {
-        return Arrays.asList(boolean.class, byte.class, char.class, short.class, int.class);
+    private final OwnedObject callTracker;
+
+    DefaultMethodGenerator() {
+        this(null);
+    }
+
+    /**
+     * Creates a generator.
+     * @param callTracker the object owned by the stub to notify of each call, or null if there is none
+     */
+    DefaultMethodGenerator(OwnedObject callTracker) {
+        this.callTracker = callTracker;
     }
 
     @Override
-    public void addMethod(ClassWriter cw, java.lang.reflect.Method method) {
-        Method m = Method.getMethod(method);
+    public void addMethod(ClassWriter cw, StubMethod method, int methodIndex) {
+        Method m = new Method(method.getName(), method.getDescriptor());
         GeneratorAdapter mg = new GeneratorAdapter(Opcodes.ACC_PUBLIC, m, null, null, cw);
-        pushReturnValue(mg, method.getReturnType());
+        int maxStack = Math.max(addPrologue(mg, method, methodIndex), pushReturnValue(mg, method));
         mg.returnValue();
-        mg.endMethod();
+        mg.visitMaxs(maxStack, method.getArgumentsSize());
+        mg.visitEnd();
+    }
+
+    /**
+     * Adds any instructions to run before the return value is pushed. They must leave the stack empty.
+     * @return the maximum stack depth needed
+     */
+    protected int addPrologue(GeneratorAdapter mg, StubMethod method, int methodIndex) {
+        return callTracker == null ? 0 : callTracker.notifyCall(mg, methodIndex);
+    }
+
+    // Returns the maximum stack depth needed
+    private int pushReturnValue(GeneratorAdapter mg, StubMethod method) {
+        if (method.getReturnType().getSort() == Type.VOID)
+            return 0;
+
+        if (!isPrimitive(method.getReturnType()))
+            return pushObjectReturnType(mg, method);
+
+        mg.visitInsn(getPrimitiveReturnValueConstant(method.getReturnType()));
+        return method.getReturnType().getSize();
     }
 
-    private void pushReturnValue(GeneratorAdapter mg, Class<?> returnType) {
-        if (returnType.isPrimitive())
-            mg.visitInsn(getPrimitiveReturnValueConstant(returnType));
-        else
-            pushObjectReturnType(mg, returnType);
+    boolean isPrimitive(Type type) {
+        return type.getSort() <= Type.DOUBLE;
     }
 
-    private int getPrimitiveReturnValueConstant(Class<?> returnType) {
-        if (returnType.equals(long.class))
-            return Opcodes.LCONST_0;
-        else if (returnType.equals(float.class))
-            return Opcodes.FCONST_0;
-        else if (returnType.equals(double.class))
-            return Opcodes.DCONST_0;
-        else if (INTEGER_TYPES.contains(returnType))
-            return Opcodes.ICONST_0;
-        else
-            return Opcodes.ACONST_NULL;
+    private int getPrimitiveReturnValueConstant(Type returnType) {
+        switch (returnType.getSort()) {
+            case Type.LONG:
+                return Opcodes.LCONST_0;
+            case Type.FLOAT:
+                return Opcodes.FCONST_0;
+            case Type.DOUBLE:
+                return Opcodes.DCONST_0;
+            default:
+                return Opcodes.ICONST_0;
+        }
     }
 
-    protected void pushObjectReturnType(GeneratorAdapter mg, Class<?> returnType) {
+    /**
+     * Pushes the value to be returned by a method which returns an object.
+     * @return the maximum stack depth needed
+     */
+    protected int pushObjectReturnType(GeneratorAdapter mg, StubMethod method) {
         mg.visitInsn(Opcodes.ACONST_NULL);
+        return 1;
     }
 
 }
@@ -1,18 +1,25 @@
 package com.meterware.simplestub.generation.asm;
 /*
- * Copyright (c) 2015 Russell Gold
+ * Copyright (c) 2015-2026 Russell Gold
  *
  * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
  */
 import org.objectweb.asm.ClassWriter;
 
 /**
- * Classes to generate appropriate methods, based on stub type.
+ * Classes to generate appropriate methods, based on stub type. The generated methods contain no branches,
+ * so they need no stack map frames; each generator specifies the maximum stack and locals itself.
  *
  * @author Russell Gold
  */
 interface MethodGenerator {
 
-    void addMethod(ClassWriter cw, java.lang.reflect.Method method);
+    /**
+     * Adds an implementation of the specified method to the stub class.
+     * @param cw the writer of the stub class
+     * @param method the method to implement
+     * @param methodIndex the position of the method among those generated for the stub class
+     */
+    void addMethod(ClassWriter cw, StubMethod method, int methodIndex);
 }
 
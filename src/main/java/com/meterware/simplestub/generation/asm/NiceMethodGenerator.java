@@ -1,9 +1,13 @@
 package com.meterware.simplestub.generation.asm;
 /*
- * Copyright (c) 2016-2018 Russell Gold
+ * Copyright (c) 2016-2026 Russell Gold
  *
  * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
  */
+import java.lang.reflect.Method;
+
+import com.meterware.simplestub.generation.EmptyValues;
+import org.objectweb.asm.Handle;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.Type;
 import org.objectweb.asm.commons.GeneratorAdapter;
@@ -13,56 +17,61 @@ import org.objectweb.asm.commons.GeneratorAdapter;
  */
 class NiceMethodGenerator extends DefaultMethodGenerator {
 
+    private static final Type STRING_TYPE = Type.getType(String.class);
+    private static final Handle NESTED_STUB_BOOTSTRAP = createBootstrapHandle("nestedStub");
+    private static final Handle EMPTY_ARRAY_BOOTSTRAP = createBootstrapHandle("emptyArray");
+
+    private static Handle createBootstrapHandle(String name) {
+        return new Handle(Opcodes.H_INVOKESTATIC, "com/meterware/simplestub/NiceStubBootstraps", name,
+                "(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/invoke/MethodType;)Ljava/lang/invoke/CallSite;", false);
+    }
+
+    NiceMethodGenerator() {
+        this(null);
+    }
+
+    NiceMethodGenerator(OwnedObject callTracker) {
+        super(callTracker);
+    }
+
     @Override
-    protected void pushObjectReturnType(GeneratorAdapter mg, Class<?> returnType) {
-        if (returnType.isArray())
-            pushGenerateEmptyArray(mg, returnType.getComponentType());
-        else if (returnType.equals(String.class))
-            mg.visitLdcInsn("");
-        else if (isInterface(returnType))
-            pushGenerateStub(mg, returnType);
+    protected int pushObjectReturnType(GeneratorAdapter mg, StubMethod method) {
+        Type returnType = method.getReturnType();
+        Method emptyValueFactory = EmptyValues.getFactory(returnType.getClassName());
+        if (emptyValueFactory != null)
+            return pushEmptyValue(mg, emptyValueFactory);
+        else if (returnType.getSort() == Type.ARRAY)
+            return pushGenerateEmptyArray(mg, returnType);
+        else if (returnType.equals(STRING_TYPE))
+            return pushEmptyString(mg);
+        else if (method.isReturnTypeInterface())
+            return pushGenerateStub(mg, returnType);
         else
-            super.pushObjectReturnType(mg, returnType);
+            return super.pushObjectReturnType(mg, method);
     }
 
-    private void pushGenerateEmptyArray(GeneratorAdapter mg, Class<?> componentType) {
-        mg.visitInsn(Opcodes.ICONST_0);
-        if (componentType.isPrimitive())
-            mg.visitIntInsn(Opcodes.NEWARRAY, getNewArrayType(componentType));
-        else
-            mg.visitTypeInsn(Opcodes.ANEWARRAY, componentType.getName().replace('.', '/'));
+    private int pushEmptyValue(GeneratorAdapter mg, Method factory) {
+        Class<?> factoryClass = factory.getDeclaringClass();
+        mg.visitMethodInsn(Opcodes.INVOKESTATIC, Type.getInternalName(factoryClass), factory.getName(),
+                           Type.getMethodDescriptor(factory), factoryClass.isInterface());
+        return 1;
     }
 
-    private int getNewArrayType(Class<?> componentType) {
-        if (componentType.equals(boolean.class))
-            return Opcodes.T_BOOLEAN;
-        else if (componentType.equals(char.class))
-            return Opcodes.T_CHAR;
-        else if (componentType.equals(float.class))
-            return Opcodes.T_FLOAT;
-        else if (componentType.equals(double.class))
-            return Opcodes.T_DOUBLE;
-        else if (componentType.equals(byte.class))
-            return Opcodes.T_BYTE;
-        else if (componentType.equals(short.class))
-            return Opcodes.T_SHORT;
-        else if (componentType.equals(int.class))
-            return Opcodes.T_INT;
-        else if (componentType.equals(long.class))
-            return Opcodes.T_LONG;
-        throw new IllegalArgumentException("Unknown array component type " + componentType);
+    private int pushEmptyString(GeneratorAdapter mg) {
+        mg.visitLdcInsn("");
+        return 1;
     }
 
-    private void pushGenerateStub(GeneratorAdapter mg, Class<?> returnType) {
-        mg.visitLdcInsn(Type.getType(returnType));
-        mg.visitInsn(Opcodes.ICONST_0);
-        mg.newArray(Type.getType(Object.class));
-        mg.visitMethodInsn(Opcodes.INVOKESTATIC, "com/meterware/simplestub/Stub", "createNiceStub", "(Ljava/lang/Class;[Ljava/lang/Object;)Ljava/lang/Object;", false);
-        mg.checkCast(Type.getType(returnType));
+    // The empty array is created once per call site, when it is linked, and returned by every later call.
+    private int pushGenerateEmptyArray(GeneratorAdapter mg, Type arrayType) {
+        mg.visitInvokeDynamicInsn("emptyArray", Type.getMethodDescriptor(arrayType), EMPTY_ARRAY_BOOTSTRAP);
+        return 1;
     }
 
-    private boolean isInterface(Class<?> aClass) {
-        return aClass.isInterface();
+    // The nested stub is created once per call site, when it is linked, and returned by every later call.
+    private int pushGenerateStub(GeneratorAdapter mg, Type returnType) {
+        mg.visitInvokeDynamicInsn("nestedStub", Type.getMethodDescriptor(returnType), NESTED_STUB_BOOTSTRAP);
+        return 1;
     }
 
 }
@@ -0,0 +1,127 @@
+package com.meterware.simplestub.generation.asm;
+/*
+ * Copyright (c) 2026 Russell Gold
+ *
+ * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
+ */
+import com.meterware.simplestub.BudgetedStub;
+import com.meterware.simplestub.CallBudget;
+import com.meterware.simplestub.CountingStub;
+import com.meterware.simplestub.InvocationCounters;
+import com.meterware.simplestub.InvocationJournal;
+import com.meterware.simplestub.LatencySimulator;
+import com.meterware.simplestub.LatencyStub;
+import com.meterware.simplestub.RecordingStub;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.commons.GeneratorAdapter;
+import org.objectweb.asm.commons.Method;
+
+/**
+ * An object created by each instance of a stub, which its generated methods update. The object is held in
+ * a private field, and obtained through a method of an interface which the stub implements. Objects which
+ * track calls by method index are created with the ids of the generated methods, and are notified of each call
+ * through a method which takes the index.
+ *
+ * @author Russell Gold
+ */
+class OwnedObject {
+
+    static final OwnedObject JOURNAL = new OwnedObject(RecordingStub.class, InvocationJournal.class, "invocationJournal$", "getInvocationJournal", null);
+    static final OwnedObject COUNTERS = new OwnedObject(CountingStub.class, InvocationCounters.class, "invocationCounters$", "getInvocationCounters", "increment");
+    static final OwnedObject BUDGET = new OwnedObject(BudgetedStub.class, CallBudget.class, "callBudget$", "getCallBudget", "charge");
+    static final OwnedObject LATENCY = new OwnedObject(LatencyStub.class, LatencySimulator.class, "latencySimulator$", "getLatencySimulator", "delay");
+
+    /**
+     * Creating the object needs one slot each for the stub, the new object, its duplicate for the constructor call,
+     * and the string constructor argument, if any: 4 slots, or 3 with the no-arg constructor.
+     */
+    private static final int MAX_INITIALIZATION_STACK = 4;
+
+    /** Notifying the object of a call needs one slot for the object and one for the int method index: 2 slots. */
+    private static final int CALL_NOTIFICATION_STACK = 2;
+
+    private final Type interfaceType;
+    private final Type type;
+    private final String fieldName;
+    private final Method accessor;
+    private final Method callNotification;
+
+    private OwnedObject(Class<?> interfaceClass, Class<?> objectClass, String fieldName, String accessorName, String callNotificationName) {
+        this.interfaceType = Type.getType(interfaceClass);
+        this.type = Type.getType(objectClass);
+        this.fieldName = fieldName;
+        this.accessor = new Method(accessorName, type, new Type[0]);
+        this.callNotification = callNotificationName == null ? null : new Method(callNotificationName, Type.VOID_TYPE, new Type[] {Type.INT_TYPE});
+    }
+
+    Type getType() {
+        return type;
+    }
+
+    String getInterfaceName() {
+        return interfaceType.getInternalName();
+    }
+
+    /**
+     * Returns true if the object is created with the ids of the generated methods.
+     */
+    boolean isCreatedWithMethodIds() {
+        return callNotification != null;
+    }
+
+    /**
+     * Adds the field which holds the object, and the interface method which returns it.
+     */
+    void addField(ClassWriter cw, Type stubType) {
+        cw.visitField(Opcodes.ACC_PRIVATE | Opcodes.ACC_FINAL, fieldName, type.getDescriptor(), null, null).visitEnd();
+
+        GeneratorAdapter mg = new GeneratorAdapter(Opcodes.ACC_PUBLIC, accessor, null, null, cw);
+        mg.loadThis();
+        mg.getField(stubType, fieldName, type);
+        mg.returnValue();
+        mg.visitMaxs(1, 1);
+        mg.visitEnd();
+    }
+
+    /**
+     * Creates the object in a constructor, before the superclass constructor is called, so that the object exists
+     * if that constructor calls a generated method. The verifier allows a constructor to set the fields of its own
+     * class before then.
+     * @param constructorArgument the string to pass to the constructor of the object, or null to use its no-arg constructor
+     * @return the maximum stack depth needed
+     */
+    int initialize(GeneratorAdapter mg, Type stubType, String constructorArgument) {
+        mg.loadThis();
+        mg.newInstance(type);
+        mg.dup();
+        if (constructorArgument == null) {
+            mg.invokeConstructor(type, Method.getMethod("void <init> ()"));
+        } else {
+            mg.push(constructorArgument);
+            mg.invokeConstructor(type, Method.getMethod("void <init> (String)"));
+        }
+        mg.putField(stubType, fieldName, type);
+        return constructorArgument == null ? MAX_INITIALIZATION_STACK - 1 : MAX_INITIALIZATION_STACK;
+    }
+
+    /**
+     * Pushes the object onto the stack, from within a generated method.
+     */
+    void push(GeneratorAdapter mg) {
+        mg.loadThis();
+        mg.invokeInterface(interfaceType, accessor);
+    }
+
+    /**
+     * Notifies the object of a call to a generated method.
+     * @return the maximum stack depth needed
+     */
+    int notifyCall(GeneratorAdapter mg, int methodIndex) {
+        push(mg);
+        mg.push(methodIndex);
+        mg.invokeVirtual(type, callNotification);
+        return CALL_NOTIFICATION_STACK;
+    }
+}
@@ -0,0 +1,109 @@
+package com.meterware.simplestub.generation.asm;
+/*
+ * Copyright (c) 2026 Russell Gold
+ *
+ * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
+ */
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.commons.GeneratorAdapter;
+import org.objectweb.asm.commons.Method;
+
+/**
+ * Generates methods which record each call in the journal of the stub, then return as a default stub would.
+ * Primitive arguments are widened to longs, rather than boxed.
+ *
+ * @author Russell Gold
+ */
+class RecordingMethodGenerator extends DefaultMethodGenerator {
+
+    private static final Type OBJECT_TYPE = Type.getType(Object.class);
+    private static final Method RECORD = new Method("record", Type.VOID_TYPE,
+            new Type[] {Type.getType(String.class), Type.getType(long[].class), Type.getType(Object[].class)});
+
+    /**
+     * With no arguments, the call to record needs one slot each for the journal, the method id
+     * and the two null argument arrays: 4 slots.
+     */
+    private static final int MAX_STACK_WITHOUT_ARGUMENTS = 4;
+
+    /**
+     * With arguments, storing a primitive argument into the long array needs one slot each for the journal,
+     * the method id, the array, its duplicate and the index, and two for the widened long value: 7 slots.
+     * Storing a reference argument reaches the same depth: the journal, the method id, the long array
+     * (or null), the object array, its duplicate, the index and the value each take one slot.
+     */
+    private static final int MAX_STACK_WITH_ARGUMENTS = 7;
+
+    @Override
+    protected int addPrologue(GeneratorAdapter mg, StubMethod method, int methodIndex) {
+        Type[] argumentTypes = method.getArgumentTypes();
+        OwnedObject.JOURNAL.push(mg);
+        mg.push(method.getName() + method.getDescriptor());
+        pushPrimitiveArguments(mg, argumentTypes);
+        pushReferenceArguments(mg, argumentTypes);
+        mg.invokeVirtual(OwnedObject.JOURNAL.getType(), RECORD);
+        return argumentTypes.length == 0 ? MAX_STACK_WITHOUT_ARGUMENTS : MAX_STACK_WITH_ARGUMENTS;
+    }
+
+    private void pushPrimitiveArguments(GeneratorAdapter mg, Type[] argumentTypes) {
+        int count = 0;
+        for (Type type : argumentTypes)
+            if (isPrimitive(type)) count++;
+
+        if (count == 0) {
+            mg.visitInsn(Opcodes.ACONST_NULL);
+            return;
+        }
+
+        mg.push(count);
+        mg.newArray(Type.LONG_TYPE);
+        int index = 0;
+        for (int i = 0; i < argumentTypes.length; i++) {
+            if (!isPrimitive(argumentTypes[i])) continue;
+            mg.dup();
+            mg.push(index++);
+            mg.loadArg(i);
+            widenToLong(mg, argumentTypes[i]);
+            mg.arrayStore(Type.LONG_TYPE);
+        }
+    }
+
+    private void widenToLong(GeneratorAdapter mg, Type type) {
+        switch (type.getSort()) {
+            case Type.LONG:
+                break;
+            case Type.DOUBLE:
+                mg.visitMethodInsn(Opcodes.INVOKESTATIC, "java/lang/Double", "doubleToRawLongBits", "(D)J", false);
+                break;
+            case Type.FLOAT:
+                mg.visitMethodInsn(Opcodes.INVOKESTATIC, "java/lang/Float", "floatToRawIntBits", "(F)I", false);
+                mg.visitInsn(Opcodes.I2L);
+                break;
+            default:
+                mg.visitInsn(Opcodes.I2L);
+        }
+    }
+
+    private void pushReferenceArguments(GeneratorAdapter mg, Type[] argumentTypes) {
+        int count = argumentTypes.length;
+        for (Type type : argumentTypes)
+            if (isPrimitive(type)) count--;
+
+        if (count == 0) {
+            mg.visitInsn(Opcodes.ACONST_NULL);
+            return;
+        }
+
+        mg.push(count);
+        mg.newArray(OBJECT_TYPE);
+        int index = 0;
+        for (int i = 0; i < argumentTypes.length; i++) {
+            if (isPrimitive(argumentTypes[i])) continue;
+            mg.dup();
+            mg.push(index++);
+            mg.loadArg(i);
+            mg.arrayStore(OBJECT_TYPE);
+        }
+    }
+}
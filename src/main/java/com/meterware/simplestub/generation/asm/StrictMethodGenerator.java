@@ -1,11 +1,12 @@
 package com.meterware.simplestub.generation.asm;
 /*
- * Copyright (c) 2015-2016 Russell Gold
+ * Copyright (c) 2015-2026 Russell Gold
  *
  * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
  */
 import com.meterware.simplestub.UnexpectedMethodCallException;
 import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Handle;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.Type;
 import org.objectweb.asm.commons.GeneratorAdapter;
@@ -15,26 +16,45 @@ import org.objectweb.asm.commons.Method;
  * @author Russell Gold
  */
 class StrictMethodGenerator implements MethodGenerator {
+
+    /**
+     * The stack holds only the exception returned by the invokedynamic call site, one slot, which athrow consumes.
+     * The method's arguments are never loaded, so they need no stack.
+     */
+    private static final int MAX_STACK = 1;
+
+    private static final String UNEXPECTED_CALL_DESCRIPTOR = Type.getMethodDescriptor(Type.getType(UnexpectedMethodCallException.class));
+    private static final Handle UNEXPECTED_CALL_BOOTSTRAP = new Handle(Opcodes.H_INVOKESTATIC,
+            "com/meterware/simplestub/StrictStubBootstraps", "unexpectedCall",
+            "(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/invoke/MethodType;Ljava/lang/String;)Ljava/lang/invoke/CallSite;", false);
+
     @Override
-    public void addMethod(ClassWriter cw, java.lang.reflect.Method method) {
+    public void addMethod(ClassWriter cw, StubMethod method, int methodIndex) {
 
-        Method m = Method.getMethod(method);
+        Method m = new Method(method.getName(), method.getDescriptor());
         GeneratorAdapter mg = new GeneratorAdapter(Opcodes.ACC_PUBLIC, m, null, null, cw);
-        mg.throwException(Type.getType(UnexpectedMethodCallException.class), getUnexpectedCallMessage(method));
-        mg.endMethod();
+        mg.visitInvokeDynamicInsn("unexpectedCall", UNEXPECTED_CALL_DESCRIPTOR, UNEXPECTED_CALL_BOOTSTRAP, getUnexpectedCallMessage(method));
+        mg.throwException();
+        mg.visitMaxs(MAX_STACK, method.getArgumentsSize());
+        mg.visitEnd();
     }
 
-    private String getUnexpectedCallMessage(java.lang.reflect.Method method) {
+    private String getUnexpectedCallMessage(StubMethod method) {
         StringBuilder sb = new StringBuilder("Unexpected call to method ");
-        sb.append(method.getDeclaringClass().getName());
+        sb.append(method.getDeclaringClassName());
         sb.append('.').append(method.getName()).append('(');
 
         int count = 0;
-        for (Class<?> parameterType : method.getParameterTypes()) {
+        for (Type parameterType : method.getArgumentTypes()) {
             if (count++ != 0) sb.append(',');
-            sb.append(parameterType.getName());
+            sb.append(getClassName(parameterType));
         }
         sb.append(')');
         return sb.toString();
     }
+
+    // Reports array types as Class.getName() does
+    private String getClassName(Type type) {
+        return type.getSort() == Type.ARRAY ? type.getDescriptor().replace('/', '.') : type.getClassName();
+    }
 }
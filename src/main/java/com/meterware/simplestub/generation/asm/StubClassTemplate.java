@@ -0,0 +1,86 @@
+package com.meterware.simplestub.generation.asm;
+/*
+ * Copyright (c) 2026 Russell Gold
+ *
+ * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
+ */
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import com.meterware.simplestub.generation.AbstractMethodIndex;
+import org.objectweb.asm.Type;
+
+/**
+ * What a stub generator needs to know about the class to be stubbed: the superclass and interfaces of the stub,
+ * the constructors it must pass through to its superclass, and the methods it must implement.
+ *
+ * @author Russell Gold
+ */
+class StubClassTemplate {
+
+    private static final String[] NO_INTERFACES = new String[0];
+
+    private final String superName;
+    private final String[] interfaces;
+    private final List<String> constructorDescriptors;
+    private final Collection<StubMethod> methods;
+
+    StubClassTemplate(String superName, String[] interfaces, List<String> constructorDescriptors, Collection<StubMethod> methods) {
+        this.superName = superName;
+        this.interfaces = interfaces;
+        this.constructorDescriptors = constructorDescriptors;
+        this.methods = methods;
+    }
+
+    /**
+     * Creates a template for stubbing the specified class by reflecting on it and its supertypes.
+     * @param baseClass the class or interface to stub
+     * @return a new template
+     */
+    static StubClassTemplate reflect(Class<?> baseClass) {
+        Class<?> superclass = baseClass.isInterface() ? Object.class : baseClass;
+        String[] interfaces = baseClass.isInterface() ? new String[] {Type.getInternalName(baseClass)} : NO_INTERFACES;
+
+        List<String> constructorDescriptors = new ArrayList<>();
+        for (Constructor<?> constructor : superclass.getDeclaredConstructors())
+            constructorDescriptors.add(Type.getConstructorDescriptor(constructor));
+
+        List<StubMethod> methods = new ArrayList<>();
+        for (Method method : AbstractMethodIndex.getAbstractMethods(baseClass))
+            methods.add(StubMethod.of(method));
+
+        return new StubClassTemplate(Type.getInternalName(superclass), interfaces, constructorDescriptors, methods);
+    }
+
+    /**
+     * Returns the internal name of the superclass of the stub.
+     */
+    String getSuperName() {
+        return superName;
+    }
+
+    /**
+     * Returns the internal names of the interfaces which the stub directly implements.
+     */
+    String[] getInterfaces() {
+        return interfaces;
+    }
+
+    /**
+     * Returns the descriptors of the superclass constructors.
+     */
+    List<String> getConstructorDescriptors() {
+        return constructorDescriptors;
+    }
+
+    /**
+     * Returns the methods which the stub must implement.
+     */
+    Collection<StubMethod> getMethods() {
+        return methods;
+    }
+}
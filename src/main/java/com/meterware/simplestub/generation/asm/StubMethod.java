@@ -0,0 +1,85 @@
+package com.meterware.simplestub.generation.asm;
+/*
+ * Copyright (c) 2026 Russell Gold
+ *
+ * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
+ */
+
+import java.lang.reflect.Method;
+
+import org.objectweb.asm.Type;
+
+/**
+ * A method which a stub must implement, described by its name and descriptor, so that it may be
+ * obtained either by reflection or by reading class files.
+ *
+ * @author Russell Gold
+ */
+abstract class StubMethod {
+
+    private final String declaringClassName;
+    private final String name;
+    private final String descriptor;
+
+    StubMethod(String declaringClassName, String name, String descriptor) {
+        this.declaringClassName = declaringClassName;
+        this.name = name;
+        this.descriptor = descriptor;
+    }
+
+    /**
+     * Returns a stub method describing the specified reflected method.
+     */
+    static StubMethod of(Method method) {
+        return new ReflectedStubMethod(method);
+    }
+
+    /**
+     * Returns the fully-qualified name of the class or interface which declares this method.
+     */
+    String getDeclaringClassName() {
+        return declaringClassName;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    String getDescriptor() {
+        return descriptor;
+    }
+
+    Type getReturnType() {
+        return Type.getReturnType(descriptor);
+    }
+
+    Type[] getArgumentTypes() {
+        return Type.getArgumentTypes(descriptor);
+    }
+
+    /**
+     * Returns the number of local variable slots used by the arguments of this method, including 'this'.
+     */
+    int getArgumentsSize() {
+        return Type.getArgumentsAndReturnSizes(descriptor) >> 2;
+    }
+
+    /**
+     * Returns true if this method returns an interface.
+     */
+    abstract boolean isReturnTypeInterface();
+
+    private static class ReflectedStubMethod extends StubMethod {
+        private final Method method;
+
+        ReflectedStubMethod(Method method) {
+            super(method.getDeclaringClass().getName(), method.getName(), Type.getMethodDescriptor(method));
+            this.method = method;
+        }
+
+        @Override
+        boolean isReturnTypeInterface() {
+            return method.getReturnType().isInterface();
+        }
+    }
+}
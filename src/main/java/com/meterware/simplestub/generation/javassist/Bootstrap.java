@@ -0,0 +1,78 @@
+package com.meterware.simplestub.generation.javassist;
+/*
+ * Copyright (c) 2026 Russell Gold
+ *
+ * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
+ */
+import java.util.Arrays;
+
+import javassist.CtClass;
+import javassist.bytecode.BootstrapMethodsAttribute;
+import javassist.bytecode.Bytecode;
+import javassist.bytecode.ClassFile;
+import javassist.bytecode.ConstPool;
+
+/**
+ * A static bootstrap method which links the <code>invokedynamic</code> instructions of generated methods.
+ * Each stub class lists the bootstrap methods and arguments used by its instructions in a single attribute,
+ * which is extended as instructions are added.
+ *
+ * @author Russell Gold
+ */
+class Bootstrap {
+
+    private static final String BOOTSTRAP_DESCRIPTOR_PREFIX = "(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/invoke/MethodType;";
+    private static final String BOOTSTRAP_DESCRIPTOR_SUFFIX = ")Ljava/lang/invoke/CallSite;";
+
+    private final String className;
+    private final String methodName;
+    private final String descriptor;
+
+    /**
+     * Defines a bootstrap method.
+     * @param className the name of the class which declares the method
+     * @param methodName the name of the method
+     * @param stringArgumentCount the number of static string arguments which the method takes
+     */
+    Bootstrap(String className, String methodName, int stringArgumentCount) {
+        this.className = className;
+        this.methodName = methodName;
+
+        StringBuilder sb = new StringBuilder(BOOTSTRAP_DESCRIPTOR_PREFIX);
+        for (int i = 0; i < stringArgumentCount; i++)
+            sb.append("Ljava/lang/String;");
+        this.descriptor = sb.append(BOOTSTRAP_DESCRIPTOR_SUFFIX).toString();
+    }
+
+    /**
+     * Adds an <code>invokedynamic</code> instruction linked by this bootstrap method.
+     * @param code the code to which the instruction is to be added
+     * @param stubClass the class whose method contains the code
+     * @param name the name of the call site
+     * @param callSiteDescriptor the descriptor of the call site
+     * @param stringArguments the static arguments to pass to the bootstrap method
+     */
+    void addInvokedynamic(Bytecode code, CtClass stubClass, String name, String callSiteDescriptor, String... stringArguments) {
+        code.addInvokedynamic(getBootstrapIndex(stubClass.getClassFile(), stringArguments), name, callSiteDescriptor);
+    }
+
+    private int getBootstrapIndex(ClassFile classFile, String[] stringArguments) {
+        ConstPool constPool = classFile.getConstPool();
+        int methodRef = constPool.addMethodrefInfo(constPool.addClassInfo(className), methodName, descriptor);
+        int methodHandle = constPool.addMethodHandleInfo(ConstPool.REF_invokeStatic, methodRef);
+        int[] arguments = new int[stringArguments.length];
+        for (int i = 0; i < arguments.length; i++)
+            arguments[i] = constPool.addStringInfo(stringArguments[i]);
+
+        BootstrapMethodsAttribute attribute = (BootstrapMethodsAttribute) classFile.getAttribute(BootstrapMethodsAttribute.tag);
+        BootstrapMethodsAttribute.BootstrapMethod[] methods = attribute == null ? new BootstrapMethodsAttribute.BootstrapMethod[0] : attribute.getMethods();
+        for (int i = 0; i < methods.length; i++)
+            if (methods[i].methodRef == methodHandle && Arrays.equals(methods[i].arguments, arguments))
+                return i;
+
+        methods = Arrays.copyOf(methods, methods.length + 1);
+        methods[methods.length - 1] = new BootstrapMethodsAttribute.BootstrapMethod(methodHandle, arguments);
+        classFile.addAttribute(new BootstrapMethodsAttribute(constPool, methods));
+        return methods.length - 1;
+    }
+}
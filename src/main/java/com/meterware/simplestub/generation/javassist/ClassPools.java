@@ -0,0 +1,44 @@
+package com.meterware.simplestub.generation.javassist;
+/*
+ * Copyright (c) 2026 Russell Gold
+ *
+ * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
+ */
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import javassist.ClassPool;
+import javassist.LoaderClassPath;
+
+/**
+ * The class pools from which stubs are generated, one for each class loader whose classes are stubbed. Each pool
+ * reads class files through its loader, and keeps the classes it has read for use by later stubs. Neither the map
+ * nor the pools hold strong references to the loaders, so a pool is discarded along with its loader.
+ *
+ * @author Russell Gold
+ */
+class ClassPools {
+
+    private static final Map<ClassLoader, ClassPool> pools = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private ClassPools() {
+    }
+
+    /**
+     * Returns the pool for the specified class loader. Javassist class pools are not thread-safe, so callers must
+     * synchronize on the pool while they use it.
+     * @param classLoader the loader of the class to stub, or null for the bootstrap class loader
+     */
+    static ClassPool getPool(ClassLoader classLoader) {
+        return pools.computeIfAbsent(classLoader != null ? classLoader : ClassLoader.getSystemClassLoader(), ClassPools::createPool);
+    }
+
+    // Generated stubs also refer to the classes of this library, which the stubbed class's loader may not see.
+    private static ClassPool createPool(ClassLoader classLoader) {
+        ClassPool pool = new ClassPool(false);
+        pool.appendClassPath(new LoaderClassPath(classLoader));
+        pool.appendClassPath(new LoaderClassPath(ClassPools.class.getClassLoader()));
+        return pool;
+    }
+}
@@ -0,0 +1,31 @@
+package com.meterware.simplestub.generation.javassist;
+/*
+ * Copyright (c) 2026 Russell Gold
+ *
+ * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
+ */
+import javassist.CtClass;
+import javassist.CtMethod;
+import javassist.NotFoundException;
+import javassist.bytecode.Bytecode;
+
+/**
+ * Generates methods which pass the stub and their arguments to an <code>invokedynamic</code> call site, whose
+ * target may be changed at runtime. The call site takes the stub as an object, so that its type can be found
+ * by reflection on the stub class's methods.
+ *
+ * @author Russell Gold
+ */
+class ConfigurableMethodGenerator implements MethodGenerator {
+
+    private static final Bootstrap CONFIGURABLE_METHOD_BOOTSTRAP = new Bootstrap("com.meterware.simplestub.ConfigurableStubBootstraps", "configurableMethod", 0);
+
+    @Override
+    public void addBody(Bytecode code, CtClass stubClass, CtMethod method, int methodIndex) throws NotFoundException {
+        String callSiteDescriptor = "(Ljava/lang/Object;" + method.getSignature().substring(1);
+        code.addAload(0);
+        code.addLoadParameters(method.getParameterTypes(), 1);
+        CONFIGURABLE_METHOD_BOOTSTRAP.addInvokedynamic(code, stubClass, method.getName(), callSiteDescriptor);
+        code.addReturn(method.getReturnType());
+    }
+}
@@ -1,18 +1,53 @@
 package com.meterware.simplestub.generation.javassist;
 /*
- * Copyright (c) 2016 Russell Gold
+ * Copyright (c) 2016-2026 Russell Gold
  *
  * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
  */
+import javassist.CtClass;
 import javassist.CtMethod;
 import javassist.NotFoundException;
+import javassist.bytecode.Bytecode;
 
 /**
  * @author Russell Gold
  */
 class DefaultMethodGenerator implements MethodGenerator {
+
+    private final OwnedObject callTracker;
+
+    DefaultMethodGenerator() {
+        this(null);
+    }
+
+    /**
+     * Creates a generator.
+     * @param callTracker the object owned by the stub to notify of each call, or null if there is none
+     */
+    DefaultMethodGenerator(OwnedObject callTracker) {
+        this.callTracker = callTracker;
+    }
+
     @Override
-    public String createBody(CtMethod method) throws NotFoundException {
-        return null;
+    public void addBody(Bytecode code, CtClass stubClass, CtMethod method, int methodIndex) throws NotFoundException {
+        if (callTracker != null)
+            callTracker.addCallNotification(code, methodIndex);
+        addReturn(code, stubClass, method.getReturnType());
+    }
+
+    /**
+     * Adds the instructions which return the value of a stub method.
+     */
+    protected void addReturn(Bytecode code, CtClass stubClass, CtClass returnType) throws NotFoundException {
+        addDefaultReturn(code, returnType);
+    }
+
+    /**
+     * Adds instructions which return zero, false or null, as appropriate; or nothing, if the method is void.
+     */
+    static void addDefaultReturn(Bytecode code, CtClass returnType) {
+        if (returnType != CtClass.voidType)
+            code.addConstZero(returnType);
+        code.addReturn(returnType);
     }
 }
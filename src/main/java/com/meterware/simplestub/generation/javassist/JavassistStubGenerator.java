@@ -1,12 +1,16 @@
 package com.meterware.simplestub.generation.javassist;
 /*
- * Copyright (c) 2017-2022 Russell Gold
+ * Copyright (c) 2017-2026 Russell Gold
  *
  * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
  */
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.EnumMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 import com.meterware.simplestub.SimpleStubException;
 import com.meterware.simplestub.SystemUtils;
@@ -15,13 +19,20 @@ import com.meterware.simplestub.generation.StubKind;
 import javassist.CannotCompileException;
 import javassist.ClassPool;
 import javassist.CtClass;
+import javassist.CtConstructor;
 import javassist.CtMethod;
-import javassist.CtNewMethod;
 import javassist.Modifier;
 import javassist.NotFoundException;
+import javassist.bytecode.AccessFlag;
+import javassist.bytecode.Bytecode;
+import javassist.bytecode.ConstPool;
+import javassist.bytecode.MethodInfo;
 
 /**
- * The Javassist implementation of a stub generator.
+ * The Javassist implementation of a stub generator. Stubs are generated from a class pool shared by all stubs of
+ * classes from the same loader; since the pool is not thread-safe, each generator synchronizes on it. The stub class
+ * and the stubbed class are detached from the pool once the stub is written, so that the pool retains only their
+ * supertypes, which later stubs are likely to share.
  *
  * @author Russell Gold
  */
@@ -33,38 +44,149 @@ public class JavassistStubGenerator extends StubGenerator {
         JavassistStubGenerator.methodGenerators.put(StubKind.DEFAULT, new DefaultMethodGenerator());
         JavassistStubGenerator.methodGenerators.put(StubKind.NICE, new NiceMethodGenerator());
         JavassistStubGenerator.methodGenerators.put(StubKind.STRICT, new StrictMethodGenerator());
+        JavassistStubGenerator.methodGenerators.put(StubKind.RECORDING, new RecordingMethodGenerator());
+        JavassistStubGenerator.methodGenerators.put(StubKind.COUNTING, new DefaultMethodGenerator(OwnedObject.COUNTERS));
+        JavassistStubGenerator.methodGenerators.put(StubKind.NICE_COUNTING, new NiceMethodGenerator(OwnedObject.COUNTERS));
+        JavassistStubGenerator.methodGenerators.put(StubKind.BUDGETED, new DefaultMethodGenerator(OwnedObject.BUDGET));
+        JavassistStubGenerator.methodGenerators.put(StubKind.LATENCY, new DefaultMethodGenerator(OwnedObject.LATENCY));
+        JavassistStubGenerator.methodGenerators.put(StubKind.NICE_LATENCY, new NiceMethodGenerator(OwnedObject.LATENCY));
+        JavassistStubGenerator.methodGenerators.put(StubKind.CONFIGURABLE, new ConfigurableMethodGenerator());
     }
 
-    private final ClassPool pool = new ClassPool(ClassPool.getDefault());
+    private static final String CONFIGURABLE_STUB_NAME = "com.meterware.simplestub.ConfigurableStub";
+
+    private final ClassPool pool;
     private final Class<?> baseClass;
     private final MethodGenerator methodGenerator;
+    private final StubKind kind;
 
     public JavassistStubGenerator(Class<?> baseClass, StubKind kind) {
         this.baseClass = baseClass;
+        this.kind = kind;
+        pool = ClassPools.getPool(baseClass.getClassLoader());
         methodGenerator = methodGenerators.get(kind);
     }
 
     @Override
     public Class<?> generateStubClass(String stubClassName, Class<?> anchorClass) {
         try {
-            return createStubClass(stubClassName, anchorClass);
+            synchronized (pool) {
+                CtClass ctClass = createStubClassBase(stubClassName);
+                try {
+                    addStubMembers(ctClass);
+                    return toClass(ctClass, anchorClass);
+                } finally {
+                    release(ctClass);
+                }
+            }
         } catch (NotFoundException | CannotCompileException e) {
             throw new SimpleStubException("Unable to create stub class", e);
         }
     }
 
-    private Class<?> createStubClass(String stubClassName, Class<?> anchorClass) throws NotFoundException, CannotCompileException {
-        CtClass ctClass = createStubClassBase(stubClassName);
-        for (CtMethod method : ctClass.getMethods()) {
-            if (isAbstract(method))
-                addStubMethod(ctClass, method);
+    @Override
+    public byte[] generateStubClassBytes(String stubClassName) {
+        try {
+            synchronized (pool) {
+                CtClass ctClass = createStubClassBase(stubClassName);
+                try {
+                    addStubMembers(ctClass);
+                    return ctClass.toBytecode();
+                } finally {
+                    release(ctClass);
+                }
+            }
+        } catch (NotFoundException | CannotCompileException | IOException e) {
+            throw new SimpleStubException("Unable to create stub class", e);
         }
+    }
+
+    private Class<?> toClass(CtClass ctClass, Class<?> anchorClass) throws CannotCompileException {
         if (SystemUtils.getJavaVersion() < 11)
             return ctClass.toClass(anchorClass.getClassLoader(), null);
         else
             return ctClass.toClass(anchorClass);
     }
 
+    // Neither the stub class nor the stubbed class is kept in the shared pool. Pruning the stubbed class instead would
+    // leave a copy which cannot be written or modified, which a later stub of it, or of a subclass, might need.
+    private void release(CtClass ctClass) throws NotFoundException {
+        ctClass.detach();
+        pool.get(baseClass.getName()).detach();
+    }
+
+    private void addStubMembers(CtClass ctClass) throws NotFoundException, CannotCompileException {
+        List<CtMethod> abstractMethods = new ArrayList<>();
+        for (CtMethod method : ctClass.getMethods()) {
+            if (isAbstract(method))
+                abstractMethods.add(method);
+        }
+
+        if (kind == StubKind.CONFIGURABLE)
+            ctClass.addInterface(pool.get(CONFIGURABLE_STUB_NAME));
+        addOwnedObject(ctClass, abstractMethods);
+        for (int i = 0; i < abstractMethods.size(); i++)
+            addStubMethod(ctClass, abstractMethods.get(i), i);
+    }
+
+    // Some kinds of stubs own an object, which their generated methods obtain through an interface method.
+    private void addOwnedObject(CtClass ctClass, List<CtMethod> abstractMethods) throws NotFoundException, CannotCompileException {
+        OwnedObject ownedObject = getOwnedObject();
+        if (ownedObject != null) {
+            ownedObject.addTo(ctClass, pool);
+            addConstructors(ctClass, ownedObject, abstractMethods);
+        }
+    }
+
+    // Javassist would inherit the same constructors, but could only create the owned object after calling super().
+    private void addConstructors(CtClass ctClass, OwnedObject ownedObject, List<CtMethod> abstractMethods) throws NotFoundException, CannotCompileException {
+        CtClass superclass = ctClass.getSuperclass();
+        for (CtConstructor constructor : superclass.getDeclaredConstructors())
+            if (isInheritable(constructor, ctClass, superclass))
+                ctClass.addConstructor(createCtConstructor(ctClass, constructor, ownedObject, abstractMethods));
+    }
+
+    private boolean isInheritable(CtConstructor constructor, CtClass ctClass, CtClass superclass) {
+        int modifiers = constructor.getModifiers();
+        if (Modifier.isPrivate(modifiers)) return false;
+        return !Modifier.isPackage(modifiers) || Objects.equals(ctClass.getPackageName(), superclass.getPackageName());
+    }
+
+    private CtConstructor createCtConstructor(CtClass declaringClass, CtConstructor superConstructor,
+                                              OwnedObject ownedObject, List<CtMethod> abstractMethods) throws NotFoundException {
+        CtClass[] parameterTypes = superConstructor.getParameterTypes();
+        CtConstructor constructor = new CtConstructor(parameterTypes, declaringClass);
+        constructor.setModifiers(superConstructor.getModifiers() & (Modifier.PUBLIC | Modifier.PROTECTED));
+        constructor.setExceptionTypes(superConstructor.getExceptionTypes());
+
+        Bytecode code = new Bytecode(declaringClass.getClassFile().getConstPool());
+        code.setMaxLocals(false, parameterTypes, 0);
+        ownedObject.addInitialization(code, declaringClass, abstractMethods);
+        code.addAload(0);
+        code.addLoadParameters(parameterTypes, 1);
+        code.addInvokespecial(superConstructor.getDeclaringClass(), MethodInfo.nameInit, superConstructor.getSignature());
+        code.addReturn(null);
+        constructor.getMethodInfo().setCodeAttribute(code.toCodeAttribute());
+        return constructor;
+    }
+
+    private OwnedObject getOwnedObject() {
+        switch (kind) {
+            case RECORDING:
+                return OwnedObject.JOURNAL;
+            case COUNTING:
+            case NICE_COUNTING:
+                return OwnedObject.COUNTERS;
+            case BUDGETED:
+                return OwnedObject.BUDGET;
+            case LATENCY:
+            case NICE_LATENCY:
+                return OwnedObject.LATENCY;
+            default:
+                return null;
+        }
+    }
+
     private CtClass createStubClassBase(String stubClassName) throws NotFoundException {
         if (baseClass.isInterface()) {
             return createStubClassFromInterface(stubClassName);
@@ -77,13 +199,24 @@ public class JavassistStubGenerator extends StubGenerator {
         return Modifier.isAbstract(method.getModifiers());
     }
 
-    private void addStubMethod(CtClass declaringClass, CtMethod abstractMethod) throws NotFoundException, CannotCompileException {
-        declaringClass.addMethod(createCtMethod(declaringClass, abstractMethod));
+    private void addStubMethod(CtClass declaringClass, CtMethod abstractMethod, int methodIndex) throws NotFoundException, CannotCompileException {
+        declaringClass.addMethod(createCtMethod(declaringClass, abstractMethod, methodIndex));
     }
 
-    private CtMethod createCtMethod(CtClass declaringClass, CtMethod method) throws CannotCompileException, NotFoundException {
-        return CtNewMethod.make(method.getModifiers() & ~Modifier.ABSTRACT, method.getReturnType(),
-                                 method.getName(), method.getParameterTypes(), method.getExceptionTypes(), methodGenerator.createBody(method), declaringClass);
+    // The body is emitted as bytecode, rather than compiled from source.
+    private CtMethod createCtMethod(CtClass declaringClass, CtMethod method, int methodIndex) throws CannotCompileException, NotFoundException {
+        ConstPool constPool = declaringClass.getClassFile().getConstPool();
+        MethodInfo methodInfo = new MethodInfo(constPool, method.getName(), method.getSignature());
+        methodInfo.setAccessFlags(AccessFlag.of(method.getModifiers() & ~Modifier.ABSTRACT));
+
+        Bytecode code = new Bytecode(constPool);
+        code.setMaxLocals(false, method.getParameterTypes(), 0);
+        methodGenerator.addBody(code, declaringClass, method, methodIndex);
+        methodInfo.setCodeAttribute(code.toCodeAttribute());
+
+        CtMethod ctMethod = CtMethod.make(methodInfo, declaringClass);
+        ctMethod.setExceptionTypes(method.getExceptionTypes());
+        return ctMethod;
     }
 
     private CtClass createStubClassFromInterface(String stubClassName) throws NotFoundException {
@@ -95,6 +228,4 @@ public class JavassistStubGenerator extends StubGenerator {
     private CtClass createStubClassFromAbstractClass(String stubClassName) throws NotFoundException {
         return pool.makeClass(stubClassName, pool.get(baseClass.getName()));
     }
-
-
 }
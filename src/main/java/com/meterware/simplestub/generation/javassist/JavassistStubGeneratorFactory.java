@@ -1,6 +1,6 @@
 package com.meterware.simplestub.generation.javassist;
 /*
- * Copyright (c) 2017 Russell Gold
+ * Copyright (c) 2017-2026 Russell Gold
  *
  * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
  */
@@ -40,4 +40,14 @@ public class JavassistStubGeneratorFactory implements StubGeneratorFactory {
     public String getLibraryName() {
         return "javassist";
     }
+
+    @Override
+    public String getName() {
+        return "javassist";
+    }
+
+    @Override
+    public int getRank() {
+        return 100;
+    }
 }
@@ -1,17 +1,34 @@
 package com.meterware.simplestub.generation.javassist;
 /*
- * Copyright (c) 2016 Russell Gold
+ * Copyright (c) 2016-2026 Russell Gold
  *
  * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
  */
+import javassist.CtClass;
 import javassist.CtMethod;
 import javassist.NotFoundException;
+import javassist.bytecode.Bytecode;
 
 /**
  * @author Russell Gold
  */
 interface MethodGenerator {
 
-    String createBody(CtMethod method) throws NotFoundException;
+    /**
+     * Adds the instructions of the body of a stub method. The generator need not set the maximum stack size,
+     * which the code computes as instructions are added.
+     * @param code the code of the method, whose maximum locals are already set for its parameters
+     * @param stubClass the stub class being generated
+     * @param method the abstract method to implement
+     * @param methodIndex the position of the method among those generated for the stub class
+     */
+    void addBody(Bytecode code, CtClass stubClass, CtMethod method, int methodIndex) throws NotFoundException;
+
+    /**
+     * Returns the name of a method, followed by its descriptor, which identifies it to recording and counting stubs.
+     */
+    static String getMethodId(CtMethod method) {
+        return method.getName() + method.getSignature();
+    }
 
 }
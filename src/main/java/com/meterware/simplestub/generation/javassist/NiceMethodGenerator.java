@@ -1,46 +1,60 @@
 package com.meterware.simplestub.generation.javassist;
 /*
- * Copyright (c) 2016-2018 Russell Gold
+ * Copyright (c) 2016-2026 Russell Gold
  *
  * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
  */
-import com.meterware.simplestub.Stub;
+import java.lang.reflect.Method;
+
+import com.meterware.simplestub.generation.EmptyValues;
+import javassist.ClassPool;
 import javassist.CtClass;
-import javassist.CtMethod;
 import javassist.NotFoundException;
+import javassist.bytecode.Bytecode;
+import javassist.bytecode.Descriptor;
 
 /**
  * @author Russell Gold
  */
 class NiceMethodGenerator extends DefaultMethodGenerator {
+
+    private static final String BOOTSTRAPS_CLASS_NAME = "com.meterware.simplestub.NiceStubBootstraps";
+    private static final Bootstrap NESTED_STUB_BOOTSTRAP = new Bootstrap(BOOTSTRAPS_CLASS_NAME, "nestedStub", 0);
+    private static final Bootstrap EMPTY_ARRAY_BOOTSTRAP = new Bootstrap(BOOTSTRAPS_CLASS_NAME, "emptyArray", 0);
+
+    NiceMethodGenerator() {
+        this(null);
+    }
+
+    NiceMethodGenerator(OwnedObject callTracker) {
+        super(callTracker);
+    }
+
     @Override
-    public String createBody(CtMethod method) throws NotFoundException {
-        CtClass returnType = method.getReturnType();
-        if (returnType.isPrimitive())
-            return null;
+    protected void addReturn(Bytecode code, CtClass stubClass, CtClass returnType) throws NotFoundException {
+        Method emptyValueFactory = EmptyValues.getFactory(returnType.getName());
+        if (emptyValueFactory != null)
+            addEmptyValue(code, stubClass.getClassPool(), emptyValueFactory);
         else if (returnType.isArray())
-            return "return new " + createEmptyArrayInstantiator(returnType) + ";";
+            addLinkedConstant(code, stubClass, EMPTY_ARRAY_BOOTSTRAP, "emptyArray", returnType);
         else if (returnType.getName().equals("java.lang.String"))
-            return "return \"\";";
+            code.addLdc("");
         else if (returnType.isInterface())
-            return createStubCreationBody(returnType.getName());
-        else
-            return null;
+            addLinkedConstant(code, stubClass, NESTED_STUB_BOOTSTRAP, "nestedStub", returnType);
+        else {
+            super.addReturn(code, stubClass, returnType);
+            return;
+        }
+        code.addReturn(returnType);
     }
 
-    private String createEmptyArrayInstantiator(CtClass returnType) throws NotFoundException {
-        int numDimensions = 0;
-        while (returnType.isArray()) {
-            numDimensions++;
-            returnType = returnType.getComponentType();
-        }
-        StringBuilder sb = new StringBuilder(returnType.getName());
-        sb.append("[0]");
-        for (int i = 1; i < numDimensions; i++) sb.append("[]");
-        return sb.toString();
+    private void addEmptyValue(Bytecode code, ClassPool pool, Method factory) throws NotFoundException {
+        code.addInvokestatic(pool.get(factory.getDeclaringClass().getName()), factory.getName(),
+                             "()" + Descriptor.of(factory.getReturnType().getName()));
     }
 
-    private String createStubCreationBody(String name) {
-        return "return (" + name + ") " + Stub.class.getName() + ".createNiceStub(" + name + ".class, new java.lang.Object[0]);";
+    // The value is created once per call site, when it is linked, and returned by every later call.
+    private void addLinkedConstant(Bytecode code, CtClass stubClass, Bootstrap bootstrap, String name, CtClass returnType) {
+        bootstrap.addInvokedynamic(code, stubClass, name, "()" + Descriptor.of(returnType));
     }
 }
@@ -0,0 +1,115 @@
+package com.meterware.simplestub.generation.javassist;
+/*
+ * Copyright (c) 2026 Russell Gold
+ *
+ * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
+ */
+import java.util.List;
+
+import com.meterware.simplestub.InvocationCounters;
+import javassist.CannotCompileException;
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.CtField;
+import javassist.CtMethod;
+import javassist.CtNewMethod;
+import javassist.Modifier;
+import javassist.NotFoundException;
+import javassist.bytecode.Bytecode;
+import javassist.bytecode.Descriptor;
+import javassist.bytecode.MethodInfo;
+import javassist.bytecode.Opcode;
+
+/**
+ * An object created by each instance of a stub, which its generated methods update. The object is held in
+ * a private field, and obtained through a method of an interface which the stub implements. Objects which
+ * track calls by method index are created with the ids of the generated methods, and are notified of each call
+ * through a method which takes the index.
+ *
+ * @author Russell Gold
+ */
+class OwnedObject {
+
+    static final OwnedObject JOURNAL = new OwnedObject("RecordingStub", "InvocationJournal", "invocationJournal$", "getInvocationJournal", null);
+    static final OwnedObject COUNTERS = new OwnedObject("CountingStub", "InvocationCounters", "invocationCounters$", "getInvocationCounters", "increment");
+    static final OwnedObject BUDGET = new OwnedObject("BudgetedStub", "CallBudget", "callBudget$", "getCallBudget", "charge");
+    static final OwnedObject LATENCY = new OwnedObject("LatencyStub", "LatencySimulator", "latencySimulator$", "getLatencySimulator", "delay");
+
+    private static final String PACKAGE_PREFIX = "com.meterware.simplestub.";
+
+    private final String interfaceName;
+    private final String className;
+    private final String fieldName;
+    private final String accessorName;
+    private final String accessorDescriptor;
+    private final String callNotificationName;
+
+    private OwnedObject(String interfaceName, String className, String fieldName, String accessorName, String callNotificationName) {
+        this.interfaceName = PACKAGE_PREFIX + interfaceName;
+        this.className = PACKAGE_PREFIX + className;
+        this.fieldName = fieldName;
+        this.accessorName = accessorName;
+        this.accessorDescriptor = "()" + Descriptor.of(this.className);
+        this.callNotificationName = callNotificationName;
+    }
+
+    String getClassName() {
+        return className;
+    }
+
+    /**
+     * Adds the interface, the field which holds the object and the interface method which returns it.
+     */
+    void addTo(CtClass ctClass, ClassPool pool) throws NotFoundException, CannotCompileException {
+        ctClass.addInterface(pool.get(interfaceName));
+        CtField field = new CtField(pool.get(className), fieldName, ctClass);
+        field.setModifiers(Modifier.PRIVATE | Modifier.FINAL);
+        ctClass.addField(field);
+        ctClass.addMethod(CtNewMethod.getter(accessorName, field));
+    }
+
+    /**
+     * Adds instructions which create the object and store it in its field. A constructor executes them before it
+     * calls the superclass constructor, so that the object exists if that constructor calls a generated method.
+     * The verifier allows a constructor to set the fields of its own class before then.
+     * @param methods the methods to be generated, in order of their indices
+     */
+    void addInitialization(Bytecode code, CtClass ctClass, List<CtMethod> methods) {
+        code.addAload(0);
+        code.addNew(className);
+        code.addOpcode(Opcode.DUP);
+        if (callNotificationName == null) {
+            code.addInvokespecial(className, MethodInfo.nameInit, "()V");
+        } else {
+            code.addLdc(getMethodIds(methods));
+            code.addInvokespecial(className, MethodInfo.nameInit, "(Ljava/lang/String;)V");
+        }
+        code.addPutfield(ctClass, fieldName, Descriptor.of(className));
+    }
+
+    private String getMethodIds(List<CtMethod> methods) {
+        StringBuilder sb = new StringBuilder();
+        for (CtMethod method : methods) {
+            if (sb.length() > 0) sb.append(InvocationCounters.METHOD_ID_SEPARATOR);
+            sb.append(MethodGenerator.getMethodId(method));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Adds instructions which push the object onto the stack, from within a generated method.
+     */
+    void addAccess(Bytecode code) {
+        code.addAload(0);
+        code.addInvokeinterface(interfaceName, accessorName, accessorDescriptor, 1);
+    }
+
+    /**
+     * Adds instructions which notify the object of a call to a generated method.
+     */
+    void addCallNotification(Bytecode code, int methodIndex) {
+        addAccess(code);
+        code.addIconst(methodIndex);
+        code.addInvokevirtual(className, callNotificationName, "(I)V");
+    }
+}
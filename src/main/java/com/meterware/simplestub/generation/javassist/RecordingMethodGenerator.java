@@ -0,0 +1,100 @@
+package com.meterware.simplestub.generation.javassist;
+/*
+ * Copyright (c) 2026 Russell Gold
+ *
+ * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
+ */
+import javassist.CtClass;
+import javassist.CtMethod;
+import javassist.NotFoundException;
+import javassist.bytecode.Bytecode;
+import javassist.bytecode.Opcode;
+
+/**
+ * Generates methods which record each call in the journal of the stub, then return as a default stub would.
+ * Primitive arguments are widened to longs, rather than boxed.
+ *
+ * @author Russell Gold
+ */
+class RecordingMethodGenerator extends DefaultMethodGenerator {
+
+    private static final String RECORD_DESCRIPTOR = "(Ljava/lang/String;[J[Ljava/lang/Object;)V";
+
+    @Override
+    public void addBody(Bytecode code, CtClass stubClass, CtMethod method, int methodIndex) throws NotFoundException {
+        CtClass[] parameterTypes = method.getParameterTypes();
+        OwnedObject.JOURNAL.addAccess(code);
+        code.addLdc(MethodGenerator.getMethodId(method));
+        addPrimitiveArguments(code, parameterTypes);
+        addReferenceArguments(code, parameterTypes);
+        code.addInvokevirtual(OwnedObject.JOURNAL.getClassName(), "record", RECORD_DESCRIPTOR);
+        addDefaultReturn(code, method.getReturnType());
+    }
+
+    private void addPrimitiveArguments(Bytecode code, CtClass[] parameterTypes) {
+        int count = 0;
+        for (CtClass type : parameterTypes)
+            if (type.isPrimitive()) count++;
+
+        if (count == 0) {
+            code.addOpcode(Opcode.ACONST_NULL);
+            return;
+        }
+
+        code.addNewarray(Opcode.T_LONG, count);
+        int index = 0;
+        int slot = 1;
+        for (CtClass type : parameterTypes) {
+            if (type.isPrimitive()) {
+                code.addOpcode(Opcode.DUP);
+                code.addIconst(index++);
+                slot += code.addLoad(slot, type);
+                widenToLong(code, type);
+                code.addOpcode(Opcode.LASTORE);
+            } else {
+                slot++;
+            }
+        }
+    }
+
+    private void widenToLong(Bytecode code, CtClass type) {
+        if (type == CtClass.longType)
+            return;
+        else if (type == CtClass.doubleType)
+            code.addInvokestatic("java.lang.Double", "doubleToRawLongBits", "(D)J");
+        else if (type == CtClass.floatType) {
+            code.addInvokestatic("java.lang.Float", "floatToRawIntBits", "(F)I");
+            code.addOpcode(Opcode.I2L);
+        } else
+            code.addOpcode(Opcode.I2L);
+    }
+
+    private void addReferenceArguments(Bytecode code, CtClass[] parameterTypes) {
+        int count = 0;
+        for (CtClass type : parameterTypes)
+            if (!type.isPrimitive()) count++;
+
+        if (count == 0) {
+            code.addOpcode(Opcode.ACONST_NULL);
+            return;
+        }
+
+        code.addIconst(count);
+        code.addAnewarray("java.lang.Object");
+        int index = 0;
+        int slot = 1;
+        for (CtClass type : parameterTypes) {
+            if (!type.isPrimitive()) {
+                code.addOpcode(Opcode.DUP);
+                code.addIconst(index++);
+                code.addAload(slot);
+                code.addOpcode(Opcode.AASTORE);
+            }
+            slot += getSize(type);
+        }
+    }
+
+    private int getSize(CtClass type) {
+        return type == CtClass.longType || type == CtClass.doubleType ? 2 : 1;
+    }
+}
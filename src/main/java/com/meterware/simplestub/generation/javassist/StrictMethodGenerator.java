@@ -1,21 +1,30 @@
 package com.meterware.simplestub.generation.javassist;
 /*
- * Copyright (c) 2016 Russell Gold
+ * Copyright (c) 2016-2026 Russell Gold
  *
  * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
  */
 import javassist.CtClass;
 import javassist.CtMethod;
 import javassist.NotFoundException;
+import javassist.bytecode.Bytecode;
+import javassist.bytecode.Opcode;
 
 /**
+ * Generates methods which throw an exception, obtained from a call site linked by
+ * <code>StrictStubBootstraps</code>.
+ *
  * @author Russell Gold
  */
 class StrictMethodGenerator implements MethodGenerator {
+
+    private static final Bootstrap UNEXPECTED_CALL_BOOTSTRAP = new Bootstrap("com.meterware.simplestub.StrictStubBootstraps", "unexpectedCall", 1);
+    private static final String UNEXPECTED_CALL_DESCRIPTOR = "()Lcom/meterware/simplestub/UnexpectedMethodCallException;";
+
     @Override
-    public String createBody(CtMethod method) throws NotFoundException {
-        return "{ throw new com.meterware.simplestub.UnexpectedMethodCallException( \"" +
-                        getUnexpectedCallMessage(method) + "\"); }";
+    public void addBody(Bytecode code, CtClass stubClass, CtMethod method, int methodIndex) throws NotFoundException {
+        UNEXPECTED_CALL_BOOTSTRAP.addInvokedynamic(code, stubClass, "unexpectedCall", UNEXPECTED_CALL_DESCRIPTOR, getUnexpectedCallMessage(method));
+        code.addOpcode(Opcode.ATHROW);
     }
 
     private String getUnexpectedCallMessage(CtMethod method) throws NotFoundException {
@@ -0,0 +1,104 @@
+package com.meterware.simplestub;
+/*
+ * Copyright (c) 2018-2026 Russell Gold
+ *
+ * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
+ */
+
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Utilities to handle JDK-15 or later functionality for defining classes. Note that, due to lack of good tooling
+ * support for multi-release jars, this class may not have any dependencies on the rest of SimpleStub. That allows
+ * it to be compiled independently.
+ *
+ * @author Russell Gold
+ */
+public class ClassUtils {
+
+    /** Lookups with full access to each anchor class, created once for each anchor. */
+    private static final ClassValue<MethodHandles.Lookup> privateLookups = new ClassValue<MethodHandles.Lookup>() {
+        @Override
+        protected MethodHandles.Lookup computeValue(Class<?> anchorClass) {
+            try {
+                return MethodHandles.privateLookupIn(anchorClass, MethodHandles.lookup());
+            } catch (IllegalAccessException e) {
+                throw new UndeclaredThrowableException(e);
+            }
+        }
+    };
+
+    /** Lookups which may define classes in the package of each anchor class, created once for each anchor. */
+    private static final ClassValue<MethodHandles.Lookup> packageLookups = new ClassValue<MethodHandles.Lookup>() {
+        @Override
+        protected MethodHandles.Lookup computeValue(Class<?> anchorClass) {
+            return privateLookups.get(anchorClass).dropLookupMode(MethodHandles.Lookup.PRIVATE);
+        }
+    };
+
+    /**
+     * Defines a new class from bytecode. The class will be defined in the classloader and package associated with a
+     * specified 'anchor class'.
+     *
+     * @param anchorClass the class from which the package and classloader of the new class are to be taken.
+     * @param className the name of the class to define
+     * @param classBytes the bytes used to define the class
+     * @return a new instantiable class, in the package and classloader of the anchor class.
+     */
+    public static Class<?> defineClass(Class<?> anchorClass, String className, byte[] classBytes) throws IllegalAccessException {
+        return getPackageLookup(anchorClass).defineClass(classBytes);
+    }
+
+    /**
+     * Defines new classes from bytecode, in the classloader and package associated with a specified 'anchor class'.
+     * The classes are defined in the iteration order of the map, so the superclass and interfaces of each class
+     * must either already be loadable, or precede it.
+     *
+     * @param anchorClass the class from which the package and classloader of the new classes are to be taken.
+     * @param classes the bytes used to define each class, mapped by class name
+     * @return the new classes, mapped by class name, in the order in which they were defined
+     * @since 1.3.4
+     */
+    public static Map<String, Class<?>> defineClasses(Class<?> anchorClass, Map<String, byte[]> classes) throws IllegalAccessException {
+        MethodHandles.Lookup lookup = getPackageLookup(anchorClass);
+        Map<String, Class<?>> definedClasses = new LinkedHashMap<>();
+        for (Map.Entry<String, byte[]> entry : classes.entrySet())
+            definedClasses.put(entry.getKey(), lookup.defineClass(entry.getValue()));
+        return definedClasses;
+    }
+
+    private static MethodHandles.Lookup getPackageLookup(Class<?> anchorClass) throws IllegalAccessException {
+        return getLookup(packageLookups, anchorClass);
+    }
+
+    // A lookup which cannot be created is not cached, so each attempt to create it reports the failure.
+    private static MethodHandles.Lookup getLookup(ClassValue<MethodHandles.Lookup> lookups, Class<?> anchorClass) throws IllegalAccessException {
+        try {
+            return lookups.get(anchorClass);
+        } catch (UndeclaredThrowableException e) {
+            throw (IllegalAccessException) e.getUndeclaredThrowable();
+        }
+    }
+
+    /**
+     * Defines a new hidden class from bytecode, which may be unloaded once it is no longer referenced. The class will be
+     * in the package associated with a specified 'anchor class', but cannot be found by name. Hidden classes may only
+     * be defined with full access to the anchor class, which is not available if it is in a different module;
+     * in that case, this is the same as {@link #defineClass}.
+     *
+     * @param anchorClass the class from which the package and classloader of the new class are to be taken.
+     * @param className the name of the class to define
+     * @param classBytes the bytes used to define the class
+     * @return a new instantiable class, in the package of the anchor class.
+     */
+    public static Class<?> defineUnloadableClass(Class<?> anchorClass, String className, byte[] classBytes) throws IllegalAccessException {
+        MethodHandles.Lookup lookup = getLookup(privateLookups, anchorClass);
+        if (!lookup.hasFullPrivilegeAccess())
+            return defineClass(anchorClass, className, classBytes);
+
+        return lookup.defineHiddenClass(classBytes, true).lookupClass();
+    }
+}
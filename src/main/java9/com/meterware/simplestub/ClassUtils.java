@@ -1,11 +1,14 @@
 package com.meterware.simplestub;
 /*
- * Copyright (c) 2018 Russell Gold
+ * Copyright (c) 2018-2026 Russell Gold
  *
  * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
  */
 
 import java.lang.invoke.MethodHandles;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * Utilities to handle JDK-9 or later functionality for defining classes. Note that, due to lack of good tooling
@@ -16,6 +19,18 @@ import java.lang.invoke.MethodHandles;
  */
 public class ClassUtils {
 
+    /** Lookups which may define classes in the package of each anchor class, created once for each anchor. */
+    private static final ClassValue<MethodHandles.Lookup> packageLookups = new ClassValue<MethodHandles.Lookup>() {
+        @Override
+        protected MethodHandles.Lookup computeValue(Class<?> anchorClass) {
+            try {
+                return MethodHandles.privateLookupIn(anchorClass, MethodHandles.lookup()).dropLookupMode(MethodHandles.Lookup.PRIVATE);
+            } catch (IllegalAccessException e) {
+                throw new UndeclaredThrowableException(e);
+            }
+        }
+    };
+
     /**
      * Defines a new class from bytecode. The class will be defined in the classloader and package associated with a
      * specified 'anchor class'.
@@ -26,8 +41,46 @@ public class ClassUtils {
      * @return a new instantiable class, in the package and classloader of the anchor class.
      */
     public static Class<?> defineClass(Class<?> anchorClass, String className, byte[] classBytes) throws IllegalAccessException {
-        MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(anchorClass, MethodHandles.lookup())
-                                            .dropLookupMode(MethodHandles.Lookup.PRIVATE);
-        return lookup.defineClass(classBytes);
+        return getPackageLookup(anchorClass).defineClass(classBytes);
+    }
+
+    /**
+     * Defines new classes from bytecode, in the classloader and package associated with a specified 'anchor class'.
+     * The classes are defined in the iteration order of the map, so the superclass and interfaces of each class
+     * must either already be loadable, or precede it.
+     *
+     * @param anchorClass the class from which the package and classloader of the new classes are to be taken.
+     * @param classes the bytes used to define each class, mapped by class name
+     * @return the new classes, mapped by class name, in the order in which they were defined
+     * @since 1.3.4
+     */
+    public static Map<String, Class<?>> defineClasses(Class<?> anchorClass, Map<String, byte[]> classes) throws IllegalAccessException {
+        MethodHandles.Lookup lookup = getPackageLookup(anchorClass);
+        Map<String, Class<?>> definedClasses = new LinkedHashMap<>();
+        for (Map.Entry<String, byte[]> entry : classes.entrySet())
+            definedClasses.put(entry.getKey(), lookup.defineClass(entry.getValue()));
+        return definedClasses;
+    }
+
+    private static MethodHandles.Lookup getPackageLookup(Class<?> anchorClass) throws IllegalAccessException {
+        try {
+            return packageLookups.get(anchorClass);
+        } catch (UndeclaredThrowableException e) {
+            throw (IllegalAccessException) e.getUndeclaredThrowable();
+        }
+    }
+
+    /**
+     * Defines a new class from bytecode, which may be unloaded once it is no longer referenced. The class will be
+     * in the package associated with a specified 'anchor class'. Such classes are only supported in JDK 15 and later;
+     * for earlier JDKs, this is the same as {@link #defineClass}.
+     *
+     * @param anchorClass the class from which the package and classloader of the new class are to be taken.
+     * @param className the name of the class to define
+     * @param classBytes the bytes used to define the class
+     * @return a new instantiable class, in the package of the anchor class.
+     */
+    public static Class<?> defineUnloadableClass(Class<?> anchorClass, String className, byte[] classBytes) throws IllegalAccessException {
+        return defineClass(anchorClass, className, classBytes);
     }
 }
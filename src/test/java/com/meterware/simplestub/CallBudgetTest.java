@@ -0,0 +1,54 @@
+package com.meterware.simplestub;
+/*
+ * Copyright (c) 2026 Russell Gold
+ *
+ * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
+ */
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests for the call budgets of budgeted stubs.
+ *
+ * @author Russell Gold
+ */
+class CallBudgetTest {
+
+    private final CallBudget budget = new CallBudget("run()V\nfind(I)V\nfind(J)V");
+
+    @Test
+    void whenLimitSetByName_limitEachOverload() {
+        budget.limit("find", 1);
+        budget.charge(1);
+        budget.charge(2);
+
+        assertThrows(CallBudgetExceededException.class, () -> budget.charge(2));
+        assertThat(budget.getCount("find"), equalTo(3L));
+    }
+
+    @Test
+    void whenLimitSetById_limitOnlyThatOverload() {
+        budget.limit("find(J)V", 0);
+        budget.charge(1);
+
+        assertThrows(CallBudgetExceededException.class, () -> budget.charge(2));
+    }
+
+    @Test
+    void whenLimitSetForUnknownMethod_throwException() {
+        assertThrows(SimpleStubException.class, () -> budget.limit("fin", 1));
+    }
+
+    @Test
+    void afterReset_budgetIsAvailableAgain() {
+        budget.limit("run", 1).limitTotal(1);
+        budget.charge(0);
+        budget.reset();
+
+        budget.charge(0);
+        assertThat(budget.getTotalCount(), equalTo(1L));
+    }
+}
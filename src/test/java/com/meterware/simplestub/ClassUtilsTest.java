@@ -0,0 +1,77 @@
+package com.meterware.simplestub;
+/*
+ * Copyright (c) 2026 Russell Gold
+ *
+ * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
+ */
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.meterware.simplestub.generation.StubGenerator;
+import com.meterware.simplestub.generation.StubKind;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests the definition of classes from bytecode.
+ *
+ * @author Russell Gold
+ */
+class ClassUtilsTest {
+
+    @Test
+    void whenClassesDefinedTogether_returnThemInOrder() throws Exception {
+        Map<String, byte[]> classes = new LinkedHashMap<>();
+        addStubClass(classes, BatchClass.class, StubKind.DEFAULT);
+        addStubClass(classes, BatchClass.class, StubKind.NICE);
+
+        Map<String, Class<?>> definedClasses = defineClasses(BatchClass.class, classes);
+
+        assertThat(definedClasses.keySet(), contains(classes.keySet().toArray()));
+        for (Map.Entry<String, Class<?>> entry : definedClasses.entrySet()) {
+            assertThat(entry.getValue().getName(), equalTo(entry.getKey()));
+            assertThat(entry.getValue().getClassLoader(), sameInstance(BatchClass.class.getClassLoader()));
+            assertThat(entry.getValue().getDeclaredConstructor().newInstance(), instanceOf(BatchClass.class));
+        }
+    }
+
+    @Test
+    void whenClassDefinedTwice_throwLinkageError() throws Exception {
+        Map<String, byte[]> classes = new LinkedHashMap<>();
+        addStubClass(classes, DuplicateClass.class, StubKind.DEFAULT);
+        defineClasses(DuplicateClass.class, classes);
+
+        InvocationTargetException thrown = assertThrows(InvocationTargetException.class, () -> defineClasses(DuplicateClass.class, classes));
+
+        assertThat(thrown.getCause(), instanceOf(LinkageError.class));
+    }
+
+    private void addStubClass(Map<String, byte[]> classes, Class<?> baseClass, StubKind kind) {
+        String stubClassName = baseClass.getName() + "$Batch" + kind.getStubClassSuffix();
+        classes.put(stubClassName, StubGenerator.create(baseClass, kind).generateStubClassBytes(stubClassName));
+    }
+
+    // ClassUtils is compiled for the running JDK, so the tests, compiled for JDK 8, must access it reflectively
+    @SuppressWarnings("unchecked")
+    private Map<String, Class<?>> defineClasses(Class<?> anchorClass, Map<String, byte[]> classes) throws ReflectiveOperationException {
+        Method defineClasses = Class.forName("com.meterware.simplestub.ClassUtils").getMethod("defineClasses", Class.class, Map.class);
+        return (Map<String, Class<?>>) defineClasses.invoke(null, anchorClass, classes);
+    }
+
+    abstract static class DuplicateClass {
+        abstract String getName();
+    }
+
+    abstract static class BatchClass {
+        abstract String getName();
+    }
+}
@@ -0,0 +1,118 @@
+package com.meterware.simplestub;
+/*
+ * Copyright (c) 2026 Russell Gold
+ *
+ * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
+ */
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.meterware.simplestub.generation.StubGenerator;
+import com.meterware.simplestub.generation.StubKind;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Tests the definition of stubs as hidden classes, which may be unloaded.
+ *
+ * @author Russell Gold
+ */
+class HiddenStubClassTest {
+
+    private static final int NUM_STUBS = 100_000;
+    private static final long MAX_METASPACE_GROWTH = 16 * 1024 * 1024;
+
+    private final List<Memento> mementos = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        assumeTrue(SystemUtils.getJavaVersion() >= 15);
+        mementos.add(SystemPropertySupport.install(Stub.HIDDEN_CLASSES_PROPERTY, "true"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        mementos.forEach(Memento::revert);
+    }
+
+    @Test
+    void whenHiddenClassesEnabled_stubClassIsHidden() {
+        HiddenClass stub = Stub.createStub(HiddenClass.class);
+
+        assertThat(stub, instanceOf(HiddenClass.class));
+        assertThat(stub.getClass().getName(), containsString("/"));
+    }
+
+    @Test
+    void whenStubNoLongerReferenced_stubClassIsUnloaded() throws InterruptedException {
+        WeakReference<Class<?>> stubClassReference = new WeakReference<>(Stub.createStub(UnloadableClass.class).getClass());
+
+        for (int i = 0; i < 10 && stubClassReference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        assertThat(stubClassReference.get(), nullValue());
+    }
+
+    @Test
+    void whenManyStubsDefined_metaspaceDoesNotGrow() throws Exception {
+        MemoryPoolMXBean metaspace = getMetaspacePool();
+        assumeTrue(metaspace != null);
+
+        String stubClassName = RepeatedClass.class.getName() + StubKind.DEFAULT.getStubClassSuffix();
+        byte[] classBytes = StubGenerator.create(RepeatedClass.class, StubKind.DEFAULT).generateStubClassBytes(stubClassName);
+        Method defineUnloadableClass = getDefineUnloadableClassMethod();
+        long initialUsage = getUsageAfterGc(metaspace);
+
+        for (int i = 0; i < NUM_STUBS; i++)
+            ((Class<?>) defineUnloadableClass.invoke(null, RepeatedClass.class, stubClassName, classBytes)).getDeclaredConstructor().newInstance();
+
+        assertThat(getUsageAfterGc(metaspace) - initialUsage, lessThan(MAX_METASPACE_GROWTH));
+    }
+
+    // ClassUtils is compiled for the running JDK, so the tests, compiled for JDK 8, must access it reflectively
+    private Method getDefineUnloadableClassMethod() throws ReflectiveOperationException {
+        return Class.forName("com.meterware.simplestub.ClassUtils")
+                    .getMethod("defineUnloadableClass", Class.class, String.class, byte[].class);
+    }
+
+    private MemoryPoolMXBean getMetaspacePool() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+            if (pool.getName().equals("Metaspace")) return pool;
+        return null;
+    }
+
+    private long getUsageAfterGc(MemoryPoolMXBean metaspace) throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        return metaspace.getUsage().getUsed();
+    }
+
+    abstract static class HiddenClass {
+        abstract int getValue();
+    }
+
+    abstract static class UnloadableClass {
+        abstract String getName();
+    }
+
+    abstract static class RepeatedClass {
+        abstract boolean isSet();
+    }
+}
@@ -0,0 +1,54 @@
+package com.meterware.simplestub;
+/*
+ * Copyright (c) 2026 Russell Gold
+ *
+ * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
+ */
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Tests for the counters kept by counting stubs.
+ *
+ * @author Russell Gold
+ */
+class InvocationCountersTest {
+
+    private final InvocationCounters counters = new InvocationCounters("run()V\nsetValue(I)V\nsetValue(J)V");
+
+    @Test
+    void counts_areReportedInMethodOrder() {
+        counters.increment(2);
+        counters.increment(0);
+        counters.increment(2);
+
+        assertThat(counters.getCounts().keySet(), contains("run()V", "setValue(I)V", "setValue(J)V"));
+        assertThat(counters.getCounts().values(), contains(1L, 0L, 2L));
+    }
+
+    @Test
+    void countByName_includesAllOverloads() {
+        counters.increment(1);
+        counters.increment(2);
+
+        assertThat(counters.getCount("setValue"), equalTo(2L));
+        assertThat(counters.getCount("set"), equalTo(0L));
+    }
+
+    @Test
+    void afterReset_countsAreZero() {
+        counters.increment(0);
+        counters.reset();
+
+        assertThat(counters.getCount("run"), equalTo(0L));
+    }
+
+    @Test
+    void whenNoMethods_countsAreEmpty() {
+        assertThat(new InvocationCounters("").getCounts().isEmpty(), is(true));
+    }
+}
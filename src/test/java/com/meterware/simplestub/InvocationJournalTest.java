@@ -0,0 +1,130 @@
+package com.meterware.simplestub;
+/*
+ * Copyright (c) 2026 Russell Gold
+ *
+ * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
+ */
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests for the journal kept by recording stubs.
+ *
+ * @author Russell Gold
+ */
+class InvocationJournalTest {
+
+    private static final String METHOD_ID = "setValue(ILjava/lang/String;)V";
+
+    @Test
+    void capacity_isRoundedUpToPowerOfTwo() {
+        assertThat(new InvocationJournal(5).getCapacity(), equalTo(8));
+        assertThat(new InvocationJournal(8).getCapacity(), equalTo(8));
+    }
+
+    @Test
+    void whenCapacityInvalid_throwException() {
+        assertThrows(IllegalArgumentException.class, () -> new InvocationJournal(0));
+    }
+
+    @Test
+    void whenJournalFull_retainMostRecentInvocations() {
+        InvocationJournal journal = new InvocationJournal(4);
+        for (int i = 0; i < 10; i++)
+            journal.record(METHOD_ID, new long[] {i}, new Object[] {"value" + i});
+
+        assertThat(getIntArguments(journal.getInvocations()), contains(6, 7, 8, 9));
+        assertThat(journal.getRecordedCount(), equalTo(10L));
+    }
+
+    private List<Integer> getIntArguments(List<Invocation> invocations) {
+        List<Integer> values = new ArrayList<>();
+        for (Invocation invocation : invocations)
+            values.add(invocation.getIntArgument(0));
+        return values;
+    }
+
+    @Test
+    void whenJournalCleared_discardRecordedInvocations() {
+        InvocationJournal journal = new InvocationJournal(4);
+        journal.record(METHOD_ID, new long[] {1}, new Object[] {"one"});
+        journal.clear();
+        journal.record(METHOD_ID, new long[] {2}, new Object[] {"two"});
+
+        assertThat(getIntArguments(journal.getInvocations()), contains(2));
+        assertThat(journal.getRecordedCount(), equalTo(1L));
+    }
+
+    @Test
+    void selectInvocationsByMethodName() {
+        InvocationJournal journal = new InvocationJournal(4);
+        journal.record("run()V", null, null);
+        journal.record(METHOD_ID, new long[] {1}, new Object[] {"one"});
+
+        assertThat(journal.getInvocations("setValue"), hasSize(1));
+        assertThat(journal.getInvocations("getValue"), empty());
+    }
+
+    @Test
+    void invocation_reportsMethodAndArguments() {
+        InvocationJournal journal = new InvocationJournal(4);
+        journal.record(METHOD_ID, new long[] {12}, new Object[] {"twelve"});
+        Invocation invocation = journal.getInvocations().get(0);
+
+        assertThat(invocation.getMethodName(), equalTo("setValue"));
+        assertThat(invocation.getMethodDescriptor(), equalTo("(ILjava/lang/String;)V"));
+        assertThat(invocation.toString(), equalTo("setValue(12, twelve)"));
+    }
+
+    @Test
+    void whenArgumentReadAsWrongType_throwException() {
+        InvocationJournal journal = new InvocationJournal(4);
+        journal.record(METHOD_ID, new long[] {12}, new Object[] {"twelve"});
+
+        assertThrows(IllegalArgumentException.class, () -> journal.getInvocations().get(0).getLongArgument(0));
+    }
+
+    @Test
+    void whenRecordedConcurrently_retainAllInvocations() throws Exception {
+        final int numThreads = 4;
+        final int callsPerThread = 1000;
+        InvocationJournal journal = new InvocationJournal(numThreads * callsPerThread);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < numThreads; i++)
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int j = 0; j < callsPerThread; j++)
+                        journal.record(METHOD_ID, new long[] {j}, new Object[] {null});
+                    return null;
+                }));
+            start.countDown();
+            for (Future<?> future : futures)
+                future.get(10, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdown();
+        }
+
+        List<Invocation> invocations = journal.getInvocations();
+        assertThat(invocations, hasSize(numThreads * callsPerThread));
+        for (int i = 1; i < invocations.size(); i++)
+            assertThat(invocations.get(i).getSequence(), greaterThanOrEqualTo(invocations.get(i - 1).getSequence() + 1));
+    }
+}
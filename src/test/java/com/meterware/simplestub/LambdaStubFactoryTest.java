@@ -0,0 +1,138 @@
+package com.meterware.simplestub;
+/*
+ * Copyright (c) 2026 Russell Gold
+ *
+ * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
+ */
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+import com.meterware.simplestub.generation.StubKind;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.emptyArray;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests for stubs of functional interfaces, created without generating stub classes.
+ *
+ * @author Russell Gold
+ */
+class LambdaStubFactoryTest {
+
+    @Test
+    void whenFunctionalInterfaceStubbed_doNotGenerateStubClass() {
+        IntSupplier stub = Stub.createStub(IntSupplier.class);
+
+        assertThat(stub.getClass().getName(), not(containsString(StubKind.DEFAULT.getStubClassSuffix())));
+        assertThat(stub.getAsInt(), equalTo(0));
+    }
+
+    @Test
+    void eachLambdaStub_isNewInstance() {
+        assertThat(Stub.createStub(Runnable.class), not(sameInstance(Stub.createStub(Runnable.class))));
+    }
+
+    @Test
+    void defaultLambdaStub_returnsNull() throws Exception {
+        Callable<String> stub = Stub.createStub(Callable.class);
+        Consumer<String> consumer = Stub.createStub(Consumer.class);
+
+        consumer.accept("ignored");
+        assertThat(stub.call(), nullValue());
+    }
+
+    @Test
+    void niceLambdaStub_returnsNiceValues() throws Exception {
+        assertThat(Stub.createNiceStub(StringSource.class).get(), equalTo(""));
+        assertThat(Stub.createNiceStub(ListSource.class).get(), empty());
+        assertThat(Stub.createNiceStub(ArraySource.class).get(), emptyArray());
+        assertThat(Stub.createNiceStub(RunnableSource.class).get(), instanceOf(Runnable.class));
+    }
+
+    @Test
+    void niceLambdaStub_reusesNestedStub() {
+        RunnableSource stub = Stub.createNiceStub(RunnableSource.class);
+
+        assertThat(stub.get(), sameInstance(stub.get()));
+    }
+
+    @Test
+    void strictLambdaStub_throwsUnexpectedMethodCallException() {
+        Comparator<String> stub = Stub.createStrictStub(Comparator.class);
+
+        UnexpectedMethodCallException exception = assertThrows(UnexpectedMethodCallException.class, () -> stub.compare("a", "b"));
+        assertThat(exception.getMessage(),
+                   equalTo("Unexpected call to method java.util.Comparator.compare(java.lang.Object,java.lang.Object)"));
+    }
+
+    @Test
+    void factoryForFunctionalInterface_createsLambdaStubs() {
+        StubFactory<Supplier> factory = Stub.factory(Supplier.class, StubKind.NICE);
+
+        assertThat(factory.create(), notNullValue());
+        assertThrows(SimpleStubException.class, () -> factory.create("unexpected"));
+    }
+
+    @Test
+    void whenInterfaceNotPublic_generateStubClass() {
+        assertThat(Stub.createStub(PackagePrivateSupplier.class).getClass().getName(),
+                   containsString(StubKind.DEFAULT.getStubClassSuffix()));
+    }
+
+    @Test
+    void whenInterfaceNeedsBridgeMethod_generateStubClass() {
+        StringConsumer stub = Stub.createStub(StringConsumer.class);
+
+        stub.accept("value");
+        assertThat(stub.getClass().getName(), containsString(StubKind.DEFAULT.getStubClassSuffix()));
+    }
+
+    @Test
+    void whenInterfaceHasSeveralMethods_generateStubClass() {
+        assertThat(Stub.createStub(List.class).getClass().getName(), containsString(StubKind.DEFAULT.getStubClassSuffix()));
+    }
+
+    @Test
+    void whenStubRecordsCalls_generateStubClass() {
+        assertThat(Stub.createRecordingStub(Runnable.class), instanceOf(RecordingStub.class));
+    }
+
+    public interface StringSource {
+        String get();
+    }
+
+    public interface ListSource {
+        List<String> get();
+    }
+
+    public interface ArraySource {
+        String[] get();
+    }
+
+    public interface RunnableSource {
+        Runnable get();
+    }
+
+    interface PackagePrivateSupplier {
+        String get();
+    }
+
+    public interface StringConsumer extends Consumer<String> {
+        @Override
+        void accept(String value);
+    }
+}
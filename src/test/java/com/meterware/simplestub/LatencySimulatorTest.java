@@ -0,0 +1,129 @@
+package com.meterware.simplestub;
+/*
+ * Copyright (c) 2026 Russell Gold
+ *
+ * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
+ */
+import java.time.Duration;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests for the latencies and throughput limits of latency stubs.
+ *
+ * @author Russell Gold
+ */
+class LatencySimulatorTest {
+
+    private static final int NUM_SAMPLES = 10_001;
+
+    private final LatencySimulator simulator = new LatencySimulator("run()V\nfind(I)V\nfind(J)V");
+
+    @Test
+    void fixedLatency_alwaysReturnsSameDelay() {
+        Latency latency = Latency.fixed(Duration.ofMillis(3));
+
+        assertThat(latency.nextDelayNanos(), equalTo(3_000_000L));
+        assertThat(latency.nextDelayNanos(), equalTo(3_000_000L));
+    }
+
+    @Test
+    void uniformLatency_returnsDelaysWithinLimits() {
+        Latency latency = Latency.uniform(Duration.ofNanos(100), Duration.ofNanos(200));
+
+        for (long delay : sample(latency))
+            assertThat(delay, allOf(greaterThanOrEqualTo(100L), lessThanOrEqualTo(200L)));
+    }
+
+    private long[] sample(Latency latency) {
+        long[] delays = new long[NUM_SAMPLES];
+        for (int i = 0; i < delays.length; i++)
+            delays[i] = latency.nextDelayNanos();
+        Arrays.sort(delays);
+        return delays;
+    }
+
+    @Test
+    void logNormalLatency_hasRequestedMedianAndLongTail() {
+        long[] delays = sample(Latency.logNormal(Duration.ofNanos(1_000_000), 1.0));
+
+        assertThat(delays[NUM_SAMPLES / 2], allOf(greaterThanOrEqualTo(900_000L), lessThanOrEqualTo(1_100_000L)));
+        assertThat(delays[NUM_SAMPLES * 99 / 100], greaterThanOrEqualTo(5_000_000L));
+    }
+
+    @Test
+    void whenLatencyInvalid_throwException() {
+        assertThrows(IllegalArgumentException.class, () -> Latency.fixed(Duration.ofMillis(-1)));
+        assertThrows(IllegalArgumentException.class, () -> Latency.uniform(Duration.ofMillis(2), Duration.ofMillis(1)));
+        assertThrows(IllegalArgumentException.class, () -> Latency.logNormal(Duration.ofMillis(1), -0.5));
+    }
+
+    @Test
+    void whenLatencySetByName_delayEachOverload() {
+        simulator.setLatency("find", Latency.fixed(Duration.ofMillis(5)));
+
+        assertThat(timeCall(1), greaterThanOrEqualTo(Duration.ofMillis(5).toNanos()));
+        assertThat(timeCall(2), greaterThanOrEqualTo(Duration.ofMillis(5).toNanos()));
+    }
+
+    private long timeCall(int methodIndex) {
+        long start = System.nanoTime();
+        simulator.delay(methodIndex);
+        return System.nanoTime() - start;
+    }
+
+    @Test
+    void whenLatencySetById_delayOnlyThatOverload() {
+        simulator.setDefaultLatency(Latency.fixed(Duration.ofMillis(1)))
+                 .setLatency("find(J)V", Latency.none());
+
+        assertThat(timeCall(1), greaterThanOrEqualTo(Duration.ofMillis(1).toNanos()));
+        assertThat(timeCall(2), lessThan(Duration.ofMillis(1).toNanos()));
+    }
+
+    @Test
+    void whenLatencySetForUnknownMethod_throwException() {
+        assertThrows(SimpleStubException.class, () -> simulator.setLatency("fin", Latency.none()));
+    }
+
+    @Test
+    void whenThroughputLimited_delayCallsBeyondBurst() {
+        simulator.limitThroughput(200, 5);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 15; i++)
+            simulator.delay(0);
+
+        assertThat(System.nanoTime() - start, greaterThanOrEqualTo(Duration.ofMillis(50).toNanos()));
+    }
+
+    @Test
+    void whenThroughputLimitRemoved_doNotDelayCalls() {
+        simulator.limitThroughput(1, 1).removeThroughputLimit();
+
+        assertThat(timeCall(0) + timeCall(0), lessThan(Duration.ofMillis(500).toNanos()));
+    }
+
+    @Test
+    void whenThreadInterrupted_returnWithoutDelay() {
+        simulator.setLatency("run", Latency.fixed(Duration.ofSeconds(10)));
+        Thread.currentThread().interrupt();
+
+        try {
+            assertThat(timeCall(0), lessThan(Duration.ofSeconds(1).toNanos()));
+            assertThat(Thread.currentThread().isInterrupted(), is(true));
+        } finally {
+            Thread.interrupted();
+        }
+    }
+}
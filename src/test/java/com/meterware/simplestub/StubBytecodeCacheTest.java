@@ -0,0 +1,216 @@
+package com.meterware.simplestub;
+/*
+ * Copyright (c) 2026 Russell Gold
+ *
+ * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
+ */
+
+import java.io.File;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import com.meterware.simplestub.generation.StubGenerator;
+import com.meterware.simplestub.generation.StubKind;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+/**
+ * Tests the on-disk cache of stub bytecode.
+ *
+ * @author Russell Gold
+ */
+class StubBytecodeCacheTest {
+
+    private static final String STUB_CLASS_NAME = CachedClass.class.getName() + StubKind.DEFAULT.getStubClassSuffix();
+
+    private final List<Memento> mementos = new ArrayList<>();
+
+    @TempDir
+    Path cacheDirectory;
+
+    @TempDir
+    Path codeDirectory;
+
+    @AfterEach
+    void tearDown() {
+        mementos.forEach(Memento::revert);
+    }
+
+    @Test
+    void whenPropertyNotSet_cacheIsDisabled() {
+        mementos.add(SystemPropertySupport.preserve(StubBytecodeCache.CACHE_DIRECTORY_PROPERTY));
+        System.clearProperty(StubBytecodeCache.CACHE_DIRECTORY_PROPERTY);
+
+        assertThat(StubBytecodeCache.getInstance(), nullValue());
+    }
+
+    @Test
+    void whenPropertySet_useSpecifiedDirectory() {
+        mementos.add(SystemPropertySupport.install(StubBytecodeCache.CACHE_DIRECTORY_PROPERTY, cacheDirectory.toString()));
+
+        assertThat(StubBytecodeCache.getInstance().getDirectory(), equalTo(cacheDirectory.toFile()));
+    }
+
+    @Test
+    void whenStubFirstRequested_countMiss() {
+        StubBytecodeCache cache = createCache();
+
+        getStubClassBytes(cache, StubKind.DEFAULT);
+
+        assertThat(cache.getMissCount(), is(1L));
+        assertThat(cache.getHitCount(), is(0L));
+    }
+
+    private StubBytecodeCache createCache() {
+        return new StubBytecodeCache(cacheDirectory.toFile());
+    }
+
+    private byte[] getStubClassBytes(StubBytecodeCache cache, StubKind kind) {
+        String stubClassName = CachedClass.class.getName() + kind.getStubClassSuffix();
+        return cache.getStubClassBytes(CachedClass.class, kind, stubClassName, StubGenerator.create(CachedClass.class, kind));
+    }
+
+    @Test
+    void whenStubRequestedBySecondCache_countHit() {
+        getStubClassBytes(createCache(), StubKind.DEFAULT);
+        StubBytecodeCache cache = createCache();
+
+        getStubClassBytes(cache, StubKind.DEFAULT);
+
+        assertThat(cache.getHitCount(), is(1L));
+        assertThat(cache.getMissCount(), is(0L));
+    }
+
+    @Test
+    void whenStubCached_returnSameBytecode() {
+        byte[] generatedBytes = getStubClassBytes(createCache(), StubKind.DEFAULT);
+
+        assertThat(getStubClassBytes(createCache(), StubKind.DEFAULT), equalTo(generatedBytes));
+    }
+
+    @Test
+    void whenDifferentKindsRequested_cacheSeparately() throws Exception {
+        StubBytecodeCache cache = createCache();
+        getStubClassBytes(cache, StubKind.DEFAULT);
+        getStubClassBytes(cache, StubKind.STRICT);
+
+        assertThat(cache.getMissCount(), is(2L));
+        assertThat(countEntries(), is(2L));
+    }
+
+    private long countEntries() throws Exception {
+        try (Stream<Path> entries = Files.list(cacheDirectory)) {
+            return entries.count();
+        }
+    }
+
+    @Test
+    void whenGeneratorCodeChanges_regenerate() throws Exception {
+        StubBytecodeCache cache = createCache();
+        cache.getStubClassBytes(CachedClass.class, StubKind.DEFAULT, STUB_CLASS_NAME, loadCopiedGenerator("original"));
+
+        cache.getStubClassBytes(CachedClass.class, StubKind.DEFAULT, STUB_CLASS_NAME, loadCopiedGenerator("changed", "Added.class"));
+
+        assertThat(cache.getMissCount(), is(2L));
+    }
+
+    @Test
+    void whenSameGeneratorCodeLoadedFromAnotherDirectory_countHit() throws Exception {
+        StubBytecodeCache cache = createCache();
+        cache.getStubClassBytes(CachedClass.class, StubKind.DEFAULT, STUB_CLASS_NAME, loadCopiedGenerator("original"));
+
+        cache.getStubClassBytes(CachedClass.class, StubKind.DEFAULT, STUB_CLASS_NAME, loadCopiedGenerator("copy"));
+
+        assertThat(cache.getHitCount(), is(1L));
+    }
+
+    // Loads the generator from its own class directory, which holds only its class file and any added files.
+    private StubGenerator loadCopiedGenerator(String directoryName, String... addedFiles) throws Exception {
+        Path classDirectory = codeDirectory.resolve(directoryName);
+        String classFileName = CopiedGenerator.class.getName().replace('.', '/') + ".class";
+        Files.createDirectories(classDirectory.resolve(classFileName).getParent());
+        try (InputStream inputStream = CopiedGenerator.class.getClassLoader().getResourceAsStream(classFileName)) {
+            Files.copy(inputStream, classDirectory.resolve(classFileName));
+        }
+        for (String addedFile : addedFiles)
+            Files.write(classDirectory.resolve(addedFile), new byte[] {1, 2, 3});
+
+        ClassLoader loader = new URLClassLoader(new URL[] {classDirectory.toUri().toURL()}, new HidingClassLoader(CopiedGenerator.class));
+        return (StubGenerator) loader.loadClass(CopiedGenerator.class.getName()).getConstructor().newInstance();
+    }
+
+    static class HidingClassLoader extends ClassLoader {
+        private final String hiddenClassName;
+
+        HidingClassLoader(Class<?> hiddenClass) {
+            super(hiddenClass.getClassLoader());
+            hiddenClassName = hiddenClass.getName();
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (name.equals(hiddenClassName)) throw new ClassNotFoundException(name);
+            return super.loadClass(name, resolve);
+        }
+    }
+
+    public static class CopiedGenerator extends StubGenerator {
+        @Override
+        public Class<?> generateStubClass(String stubClassName, Class<?> anchorClass) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public byte[] generateStubClassBytes(String stubClassName) {
+            return new byte[] {(byte) 0xCA, (byte) 0xFE, (byte) 0xBA, (byte) 0xBE};
+        }
+    }
+
+    @Test
+    void whenEntryCorrupted_regenerate() throws Exception {
+        StubBytecodeCache cache = createCache();
+        getStubClassBytes(cache, StubKind.DEFAULT);
+        try (Stream<Path> entries = Files.list(cacheDirectory)) {
+            entries.forEach(this::corrupt);
+        }
+
+        getStubClassBytes(cache, StubKind.DEFAULT);
+
+        assertThat(cache.getMissCount(), is(2L));
+    }
+
+    private void corrupt(Path entry) {
+        try {
+            Files.write(entry, new byte[] {1, 2, 3});
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Test
+    void whenCacheEnabled_createStubFromCachedBytecode() throws Exception {
+        mementos.add(SystemPropertySupport.install(StubBytecodeCache.CACHE_DIRECTORY_PROPERTY, cacheDirectory.toString()));
+
+        CachedClass stub = Stub.createStub(CachedClass.class);
+
+        assertThat(stub.getClass().getName(), equalTo(STUB_CLASS_NAME));
+        assertThat(stub.getValue(), is(0));
+        assertThat(countEntries(), is(1L));
+    }
+
+    abstract static class CachedClass {
+        abstract int getValue();
+    }
+}
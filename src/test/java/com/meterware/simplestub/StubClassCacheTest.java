@@ -0,0 +1,140 @@
+package com.meterware.simplestub;
+/*
+ * Copyright (c) 2026 Russell Gold
+ *
+ * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
+ */
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import com.meterware.simplestub.generation.StubKind;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests the cache of generated stub classes.
+ *
+ * @author Russell Gold
+ */
+class StubClassCacheTest {
+
+    private static final int NUM_THREADS = 16;
+
+    private final StubClassCache cache = new StubClassCache();
+    private final AtomicInteger numGenerations = new AtomicInteger();
+    private final ExecutorService executor = Executors.newFixedThreadPool(NUM_THREADS);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void whenStubClassRequestedTwice_generateOnlyOnce() {
+        getStubClass(StubKind.DEFAULT, this::generateStubClass);
+        getStubClass(StubKind.DEFAULT, this::generateStubClass);
+
+        assertThat(numGenerations.get(), equalTo(1));
+    }
+
+    private Class<?> getStubClass(StubKind kind, Supplier<Class<?>> generator) {
+        return cache.getStubClass(BaseClass.class, kind, getClass().getClassLoader(), generator);
+    }
+
+    private Class<?> generateStubClass() {
+        numGenerations.incrementAndGet();
+        return StubClass.class;
+    }
+
+    @Test
+    void whenDifferentKindsRequested_generateEach() {
+        getStubClass(StubKind.DEFAULT, this::generateStubClass);
+        getStubClass(StubKind.NICE, this::generateStubClass);
+
+        assertThat(numGenerations.get(), equalTo(2));
+    }
+
+    @Test
+    void whenGenerationFails_reportFailure() {
+        assertThrows(SimpleStubException.class, () -> getStubClass(StubKind.STRICT, this::failGeneration));
+    }
+
+    private Class<?> failGeneration() {
+        numGenerations.incrementAndGet();
+        throw new SimpleStubException("generation failed");
+    }
+
+    @Test
+    void afterGenerationFails_tryAgain() {
+        try {
+            getStubClass(StubKind.STRICT, this::failGeneration);
+        } catch (SimpleStubException ignored) {
+        }
+
+        assertThat(getStubClass(StubKind.STRICT, this::generateStubClass), sameInstance(StubClass.class));
+    }
+
+    @Test
+    void whenManyThreadsRequestSameStub_generateOnlyOnce() throws Exception {
+        CountDownLatch allWaiting = new CountDownLatch(NUM_THREADS);
+        List<Future<Class<?>>> results = new ArrayList<>();
+        for (int i = 0; i < NUM_THREADS; i++)
+            results.add(executor.submit(() -> {
+                allWaiting.countDown();
+                allWaiting.await();
+                return getStubClass(StubKind.DEFAULT, this::generateStubClassSlowly);
+            }));
+
+        for (Future<Class<?>> result : results)
+            assertThat(result.get(10, TimeUnit.SECONDS), sameInstance(StubClass.class));
+        assertThat(numGenerations.get(), equalTo(1));
+    }
+
+    @Test
+    void whenStubClassDefinedByParentLoader_returnIt() throws Exception {
+        try (URLClassLoader childLoader = new URLClassLoader(new URL[0], getClass().getClassLoader())) {
+            cache.getStubClass(BaseClass.class, StubKind.DEFAULT, getClass().getClassLoader(), this::generateStubClass);
+
+            assertThat(cache.getStubClass(BaseClass.class, StubKind.DEFAULT, childLoader, this::generateStubClass), sameInstance(StubClass.class));
+            assertThat(numGenerations.get(), equalTo(1));
+        }
+    }
+
+    @Test
+    void whenGeneratedClassNotVisibleFromLoader_reportFailure() throws Exception {
+        try (URLClassLoader unrelatedLoader = new URLClassLoader(new URL[0], null)) {
+            assertThrows(SimpleStubException.class,
+                         () -> cache.getStubClass(BaseClass.class, StubKind.DEFAULT, unrelatedLoader, this::generateStubClass));
+            assertThat(numGenerations.get(), equalTo(2));
+        }
+    }
+
+    private Class<?> generateStubClassSlowly() {
+        try {
+            Thread.sleep(50);
+        } catch (InterruptedException ignored) {
+        }
+        return generateStubClass();
+    }
+
+    abstract static class BaseClass {
+    }
+
+    static class StubClass extends BaseClass {
+    }
+}
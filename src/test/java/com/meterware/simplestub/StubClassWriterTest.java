@@ -0,0 +1,104 @@
+package com.meterware.simplestub;
+/*
+ * Copyright (c) 2026 Russell Gold
+ *
+ * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
+ */
+
+import java.io.File;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import com.meterware.simplestub.classes.Interface1;
+import com.meterware.simplestub.generation.StubKind;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Tests writing stub classes at build time.
+ *
+ * @author Russell Gold
+ */
+class StubClassWriterTest {
+
+    private static final String INTERFACE_STUB_NAME = Interface1.class.getName() + StubKind.DEFAULT.getStubClassSuffix();
+    private static final String NICE_INTERFACE_STUB_NAME = Interface1.class.getName() + StubKind.NICE.getStubClassSuffix();
+
+    @TempDir
+    Path outputDirectory;
+
+    @Test
+    void whenStubWritten_returnStubClassName() throws Exception {
+        assertThat(new StubClassWriter(outputDirectory.toFile()).write(Interface1.class, StubKind.DEFAULT),
+                   equalTo(INTERFACE_STUB_NAME));
+    }
+
+    @Test
+    void whenStubWritten_createClassFile() throws Exception {
+        new StubClassWriter(outputDirectory.toFile()).write(Interface1.class, StubKind.DEFAULT);
+
+        assertThat(Files.exists(getClassFile(INTERFACE_STUB_NAME)), is(true));
+    }
+
+    private Path getClassFile(String className) {
+        return outputDirectory.resolve(className.replace('.', File.separatorChar) + ".class");
+    }
+
+    @Test
+    void whenIndexWritten_listStubClasses() throws Exception {
+        StubClassWriter writer = new StubClassWriter(outputDirectory.toFile());
+        writer.write(Interface1.class, StubKind.NICE);
+        writer.write(Interface1.class, StubKind.DEFAULT);
+        writer.writeIndex();
+
+        assertThat(readIndex(), contains(INTERFACE_STUB_NAME, NICE_INTERFACE_STUB_NAME));
+    }
+
+    private Iterable<String> readIndex() throws Exception {
+        return Files.readAllLines(outputDirectory.resolve(PrebuiltStubs.INDEX_RESOURCE), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void whenIndexRewritten_retainExistingEntries() throws Exception {
+        StubClassWriter.main(outputDirectory.toString(), "nice:" + Interface1.class.getName());
+        StubClassWriter.main(outputDirectory.toString(), Interface1.class.getName());
+
+        assertThat(readIndex(), contains(INTERFACE_STUB_NAME, NICE_INTERFACE_STUB_NAME));
+    }
+
+    @Test
+    void whenStubPrebuilt_loadRatherThanGenerate() throws Exception {
+        StubClassWriter.main(outputDirectory.toString(), Interface1.class.getName());
+
+        try (URLClassLoader classLoader = createIsolatedClassLoader()) {
+            Class<?> stubClass = createStubIn(classLoader, Interface1.class.getName()).getClass();
+
+            assertThat(stubClass.getName(), equalTo(INTERFACE_STUB_NAME));
+            assertThat(stubClass.getProtectionDomain().getCodeSource().getLocation(), equalTo(outputDirectory.toUri().toURL()));
+        }
+    }
+
+    // Loads SimpleStub and the test classes without the generation libraries, so that a stub can only be loaded, not generated.
+    private URLClassLoader createIsolatedClassLoader() throws Exception {
+        return new URLClassLoader(new URL[] {outputDirectory.toUri().toURL(), getLocation(Stub.class), getLocation(Interface1.class)},
+                                  ClassLoader.getSystemClassLoader().getParent());
+    }
+
+    private URL getLocation(Class<?> aClass) {
+        return aClass.getProtectionDomain().getCodeSource().getLocation();
+    }
+
+    private Object createStubIn(ClassLoader classLoader, String baseClassName) throws Exception {
+        Method createStub = classLoader.loadClass(Stub.class.getName()).getMethod("createStub", Class.class, Object[].class);
+        return createStub.invoke(null, classLoader.loadClass(baseClassName), new Object[0]);
+    }
+}
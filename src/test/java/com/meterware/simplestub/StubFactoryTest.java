@@ -0,0 +1,121 @@
+package com.meterware.simplestub;
+/*
+ * Copyright (c) 2026 Russell Gold
+ *
+ * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
+ */
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.meterware.simplestub.classes.ClassWithConstructorParameters;
+import com.meterware.simplestub.classes.Interface1;
+import com.meterware.simplestub.generation.StubKind;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.isEmptyString;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests the reusable stub factories.
+ *
+ * @author Russell Gold
+ */
+class StubFactoryTest {
+
+    @Test
+    void factoryCreatesStubsOfBaseClass() {
+        StubFactory<Interface1> factory = Stub.factory(Interface1.class, StubKind.DEFAULT);
+
+        assertThat(factory.create().getAge(), is(0));
+    }
+
+    @Test
+    void factoryCreatesDistinctInstances() {
+        StubFactory<Interface1> factory = Stub.factory(Interface1.class, StubKind.DEFAULT);
+
+        assertThat(factory.create(), not(sameInstance(factory.create())));
+    }
+
+    @Test
+    void factoryUsesSameStubClassAsCreateStub() {
+        StubFactory<Interface1> factory = Stub.factory(Interface1.class, StubKind.DEFAULT);
+
+        assertThat(factory.create().getClass(), sameInstance(Stub.createStub(Interface1.class).getClass()));
+    }
+
+    @Test
+    void whenParameterTypesSpecified_invokeMatchingConstructor() {
+        StubFactory<ClassWithConstructorParameters> factory
+              = Stub.factory(ClassWithConstructorParameters.class, StubKind.DEFAULT, int.class, String.class);
+
+        assertThat(factory.create(5, "age").getId(), is("age:5"));
+    }
+
+    @Test
+    void whenConstructorIsVarArgs_passArrayAsLastParameter() {
+        StubFactory<ClassWithConstructorParameters> factory
+              = Stub.factory(ClassWithConstructorParameters.class, StubKind.DEFAULT, List.class, String[].class);
+
+        assertThat(factory.create(new ArrayList<>(), new String[] {"height", "age", "sex"}).getId(), is("height:3"));
+    }
+
+    @Test
+    void whenNiceKindSpecified_createNiceStubs() {
+        StubFactory<AbstractClass> factory = Stub.factory(AbstractClass.class, StubKind.NICE);
+
+        assertThat(factory.create().getName(), isEmptyString());
+    }
+
+    @Test
+    void whenStrictKindSpecified_createStrictStubs() {
+        StubFactory<AbstractClass> factory = Stub.factory(AbstractClass.class, StubKind.STRICT);
+
+        assertThrows(UnexpectedMethodCallException.class, () -> factory.create().getName());
+    }
+
+    @Test
+    void whenBaseClassInJDK_createStubs() {
+        assertThat(Stub.factory(InputStream.class, StubKind.DEFAULT).create(), instanceOf(InputStream.class));
+    }
+
+    @Test
+    void whenNoConstructorMatchesParameterTypes_throwException() {
+        assertThrows(SimpleStubException.class,
+                     () -> Stub.factory(ClassWithConstructorParameters.class, StubKind.DEFAULT, String.class));
+    }
+
+    @Test
+    void whenWrongNumberOfParameters_throwException() {
+        StubFactory<ClassWithConstructorParameters> factory
+              = Stub.factory(ClassWithConstructorParameters.class, StubKind.DEFAULT, int.class, String.class);
+
+        assertThrows(SimpleStubException.class, () -> factory.create(5));
+    }
+
+    @Test
+    void whenWrongParameterTypes_throwException() {
+        StubFactory<ClassWithConstructorParameters> factory
+              = Stub.factory(ClassWithConstructorParameters.class, StubKind.DEFAULT, int.class, String.class);
+
+        assertThrows(SimpleStubException.class, () -> factory.create("age", 7));
+    }
+
+    @Test
+    void whenConstructorThrowsException_throwSimpleStubException() {
+        StubFactory<ClassWithConstructorParameters> factory
+              = Stub.factory(ClassWithConstructorParameters.class, StubKind.DEFAULT, boolean.class);
+
+        assertThrows(SimpleStubException.class, () -> factory.create(true));
+    }
+
+    abstract static class AbstractClass {
+        abstract String getName();
+    }
+}
@@ -1,6 +1,6 @@
 package com.meterware.simplestub;
 /*
- * Copyright (c) 2014-2017 Russell Gold
+ * Copyright (c) 2014-2026 Russell Gold
  *
  * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
  */
@@ -8,22 +8,37 @@ package com.meterware.simplestub;
 import java.io.InputStream;
 import java.math.BigInteger;
 import java.net.CookiePolicy;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import com.meterware.simplestub.classes.AbstractImplementation;
 import com.meterware.simplestub.classes.ClassWithConstructorParameters;
 import com.meterware.simplestub.classes.ConcreteClass;
 import com.meterware.simplestub.classes.Interface1;
+import com.meterware.simplestub.generation.StubGenerator;
+import com.meterware.simplestub.generation.StubKind;
 import org.junit.jupiter.api.Test;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.hasEntry;
+import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.isEmptyOrNullString;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 /**
@@ -124,6 +139,48 @@ class StubLoaderTest {
         assertThat(testObject.getId(), is("height:3"));
     }
 
+    @Test
+    void whenVarArgsAndArrayInvocationsAlternate_invokeVarArgConstructorEachTime() {
+        for (int i = 0; i < 3; i++) {
+            assertThat(Stub.createStub(ClassWithConstructorParameters.class, new ArrayList<>(), "height", "age").getId(),
+                       is("height:2"));
+            assertThat(Stub.createStub(ClassWithConstructorParameters.class, new ArrayList<>(), new String[] {"age"}).getId(),
+                       is("age:1"));
+        }
+    }
+
+    @Test
+    void whenArgumentsMatchPrimitiveVarArgs_invokeVarArgConstructor() {
+        assertThat(Stub.createStub(PrimitiveVarArgsClass.class, 3, 4, 5).getTotal(), is(12));
+    }
+
+    @Test
+    void whenSameArgumentShapeRepeated_invokeSameConstructorWithNewValues() {
+        assertThat(Stub.createStub(ClassWithConstructorParameters.class, 5, "age").getId(), is("age:5"));
+        assertThat(Stub.createStub(ClassWithConstructorParameters.class, 7, "height").getId(), is("height:7"));
+    }
+
+    @Test
+    void whenNullArgumentFollowedByValue_selectConstructorForEach() {
+        assertThat(Stub.createStub(ClassWithConstructorParameters.class, 5, null).getId(), is("null:5"));
+        assertThat(Stub.createStub(ClassWithConstructorParameters.class, 5, "age").getId(), is("age:5"));
+    }
+
+    @Test
+    void argumentTypesWithSameClassesAndNulls_areEqual() {
+        StubLoader.ArgumentTypes first = new StubLoader.ArgumentTypes(new Object[] {5, null, "age"});
+        StubLoader.ArgumentTypes second = new StubLoader.ArgumentTypes(new Object[] {7, null, "height"});
+
+        assertThat(first, equalTo(second));
+        assertThat(first.hashCode(), equalTo(second.hashCode()));
+    }
+
+    @Test
+    void argumentTypesWithNullInPlaceOfClass_areNotEqual() {
+        assertThat(new StubLoader.ArgumentTypes(new Object[] {5, null}),
+                   not(equalTo(new StubLoader.ArgumentTypes(new Object[] {5, "age"}))));
+    }
+
     @Test
     void whenArgumentsDontMatchMatchVarArgConstructor_throwException() {
         final ArrayList<Object> list = new ArrayList<>();
@@ -207,6 +264,156 @@ class StubLoaderTest {
         assertThat(Stub.createNiceStub(InputStream.class), instanceOf(InputStream.class));
     }
 
+    @Test
+    void whenRecordingStubCreated_recordCalls() {
+        ClassWithConstructorParameters stub = Stub.createRecordingStub(ClassWithConstructorParameters.class, 3, "name");
+
+        stub.getCount();
+
+        assertThat(stub.getId(), is("name:3"));
+        assertThat(Stub.getInvocationJournal(stub).getInvocations("getCount"), hasSize(1));
+    }
+
+    @Test
+    void whenStubIsNotRecording_getInvocationJournalThrowsException() {
+        Object stub = Stub.createStub(ClassWithConstructorParameters.class, 3, "name");
+
+        assertThrows(SimpleStubException.class, () -> Stub.getInvocationJournal(stub));
+    }
+
+    @Test
+    void whenCountingPropertySet_createCountingStubs() {
+        Memento memento = SystemPropertySupport.install(Stub.COUNTING_PROPERTY, "true");
+        try {
+            Interface1 stub = Stub.createStub(Interface1.class);
+            Interface1 niceStub = Stub.createNiceStub(Interface1.class);
+
+            stub.getAge();
+            stub.getAge();
+            niceStub.getAge();
+
+            assertThat(Stub.counts(stub), hasEntry("getAge()I", 2L));
+            assertThat(Stub.counts(niceStub), hasEntry("getAge()I", 1L));
+        } finally {
+            memento.revert();
+        }
+    }
+
+    @Test
+    void whenCountingPropertySet_createStubsOfExistingClasses() {
+        Memento memento = SystemPropertySupport.install(Stub.COUNTING_PROPERTY, "true");
+        try {
+            SimpleAbstractTestClass testObject = Stub.createStub(SimpleAbstractTestClass.class);
+            ClassWithConstructorParameters withParameters = Stub.createNiceStub(ClassWithConstructorParameters.class, 3, "name");
+            ConstructorCallingClass constructorCalling = Stub.createStub(ConstructorCallingClass.class);
+
+            assertThat(testObject.getName(), equalTo("name"));
+            assertThat(withParameters.getId(), is("name:3"));
+            assertThat(constructorCalling.getInitialCount(), equalTo(0));
+            assertThat(Stub.counts(constructorCalling), hasEntry("getCount()I", 1L));
+        } finally {
+            memento.revert();
+        }
+    }
+
+    @Test
+    void whenStubIsNotCounting_countsThrowsException() {
+        Object stub = Stub.createStub(ClassWithConstructorParameters.class, 3, "name");
+
+        assertThrows(SimpleStubException.class, () -> Stub.counts(stub));
+    }
+
+    @Test
+    void whenBudgetedStubCreated_enforceBudget() {
+        Interface1 stub = Stub.createBudgetedStub(Interface1.class);
+        Stub.getCallBudget(stub).limit("getAge", 1);
+
+        stub.getAge();
+
+        assertThrows(CallBudgetExceededException.class, stub::getAge);
+    }
+
+    @Test
+    void whenLatencyStubCreated_delayCalls() {
+        Interface1 stub = Stub.createNiceLatencyStub(Interface1.class);
+        Stub.getLatencySimulator(stub).setLatency("getAge", Latency.fixed(Duration.ofMillis(10)));
+
+        long start = System.nanoTime();
+        stub.getAge();
+
+        assertThat(System.nanoTime() - start, greaterThanOrEqualTo(Duration.ofMillis(10).toNanos()));
+    }
+
+    @Test
+    void whenConfigurableStubCreated_applyConfiguration() {
+        Interface1 stub = Stub.createConfigurableStub(Interface1.class);
+
+        Stub.when(stub).method("getAge").returns(12);
+
+        assertThat(stub.getAge(), is(12));
+    }
+
+    @Test
+    void whenNonConfigurableStubConfigured_throwException() {
+        Interface1 stub = Stub.createStub(Interface1.class);
+
+        assertThrows(SimpleStubException.class, () -> Stub.when(stub));
+    }
+
+    @Test
+    void whenStubCreatedRepeatedly_reuseStubClass() {
+        assertThat(Stub.createStub(UnannotatedClass.class).getClass(),
+                   sameInstance(Stub.createStub(UnannotatedClass.class).getClass()));
+    }
+
+    @Test
+    void whenDifferentStubKindsCreated_useDistinctStubClasses() {
+        assertThat(Stub.createNiceStub(UnannotatedClass.class).getClass(),
+                   not(sameInstance(Stub.createStub(UnannotatedClass.class).getClass())));
+    }
+
+    @Test
+    void whenStubClassAlreadyDefined_useExistingClass() {
+        Class<?> existingClass = StubGenerator.create(PredefinedClass.class, StubKind.DEFAULT)
+                .generateStubClass(PredefinedClass.class.getName() + StubKind.DEFAULT.getStubClassSuffix(), PredefinedClass.class);
+
+        assertThat(Stub.createStub(PredefinedClass.class).getClass(), sameInstance(existingClass));
+    }
+
+    @Test
+    void whenManyThreadsCreateSameStub_allUseOneStubClass() throws Exception {
+        final int numThreads = 16;
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        try {
+            CountDownLatch allWaiting = new CountDownLatch(numThreads);
+            List<Future<Set<Class<?>>>> results = new ArrayList<>();
+            for (int i = 0; i < numThreads; i++)
+                results.add(executor.submit(() -> {
+                    allWaiting.countDown();
+                    allWaiting.await();
+                    return createConcurrentStubs(1000);
+                }));
+
+            Set<Class<?>> stubClasses = new HashSet<>();
+            for (Future<Set<Class<?>>> result : results)
+                stubClasses.addAll(result.get(30, TimeUnit.SECONDS));
+            assertThat(stubClasses, hasSize(1));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Set<Class<?>> createConcurrentStubs(int numStubs) {
+        Set<Class<?>> stubClasses = new HashSet<>();
+        for (int i = 0; i < numStubs; i++)
+            stubClasses.add(Stub.createStub(ConcurrentlyStubbedClass.class).getClass());
+        return stubClasses;
+    }
+
+    abstract static class ConcurrentlyStubbedClass {
+        abstract String doIt();
+    }
+
     abstract static class UnannotatedClass {
         abstract long doIt();
     }
@@ -215,6 +422,20 @@ class StubLoaderTest {
         abstract String doIt();
     }
 
+    abstract static class PrimitiveVarArgsClass {
+        private int total;
+
+        PrimitiveVarArgsClass(int... values) {
+            for (int value : values) total += value;
+        }
+
+        int getTotal() { return total; }
+    }
+
+    abstract static class PredefinedClass {
+        abstract int doIt();
+    }
+
     abstract static class PackagePrivateClass {
         abstract int doIt();
     }
@@ -233,6 +454,18 @@ class StubLoaderTest {
         abstract CookiePolicy getPolicy();
     }
 
+    abstract static class ConstructorCallingClass {
+        private final int initialCount;
+
+        ConstructorCallingClass() {
+            initialCount = getCount();
+        }
+
+        int getInitialCount() { return initialCount; }
+
+        abstract int getCount();
+    }
+
     @SuppressWarnings("InnerClassMayBeStatic")
     abstract class ProblemClass {
         ProblemClass(int i) {aNumber = i;}
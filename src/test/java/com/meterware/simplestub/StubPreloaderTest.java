@@ -0,0 +1,133 @@
+package com.meterware.simplestub;
+/*
+ * Copyright (c) 2026 Russell Gold
+ *
+ * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
+ */
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Collectors;
+
+import com.meterware.simplestub.classes.AbstractImplementation;
+import com.meterware.simplestub.classes.ClassWithAbstractPackageMethod;
+import com.meterware.simplestub.classes.ClassWithConstructorParameters;
+import com.meterware.simplestub.classes.ConcreteClass;
+import com.meterware.simplestub.classes.Interface1;
+import com.meterware.simplestub.classes.PropertyReader;
+import com.meterware.simplestub.generation.StubKind;
+import com.meterware.simplestub.preloaded.PreloadedAbstractClass;
+import com.meterware.simplestub.preloaded.PreloadedAnnotation;
+import com.meterware.simplestub.preloaded.PreloadedConcreteClass;
+import com.meterware.simplestub.preloaded.PreloadedInterface;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Tests generating stub classes ahead of their use.
+ *
+ * @author Russell Gold
+ */
+class StubPreloaderTest {
+
+    private static final String PRELOADED_PACKAGE = "com.meterware.simplestub.preloaded";
+
+    @TempDir
+    File tempDir;
+
+    @Test
+    void whenClassesPreloaded_futureCompletes() throws Exception {
+        Stub.preload(StubKind.NICE, PreloadedClass.class, Interface1.class).get(10, TimeUnit.SECONDS);
+
+        assertThat(Stub.createNiceStub(PreloadedClass.class).getName(), is(""));
+    }
+
+    @Test
+    void whenPreloadedClassNotAbstract_futureCompletesExceptionally() {
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> Stub.preload(StubKind.DEFAULT, ConcreteClass.class).get(10, TimeUnit.SECONDS));
+
+        assertThat(exception.getCause(), instanceOf(SimpleStubException.class));
+    }
+
+    @Test
+    void findStubbableClassesInPackage() throws Exception {
+        assertThat(StubPreloader.findStubbableClasses(getClass().getClassLoader(), "com.meterware.simplestub.classes"),
+                   containsInAnyOrder(AbstractImplementation.class, ClassWithAbstractPackageMethod.class,
+                                      ClassWithConstructorParameters.class, Interface1.class, PropertyReader.class));
+    }
+
+    @Test
+    void whenPackagePreloaded_futureCompletes() throws Exception {
+        Stub.preloadPackage(StubKind.STRICT, PRELOADED_PACKAGE).get(10, TimeUnit.SECONDS);
+
+        assertThrows(UnexpectedMethodCallException.class, () -> Stub.createStrictStub(PreloadedInterface.class).getCount());
+        assertThrows(UnexpectedMethodCallException.class, () -> Stub.createStrictStub(PreloadedAbstractClass.class).getName());
+    }
+
+    @Test
+    void whenPackageInJar_findStubbableClasses() throws Exception {
+        File jarFile = createJar(PreloadedInterface.class, PreloadedAbstractClass.class,
+                                 PreloadedConcreteClass.class, PreloadedAnnotation.class);
+
+        try (URLClassLoader jarLoader = new URLClassLoader(new URL[] {jarFile.toURI().toURL()}, null)) {
+            assertThat(getNames(StubPreloader.findStubbableClasses(jarLoader, PRELOADED_PACKAGE)),
+                       containsInAnyOrder(PreloadedInterface.class.getName(), PreloadedAbstractClass.class.getName()));
+        }
+    }
+
+    private File createJar(Class<?>... classes) throws IOException {
+        File jarFile = new File(tempDir, "preloaded.jar");
+        try (JarOutputStream outputStream = new JarOutputStream(new FileOutputStream(jarFile))) {
+            addDirectories(outputStream, PRELOADED_PACKAGE);
+            for (Class<?> aClass : classes)
+                addClassFile(outputStream, aClass);
+        }
+        return jarFile;
+    }
+
+    // Like the jars built by Maven, include an entry for each directory, by which the class loader finds the package
+    private void addDirectories(JarOutputStream outputStream, String packageName) throws IOException {
+        StringBuilder directory = new StringBuilder();
+        for (String name : packageName.split("\\.")) {
+            directory.append(name).append('/');
+            outputStream.putNextEntry(new JarEntry(directory.toString()));
+            outputStream.closeEntry();
+        }
+    }
+
+    private void addClassFile(JarOutputStream outputStream, Class<?> aClass) throws IOException {
+        String classFileName = aClass.getName().replace('.', '/') + ".class";
+        outputStream.putNextEntry(new JarEntry(classFileName));
+        try (InputStream inputStream = aClass.getClassLoader().getResourceAsStream(classFileName)) {
+            byte[] buffer = new byte[4096];
+            int count;
+            while ((count = inputStream.read(buffer)) > 0)
+                outputStream.write(buffer, 0, count);
+        }
+        outputStream.closeEntry();
+    }
+
+    private List<String> getNames(List<Class<?>> classes) {
+        return classes.stream().map(Class::getName).collect(Collectors.toList());
+    }
+
+    abstract static class PreloadedClass {
+        abstract String getName();
+    }
+}
@@ -0,0 +1,26 @@
+package com.meterware.simplestub.generation;
+/*
+ * Copyright (c) 2026 Russell Gold
+ *
+ * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
+ */
+/**
+ * A class whose constructor calls one of its abstract methods, and so calls a stub method before the stub's own
+ * constructor has done anything else.
+ *
+ * @author Russell Gold
+ */
+abstract class AClassCallingAbstractMethodInConstructor {
+    private final int initialValue;
+
+    public AClassCallingAbstractMethodInConstructor() {
+        initialValue = getValue();
+    }
+
+    int getInitialValue() {
+        return initialValue;
+    }
+
+    abstract
+    protected int getValue();
+}
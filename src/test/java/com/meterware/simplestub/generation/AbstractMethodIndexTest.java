@@ -0,0 +1,118 @@
+package com.meterware.simplestub.generation;
+/*
+ * Copyright (c) 2026 Russell Gold
+ *
+ * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
+ */
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.sameInstance;
+
+/**
+ * Tests the index of methods which stubs must implement.
+ *
+ * @author Russell Gold
+ */
+class AbstractMethodIndexTest {
+
+    @Test
+    void whenInterfaceMethodsAreOverloaded_includeAll() {
+        assertThat(getSignatures(Overloaded.class), containsInAnyOrder("doIt()", "doIt(int)", "doIt(java.lang.String)", "doIt(int,int)"));
+    }
+
+    private List<String> getSignatures(Class<?> baseClass) {
+        List<String> signatures = new ArrayList<>();
+        for (Method method : AbstractMethodIndex.getAbstractMethods(baseClass))
+            signatures.add(toSignature(method));
+        return signatures;
+    }
+
+    private String toSignature(Method method) {
+        StringBuilder sb = new StringBuilder(method.getName()).append('(');
+        for (int i = 0; i < method.getParameterTypes().length; i++)
+            sb.append(i == 0 ? "" : ",").append(method.getParameterTypes()[i].getName());
+        return sb.append(')').toString();
+    }
+
+    @Test
+    void whenClassRequestedAgain_returnSameMethods() {
+        Collection<Method> methods = AbstractMethodIndex.getAbstractMethods(Overloaded.class);
+
+        assertThat(AbstractMethodIndex.getAbstractMethods(Overloaded.class), sameInstance(methods));
+    }
+
+    @Test
+    void whenSuperclassImplementsInterfaceMethod_excludeIt() {
+        assertThat(getSignatures(PartialImplementation.class), containsInAnyOrder("doIt(int)", "doIt(java.lang.String)", "doIt(int,int)"));
+    }
+
+    @Test
+    void whenSubclassRedeclaresMethodAbstract_includeIt() {
+        assertThat(getSignatures(AbstractAgain.class), containsInAnyOrder("doIt()", "doIt(int)", "doIt(java.lang.String)", "doIt(int,int)"));
+    }
+
+    @Test
+    void whenAllMethodsImplemented_returnEmptyCollection() {
+        assertThat(AbstractMethodIndex.getAbstractMethods(FullImplementation.class), empty());
+    }
+
+    @Test
+    void whenInterfaceNarrowsReturnType_includeOnlyNarrowedMethod() {
+        Collection<Method> methods = AbstractMethodIndex.getAbstractMethods(Narrowed.class);
+
+        assertThat(methods, hasSize(1));
+        assertThat(methods.iterator().next().getReturnType(), equalTo(String.class));
+    }
+
+    interface Overloaded {
+        void doIt();
+        void doIt(int value);
+        void doIt(String value);
+        void doIt(int value1, int value2);
+    }
+
+    abstract static class PartialImplementation implements Overloaded {
+        @Override
+        public void doIt() {
+        }
+    }
+
+    abstract static class AbstractAgain extends PartialImplementation {
+        @Override
+        public abstract void doIt();
+    }
+
+    abstract static class FullImplementation extends PartialImplementation {
+        @Override
+        public void doIt(int value) {
+        }
+
+        @Override
+        public void doIt(String value) {
+        }
+
+        @Override
+        public void doIt(int value1, int value2) {
+        }
+    }
+
+    interface General {
+        Object get();
+    }
+
+    interface Narrowed extends General {
+        @Override
+        String get();
+    }
+}
@@ -0,0 +1,64 @@
+package com.meterware.simplestub.generation;
+/*
+ * Copyright (c) 2026 Russell Gold
+ *
+ * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
+ */
+
+import com.meterware.simplestub.generation.asm.AsmStubGeneratorFactory;
+
+/**
+ * A stub generator factory which is not part of the library, but is found on the test class path, as an
+ * in-house generator would be. Its generators delegate to those of ASM.
+ *
+ * @author Russell Gold
+ */
+public class AddedStubGeneratorFactory implements StubGeneratorFactory {
+
+    static final String NAME = "added";
+
+    private final StubGeneratorFactory delegate = new AsmStubGeneratorFactory();
+
+    @Override
+    public StubGenerator createStubGenerator(Class<?> baseClass, StubKind kind) {
+        return new AddedStubGenerator(delegate.createStubGenerator(baseClass, kind));
+    }
+
+    @Override
+    public ClassReferenceFinder getClassReferenceFinder() {
+        return delegate.getClassReferenceFinder();
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return delegate.isAvailable();
+    }
+
+    @Override
+    public String getLibraryName() {
+        return "added generator";
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    static class AddedStubGenerator extends StubGenerator {
+        private final StubGenerator delegate;
+
+        AddedStubGenerator(StubGenerator delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Class<?> generateStubClass(String stubClassName, Class<?> anchorClass) {
+            return delegate.generateStubClass(stubClassName, anchorClass);
+        }
+
+        @Override
+        public byte[] generateStubClassBytes(String stubClassName) {
+            return delegate.generateStubClassBytes(stubClassName);
+        }
+    }
+}
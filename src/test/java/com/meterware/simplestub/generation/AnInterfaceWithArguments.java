@@ -0,0 +1,19 @@
+package com.meterware.simplestub.generation;
+/*
+ * Copyright (c) 2026 Russell Gold
+ *
+ * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
+ */
+/**
+ * An interface whose methods take arguments of each kind, for testing recording stubs.
+ *
+ * @author Russell Gold
+ */
+public interface AnInterfaceWithArguments {
+
+    boolean check(boolean flag, byte aByte, char aChar, short aShort, int anInt, long aLong, float aFloat, double aDouble);
+
+    String describe(Object object, int count, String[] names, long total);
+
+    void run();
+}
@@ -0,0 +1,29 @@
+package com.meterware.simplestub.generation;
+/*
+ * Copyright (c) 2026 Russell Gold
+ *
+ * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
+ */
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.concurrent.CompletionStage;
+import java.util.stream.Stream;
+
+/**
+ * @author Russell Gold
+ */
+public interface ClassWithJdkGetters {
+    List<String> getList();
+
+    Map<String, Integer> getMap();
+
+    Optional<String> getOptional();
+
+    OptionalInt getOptionalInt();
+
+    Stream<String> getStream();
+
+    CompletionStage<String> getCompletionStage();
+}
@@ -0,0 +1,54 @@
+package com.meterware.simplestub.generation;
+/*
+ * Copyright (c) 2026 Russell Gold
+ *
+ * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
+ */
+
+import java.sql.ResultSet;
+import java.util.concurrent.Callable;
+
+/**
+ * Reports the time taken by each available stub generator to produce the bytecode of a stub class. This is not run
+ * as part of the build; run it with the test classpath, for example:
+ * <pre>
+ *     mvn test-compile exec:java -Dexec.classpathScope=test \
+ *         -Dexec.mainClass=com.meterware.simplestub.generation.StubGenerationBenchmark
+ * </pre>
+ *
+ * @author Russell Gold
+ */
+public class StubGenerationBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 20_000;
+    private static final int MEASURED_ITERATIONS = 50_000;
+
+    public static void main(String... args) throws Exception {
+        for (StubGeneratorFactory factory : StubGeneratorRegistry.getFactories())
+            if (factory.isAvailable())
+                for (StubKind kind : StubKind.values()) {
+                    report(factory, "small class", kind, AbstractMethodIndexTest.PartialImplementation.class);
+                    report(factory, "java.sql.ResultSet", kind, ResultSet.class);
+                }
+    }
+
+    private static void report(StubGeneratorFactory factory, String description, StubKind kind, Class<?> baseClass) throws Exception {
+        StubGenerator generator = factory.createStubGenerator(baseClass, kind);
+        String stubClassName = baseClass.getName() + kind.getStubClassSuffix();
+        Callable<byte[]> generation = () -> generator.generateStubClassBytes(stubClassName);
+
+        run(generation, WARMUP_ITERATIONS);
+        long start = System.nanoTime();
+        run(generation, MEASURED_ITERATIONS);
+        long elapsed = System.nanoTime() - start;
+
+        System.out.printf("%-10s %-20s %-13s %,10d ns/stub%n", factory.getName(), description, kind, elapsed / MEASURED_ITERATIONS);
+    }
+
+    private static void run(Callable<byte[]> generation, int iterations) throws Exception {
+        int totalLength = 0;
+        for (int i = 0; i < iterations; i++)
+            totalLength += generation.call().length;
+        if (totalLength == 0) throw new IllegalStateException("No bytecode generated");
+    }
+}
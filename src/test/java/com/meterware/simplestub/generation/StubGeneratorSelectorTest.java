@@ -1,6 +1,6 @@
 package com.meterware.simplestub.generation;
 /*
- * Copyright (c) 2015-2022 Russell Gold
+ * Copyright (c) 2015-2026 Russell Gold
  *
  * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
  */
@@ -8,9 +8,12 @@ package com.meterware.simplestub.generation;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import com.meterware.simplestub.Memento;
-import com.meterware.simplestub.StaticStubSupport;
+import com.meterware.simplestub.SimpleStubException;
+import com.meterware.simplestub.Stub;
+import com.meterware.simplestub.SystemPropertySupport;
 import com.meterware.simplestub.classes.Interface1;
 import com.meterware.simplestub.generation.asm.AsmStubGeneratorFactory;
 import com.meterware.simplestub.generation.javassist.JavassistStubGeneratorFactory;
@@ -20,62 +23,137 @@ import org.junit.jupiter.api.Test;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasItems;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 /**
- * A test of the stub generator factory selection. The tests work by manipulating the list of factory names.
- * It would be better to tamper with the classloader in some fashion to hide the expected classes.
+ * A test of the stub generator factory selection. The tests select from lists of factories, rather than those found
+ * on the class path, except where they test the discovery of factories.
  *
  * @author Russell Gold
  */
 class StubGeneratorSelectorTest {
 
     private final List<Memento> mementos = new ArrayList<>();
+    private StubGeneratorFactory originalFactory;
 
     @BeforeEach
-    public void setUp() throws Exception {
-        mementos.add(StaticStubSupport.install(StubGenerator.class, "factory", null));
+    public void setUp() {
+        originalFactory = StubGenerator.getStubGeneratorFactory();
+        mementos.add(SystemPropertySupport.preserve(Stub.GENERATOR_PROPERTY));
     }
 
     @AfterEach
     public void tearDown() {
         mementos.forEach(Memento::revert);
+        StubGenerator.setStubGeneratorFactory(originalFactory);
     }
 
     @Test
-    @SuppressWarnings("unchecked")
-    void whenNoFactoriesFound_throwException() throws Exception {
-        setUpFactories();
+    void whenNoFactoriesFound_throwException() {
+        StubGeneratorFactory factory = selectFrom();
 
-        assertThrows(RuntimeException.class, this::createStubGenerator);
+        assertThrows(RuntimeException.class, () -> factory.createStubGenerator(Interface1.class, StubKind.DEFAULT));
     }
 
-    @SuppressWarnings("unchecked")
-    private void setUpFactories(Class<? extends StubGeneratorFactory>... knownFactories) throws NoSuchFieldException {
-        mementos.add(StaticStubSupport.install(StubGenerator.class, "FACTORY_NAMES", createFactoryNameList(knownFactories)));
+    private StubGeneratorFactory selectFrom(StubGeneratorFactory... factories) {
+        return selectFrom(null, factories);
     }
 
-    private StubGenerator createStubGenerator() {
-        return StubGenerator.create(Interface1.class, StubKind.DEFAULT);
+    private StubGeneratorFactory selectFrom(String name, StubGeneratorFactory... factories) {
+        return StubGeneratorRegistry.select(StubGeneratorRegistry.rank(Arrays.asList(factories)), name);
     }
 
-    private String[] createFactoryNameList(Class<? extends StubGeneratorFactory>[] knownFactories) {
-        return Arrays.stream(knownFactories).map(Class::getName).toArray(String[]::new);
+    @Test
+    void whenOnlyJavassistFactoryFound_createStubGenerator() {
+        StubGeneratorFactory factory = selectFrom(new JavassistStubGeneratorFactory());
+
+        assertThat(getGeneratorClassName(factory), equalTo("JavassistStubGenerator"));
+    }
+
+    private String getGeneratorClassName(StubGeneratorFactory factory) {
+        return factory.createStubGenerator(Interface1.class, StubKind.DEFAULT).getClass().getSimpleName();
     }
 
     @Test
-    @SuppressWarnings("unchecked")
-    void whenOnlyJavassistFactoryFound_createStubGenerator() throws Exception {
-        setUpFactories(JavassistStubGeneratorFactory.class);
+    void whenOnlyAsmFactoryFound_createStubGenerator() {
+        StubGeneratorFactory factory = selectFrom(new AsmStubGeneratorFactory());
 
-        assertThat(createStubGenerator().getClass().getSimpleName(), equalTo("JavassistStubGenerator"));
+        assertThat(getGeneratorClassName(factory), equalTo("AsmStubGenerator"));
     }
 
     @Test
-    @SuppressWarnings("unchecked")
-    void whenOnlyAsmFactoryFound_createStubGenerator() throws Exception {
-        setUpFactories(AsmStubGeneratorFactory.class);
+    void whenSeveralFactoriesAvailable_selectHighestRanked() {
+        StubGeneratorFactory factory = selectFrom(new JavassistStubGeneratorFactory(), new AsmStubGeneratorFactory());
+
+        assertThat(getGeneratorClassName(factory), equalTo("AsmStubGenerator"));
+    }
+
+    @Test
+    void whenHigherRankedFactoryUnavailable_selectNextRanked() {
+        StubGeneratorFactory factory = selectFrom(new UnavailableStubGeneratorFactory(), new JavassistStubGeneratorFactory());
+
+        assertThat(getGeneratorClassName(factory), equalTo("JavassistStubGenerator"));
+    }
+
+    @Test
+    void whenFactoryNamed_selectIt() {
+        StubGeneratorFactory factory = selectFrom("javassist", new JavassistStubGeneratorFactory(), new AsmStubGeneratorFactory());
+
+        assertThat(getGeneratorClassName(factory), equalTo("JavassistStubGenerator"));
+    }
+
+    @Test
+    void whenNamedFactoryUnavailable_throwException() {
+        assertThrows(SimpleStubException.class,
+                     () -> selectFrom("unavailable", new UnavailableStubGeneratorFactory(), new AsmStubGeneratorFactory()));
+    }
+
+    @Test
+    void registry_findsBuiltInAndAddedFactories() {
+        List<String> names = StubGeneratorRegistry.getFactories().stream().map(StubGeneratorFactory::getName).collect(Collectors.toList());
+
+        assertThat(names, hasItems("asm", "javassist", AddedStubGeneratorFactory.NAME));
+    }
+
+    @Test
+    void whenAddedFactoryNamed_useItToCreateStubs() {
+        StubGenerator.setStubGeneratorFactory(StubGeneratorRegistry.getFactory(AddedStubGeneratorFactory.NAME));
+
+        assertThat(getGeneratorClassName(StubGenerator.getStubGeneratorFactory()), equalTo("AddedStubGenerator"));
+    }
+
+    @Test
+    void whenGeneratorPropertySet_selectNamedFactory() {
+        System.setProperty(Stub.GENERATOR_PROPERTY, "javassist");
+        StubGenerator.setStubGeneratorFactory(null);
+
+        assertThat(StubGenerator.getStubGeneratorFactory(), sameInstance(StubGeneratorRegistry.getFactory("javassist")));
+    }
+
+    @Test
+    void whenGeneratorPropertyNotSet_selectHighestRankedAvailableFactory() {
+        System.clearProperty(Stub.GENERATOR_PROPERTY);
+        StubGenerator.setStubGeneratorFactory(null);
+
+        assertThat(StubGenerator.getStubGeneratorFactory(), sameInstance(StubGeneratorRegistry.select(StubGeneratorRegistry.getFactories(), null)));
+    }
 
-        assertThat(createStubGenerator().getClass().getSimpleName(), equalTo("AsmStubGenerator"));
+    static class UnavailableStubGeneratorFactory extends AsmStubGeneratorFactory {
+        @Override
+        public boolean isAvailable() {
+            return false;
+        }
+
+        @Override
+        public String getName() {
+            return "unavailable";
+        }
+
+        @Override
+        public int getRank() {
+            return Integer.MAX_VALUE;
+        }
     }
 }
@@ -1,6 +1,6 @@
 package com.meterware.simplestub.generation;
 /*
- * Copyright (c) 2015-2022 Russell Gold
+ * Copyright (c) 2015-2026 Russell Gold
  *
  * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
  */
@@ -8,20 +8,50 @@ package com.meterware.simplestub.generation;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
+import com.meterware.simplestub.BudgetedStub;
+import com.meterware.simplestub.CallBudget;
+import com.meterware.simplestub.CallBudgetExceededException;
+import com.meterware.simplestub.ConfigurableStub;
+import com.meterware.simplestub.CountingStub;
+import com.meterware.simplestub.Invocation;
+import com.meterware.simplestub.InvocationCounters;
+import com.meterware.simplestub.InvocationJournal;
+import com.meterware.simplestub.Latency;
+import com.meterware.simplestub.LatencySimulator;
+import com.meterware.simplestub.LatencyStub;
+import com.meterware.simplestub.Memento;
+import com.meterware.simplestub.RecordingStub;
 import com.meterware.simplestub.SimpleStubException;
+import com.meterware.simplestub.Stub;
+import com.meterware.simplestub.StaticStubSupport;
+import com.meterware.simplestub.StrictStubBootstraps;
+import com.meterware.simplestub.UnexpectedMethodCallException;
 import com.meterware.simplestub.classes.AbstractImplementation;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.Matchers;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.arrayWithSize;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.emptyArray;
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.isEmptyString;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.hamcrest.Matchers.typeCompatibleWith;
 import static org.hamcrest.core.Is.is;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -33,6 +63,7 @@ abstract public class StubGeneratorTestBase {
 
     private static int stubNum = 0;
     private final StubGeneratorFactory factory;
+    private final List<Memento> mementos = new ArrayList<>();
 
     private AnInterface anInterfaceStub;
 
@@ -47,6 +78,11 @@ abstract public class StubGeneratorTestBase {
         anInterfaceStub = createStub(AnInterface.class);
     }
 
+    @AfterEach
+    public void tearDown() {
+        mementos.forEach(Memento::revert);
+    }
+
     private <T> T createStub(Class<T> baseClass) throws InstantiationException, IllegalAccessException, NoSuchMethodException, InvocationTargetException {
         Class<T> aStubClass = createStubClass(baseClass);
         return create(aStubClass);
@@ -197,6 +233,55 @@ abstract public class StubGeneratorTestBase {
         assertThat(aClassStub.getAnInterface(), instanceOf(AnInterface.class));
     }
 
+    @Test
+    public void whenNiceMethodReturningInterfaceCalledAgain_returnSameStub() throws Exception {
+        ClassWithObjectGetters aClassStub = createNiceStub(ClassWithObjectGetters.class);
+
+        assertThat(aClassStub.getAnInterface(), sameInstance(aClassStub.getAnInterface()));
+    }
+
+    @Test
+    public void whenNiceMethodReturnsJdkCollection_returnSharedEmptyCollection() throws Exception {
+        ClassWithJdkGetters aClassStub = createNiceStub(ClassWithJdkGetters.class);
+
+        assertThat(aClassStub.getList(), sameInstance(Collections.emptyList()));
+        assertThat(aClassStub.getMap(), sameInstance(Collections.emptyMap()));
+    }
+
+    @Test
+    public void whenNiceMethodReturnsOptional_returnEmptyOptional() throws Exception {
+        ClassWithJdkGetters aClassStub = createNiceStub(ClassWithJdkGetters.class);
+
+        assertThat(aClassStub.getOptional().isPresent(), is(false));
+        assertThat(aClassStub.getOptionalInt().isPresent(), is(false));
+    }
+
+    @Test
+    public void whenNiceMethodReturnsStream_eachCallReturnsUsableEmptyStream() throws Exception {
+        ClassWithJdkGetters aClassStub = createNiceStub(ClassWithJdkGetters.class);
+
+        assertThat(aClassStub.getStream().count(), equalTo(0L));
+        assertThat(aClassStub.getStream().count(), equalTo(0L));
+    }
+
+    @Test
+    public void whenNiceMethodReturnsCompletionStage_returnCompletedFuture() throws Exception {
+        ClassWithJdkGetters aClassStub = createNiceStub(ClassWithJdkGetters.class);
+
+        assertThat(aClassStub.getCompletionStage().toCompletableFuture().isDone(), is(true));
+        assertThat(aClassStub.getCompletionStage().toCompletableFuture().get(), nullValue());
+    }
+
+    @Test
+    public void whenNiceMethodFutureChanged_laterCallsReturnUnchangedFuture() throws Exception {
+        ClassWithJdkGetters aClassStub = createNiceStub(ClassWithJdkGetters.class);
+
+        aClassStub.getCompletionStage().toCompletableFuture().obtrudeValue("changed");
+
+        assertThat(createNiceStub(ClassWithJdkGetters.class).getCompletionStage().toCompletableFuture().get(), nullValue());
+        assertThat(aClassStub.getCompletionStage().toCompletableFuture().get(), nullValue());
+    }
+
     @Test
     public void whenUndefinedMethodReturnsInterfaceAndReturnNullsEnabled_generatedMethodReturnsNull() throws Exception {
         ClassWithObjectGetters aClassStub = createStub(ClassWithObjectGetters.class);
@@ -218,6 +303,20 @@ abstract public class StubGeneratorTestBase {
         assertThat(aClassStub.getAnInterfaceArray(), Matchers.emptyArray());
     }
 
+    @Test
+    public void whenNiceMethodReturningArrayCalledAgain_returnSameArray() throws Exception {
+        ClassWithObjectGetters aClassStub = createNiceStub(ClassWithObjectGetters.class);
+
+        assertThat(aClassStub.getATwoDArray(), sameInstance(aClassStub.getATwoDArray()));
+    }
+
+    @Test
+    public void whenNiceMethodReturningPrimitiveArrayCalledAgain_returnSameArray() throws Exception {
+        AnInterface anInterfaceStub = createNiceStub(AnInterface.class);
+
+        assertThat(anInterfaceStub.getIntArrayArray(), sameInstance(anInterfaceStub.getIntArrayArray()));
+    }
+
     @Test
     public void whenUndefinedMethodReturnsTwoDArrayAndReturnNullsEnabled_generatedMethodReturnsNull() throws Exception {
         ClassWithObjectGetters aClassStub = createStub(ClassWithObjectGetters.class);
@@ -284,6 +383,34 @@ abstract public class StubGeneratorTestBase {
         assertThrows(SimpleStubException.class, stub::getByte);
     }
 
+    @Test
+    public void whenStrictStubMethodCalled_throwNewExceptionWithStackTrace() throws Exception {
+        AnInterface stub = createStrictStub(AnInterface.class);
+
+        UnexpectedMethodCallException first = assertThrows(UnexpectedMethodCallException.class, stub::getIntList);
+        UnexpectedMethodCallException second = assertThrows(UnexpectedMethodCallException.class, stub::getIntList);
+
+        assertThat(first.getMessage(), equalTo("Unexpected call to method " + AnInterface.class.getName() + ".getIntList()"));
+        assertThat(second, not(sameInstance(first)));
+        assertThat(first.getStackTrace(), not(emptyArray()));
+        assertThat(first.getStackTrace()[0].getClassName(), equalTo(stub.getClass().getName()));
+    }
+
+    @Test
+    public void whenStacklessStrictExceptionsEnabled_throwSameExceptionWithoutStackTrace() throws Exception {
+        mementos.add(StaticStubSupport.install(StrictStubBootstraps.class, "STACKLESS_EXCEPTIONS", true));
+        AnInterface stub = createStrictStub(AnInterface.class);
+
+        UnexpectedMethodCallException first = assertThrows(UnexpectedMethodCallException.class, stub::getIntList);
+        UnexpectedMethodCallException second = assertThrows(UnexpectedMethodCallException.class, stub::getIntList);
+        UnexpectedMethodCallException other = assertThrows(UnexpectedMethodCallException.class, stub::getByte);
+
+        assertThat(first.getMessage(), equalTo("Unexpected call to method " + AnInterface.class.getName() + ".getIntList()"));
+        assertThat(second, sameInstance(first));
+        assertThat(other, not(sameInstance(first)));
+        assertThat(first.getStackTrace(), arrayWithSize(0));
+    }
+
     @SuppressWarnings("SameParameterValue")
     private <T> T createStrictStub(Class<T> baseClass) throws InstantiationException, IllegalAccessException, NoSuchMethodException, InvocationTargetException {
         Class<T> aStubClass = createStrictStubClass(baseClass);
@@ -296,4 +423,388 @@ abstract public class StubGeneratorTestBase {
 
         return (Class<T>) generator.generateStubClass(getStubClassName(baseClass), baseClass);
     }
+
+    @Test
+    public void whenRecordingStubGenerated_implementRecordingStub() throws Exception {
+        AnInterfaceWithArguments stub = createRecordingStub(AnInterfaceWithArguments.class);
+
+        assertThat(stub, instanceOf(RecordingStub.class));
+        assertThat(getJournal(stub).getInvocations(), empty());
+    }
+
+    private <T> T createRecordingStub(Class<T> baseClass) throws InstantiationException, IllegalAccessException, NoSuchMethodException, InvocationTargetException {
+        return create(createStubClass(baseClass, StubKind.RECORDING));
+    }
+
+    private InvocationJournal getJournal(Object stub) {
+        return ((RecordingStub) stub).getInvocationJournal();
+    }
+
+    @Test
+    public void whenRecordingStubMethodsCalled_returnDefaultValues() throws Exception {
+        AnInterfaceWithArguments stub = createRecordingStub(AnInterfaceWithArguments.class);
+
+        assertThat(stub.check(true, (byte) 1, 'c', (short) 2, 3, 4L, 5.5f, 6.5), is(false));
+        assertThat(stub.describe("object", 7, new String[0], 8L), nullValue());
+    }
+
+    @Test
+    public void whenRecordingStubMethodsCalled_recordInvocationsInOrder() throws Exception {
+        AnInterfaceWithArguments stub = createRecordingStub(AnInterfaceWithArguments.class);
+
+        stub.run();
+        stub.describe("object", 7, null, 8L);
+        stub.run();
+
+        assertThat(getMethodIds(getJournal(stub).getInvocations()),
+                   contains("run()V", "describe(Ljava/lang/Object;I[Ljava/lang/String;J)Ljava/lang/String;", "run()V"));
+    }
+
+    private List<String> getMethodIds(List<Invocation> invocations) {
+        List<String> methodIds = new ArrayList<>();
+        for (Invocation invocation : invocations)
+            methodIds.add(invocation.getMethodId());
+        return methodIds;
+    }
+
+    @Test
+    public void whenRecordingStubMethodsCalled_recordPrimitiveArguments() throws Exception {
+        AnInterfaceWithArguments stub = createRecordingStub(AnInterfaceWithArguments.class);
+
+        stub.check(true, (byte) -1, 'c', (short) -2, -3, Long.MIN_VALUE, 5.5f, -6.5);
+        Invocation invocation = getJournal(stub).getInvocations().get(0);
+
+        assertThat(invocation.getArgumentCount(), equalTo(8));
+        assertThat(invocation.getBooleanArgument(0), is(true));
+        assertThat(invocation.getIntArgument(1), equalTo(-1));
+        assertThat(invocation.getIntArgument(2), equalTo((int) 'c'));
+        assertThat(invocation.getIntArgument(3), equalTo(-2));
+        assertThat(invocation.getIntArgument(4), equalTo(-3));
+        assertThat(invocation.getLongArgument(5), equalTo(Long.MIN_VALUE));
+        assertThat(invocation.getFloatArgument(6), equalTo(5.5f));
+        assertThat(invocation.getDoubleArgument(7), equalTo(-6.5));
+    }
+
+    @Test
+    public void whenRecordingStubMethodsCalled_recordMixedArguments() throws Exception {
+        AnInterfaceWithArguments stub = createRecordingStub(AnInterfaceWithArguments.class);
+        String[] names = {"a", "b"};
+
+        stub.describe("object", 7, names, 8L);
+        Invocation invocation = getJournal(stub).getInvocations().get(0);
+
+        assertThat(invocation.getArgument(0), equalTo("object"));
+        assertThat(invocation.getArgument(1), equalTo(7));
+        assertThat(invocation.getArgument(2), sameInstance(names));
+        assertThat(invocation.getArgument(3), equalTo(8L));
+        assertThat(invocation.getThread(), sameInstance(Thread.currentThread()));
+    }
+
+    @Test
+    public void whenRecordingStubCreatedWithConstructorArgument_recordInvocations() throws Exception {
+        Class<ABaseClass> aStubClass = createStubClass(ABaseClass.class, StubKind.RECORDING);
+        ABaseClass stub = aStubClass.getDeclaredConstructor(String.class).newInstance("Test Value");
+
+        stub.getProtectedInt();
+
+        assertThat(stub.getString(), equalTo("Test Value"));
+        assertThat(getMethodIds(getJournal(stub).getInvocations()), contains("getProtectedInt()I"));
+    }
+
+    @Test
+    public void whenRecordingStubSuperclassConstructorCallsStubMethod_recordInvocation() throws Exception {
+        AClassCallingAbstractMethodInConstructor stub = create(createStubClass(AClassCallingAbstractMethodInConstructor.class, StubKind.RECORDING));
+
+        assertThat(stub.getInitialValue(), equalTo(0));
+        assertThat(getMethodIds(getJournal(stub).getInvocations()), contains("getValue()I"));
+    }
+
+    @Test
+    public void eachRecordingStub_ownsItsJournal() throws Exception {
+        Class<AnInterfaceWithArguments> aStubClass = createStubClass(AnInterfaceWithArguments.class, StubKind.RECORDING);
+        AnInterfaceWithArguments stub1 = create(aStubClass);
+        AnInterfaceWithArguments stub2 = create(aStubClass);
+
+        stub1.run();
+
+        assertThat(getJournal(stub1).getInvocations(), Matchers.hasSize(1));
+        assertThat(getJournal(stub2).getInvocations(), empty());
+    }
+
+    @Test
+    public void whenCountingStubMethodsCalled_countCallsPerMethod() throws Exception {
+        AnInterfaceWithArguments stub = create(createStubClass(AnInterfaceWithArguments.class, StubKind.COUNTING));
+
+        stub.run();
+        stub.run();
+        assertThat(stub.describe("object", 7, null, 8L), nullValue());
+
+        InvocationCounters counters = ((CountingStub) stub).getInvocationCounters();
+        assertThat(counters.getCount("run"), equalTo(2L));
+        assertThat(counters.getCount("describe"), equalTo(1L));
+        assertThat(counters.getCount("check"), equalTo(0L));
+        assertThat(counters.getCounts().get("describe(Ljava/lang/Object;I[Ljava/lang/String;J)Ljava/lang/String;"), equalTo(1L));
+    }
+
+    @Test
+    public void whenCountingStubSuperclassConstructorCallsStubMethod_countCall() throws Exception {
+        AClassCallingAbstractMethodInConstructor stub = create(createStubClass(AClassCallingAbstractMethodInConstructor.class, StubKind.COUNTING));
+
+        assertThat(((CountingStub) stub).getInvocationCounters().getCount("getValue"), equalTo(1L));
+    }
+
+    @Test
+    public void whenNiceCountingStubMethodsCalled_countCallsAndReturnNiceValues() throws Exception {
+        AnInterface stub = create(createStubClass(AnInterface.class, StubKind.NICE_COUNTING));
+
+        assertThat(stub.getString(), isEmptyString());
+        assertThat(stub.getInt(), equalTo(0));
+        stub.getString();
+
+        InvocationCounters counters = ((CountingStub) stub).getInvocationCounters();
+        assertThat(counters.getCount("getString"), equalTo(2L));
+        assertThat(counters.getCount("getInt"), equalTo(1L));
+    }
+
+    @Test
+    public void whenCountingStubCalledConcurrently_countAllCalls() throws Exception {
+        AnInterfaceWithArguments stub = create(createStubClass(AnInterfaceWithArguments.class, StubKind.COUNTING));
+        final int numThreads = 4;
+        final int callsPerThread = 10_000;
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < numThreads; i++)
+            threads.add(new Thread(() -> {
+                for (int j = 0; j < callsPerThread; j++)
+                    stub.run();
+            }));
+        for (Thread thread : threads)
+            thread.start();
+        for (Thread thread : threads)
+            thread.join();
+
+        assertThat(((CountingStub) stub).getInvocationCounters().getCount("run"), equalTo((long) numThreads * callsPerThread));
+    }
+
+    @Test
+    public void whenBudgetedStubHasNoLimits_permitAllCalls() throws Exception {
+        AnInterfaceWithArguments stub = create(createStubClass(AnInterfaceWithArguments.class, StubKind.BUDGETED));
+
+        for (int i = 0; i < 100; i++)
+            stub.run();
+
+        assertThat(getBudget(stub).getCount("run"), equalTo(100L));
+        assertThat(stub.check(true, (byte) 1, 'c', (short) 2, 3, 4L, 5.5f, 6.5), is(false));
+    }
+
+    private CallBudget getBudget(Object stub) {
+        return ((BudgetedStub) stub).getCallBudget();
+    }
+
+    @Test
+    public void whenBudgetedStubExceedsMethodLimit_throwException() throws Exception {
+        AnInterfaceWithArguments stub = create(createStubClass(AnInterfaceWithArguments.class, StubKind.BUDGETED));
+        getBudget(stub).limit("run", 2);
+
+        stub.run();
+        stub.run();
+        CallBudgetExceededException exception = assertThrows(CallBudgetExceededException.class, stub::run);
+
+        assertThat(exception.getMethodId(), equalTo("run()V"));
+        assertThat(exception.getCount(), equalTo(3L));
+        assertThat(exception.getMessage(), equalTo("Method run()V called 3 times, exceeding its budget of 2"));
+    }
+
+    @Test
+    public void whenBudgetedStubExceedsTotalLimit_throwException() throws Exception {
+        AnInterfaceWithArguments stub = create(createStubClass(AnInterfaceWithArguments.class, StubKind.BUDGETED));
+        getBudget(stub).limitTotal(2);
+
+        stub.run();
+        stub.describe("object", 7, null, 8L);
+        CallBudgetExceededException exception = assertThrows(CallBudgetExceededException.class, stub::run);
+
+        assertThat(exception.getCount(), equalTo(3L));
+        assertThat(exception.getMessage(), equalTo("Call 3, to method run()V, exceeds the total budget of 2"));
+    }
+
+    @Test
+    public void whenBudgetedStubSuperclassConstructorCallsStubMethod_chargeCall() throws Exception {
+        AClassCallingAbstractMethodInConstructor stub = create(createStubClass(AClassCallingAbstractMethodInConstructor.class, StubKind.BUDGETED));
+
+        assertThat(getBudget(stub).getCount("getValue"), equalTo(1L));
+    }
+
+    @Test
+    public void eachBudgetedStub_ownsItsBudget() throws Exception {
+        Class<AnInterfaceWithArguments> aStubClass = createStubClass(AnInterfaceWithArguments.class, StubKind.BUDGETED);
+        AnInterfaceWithArguments stub1 = create(aStubClass);
+        AnInterfaceWithArguments stub2 = create(aStubClass);
+        getBudget(stub1).limit("run", 0);
+
+        assertThrows(CallBudgetExceededException.class, stub1::run);
+        stub2.run();
+    }
+
+    @Test
+    public void whenLatencyStubHasNoLatency_returnWithoutDelay() throws Exception {
+        AnInterfaceWithArguments stub = create(createStubClass(AnInterfaceWithArguments.class, StubKind.LATENCY));
+
+        long start = System.nanoTime();
+        stub.run();
+
+        assertThat(System.nanoTime() - start, lessThan(Duration.ofSeconds(1).toNanos()));
+        assertThat(stub.check(true, (byte) 1, 'c', (short) 2, 3, 4L, 5.5f, 6.5), is(false));
+    }
+
+    private LatencySimulator getLatencySimulator(Object stub) {
+        return ((LatencyStub) stub).getLatencySimulator();
+    }
+
+    @Test
+    public void whenLatencyStubMethodHasLatency_delayOnlyThatMethod() throws Exception {
+        AnInterfaceWithArguments stub = create(createStubClass(AnInterfaceWithArguments.class, StubKind.LATENCY));
+        getLatencySimulator(stub).setLatency("describe", Latency.fixed(Duration.ofMillis(20)));
+
+        long start = System.nanoTime();
+        assertThat(stub.describe("object", 7, null, 8L), nullValue());
+        long elapsed = System.nanoTime() - start;
+        stub.run();
+
+        assertThat(elapsed, greaterThanOrEqualTo(Duration.ofMillis(20).toNanos()));
+        assertThat(System.nanoTime() - start - elapsed, lessThan(Duration.ofMillis(20).toNanos()));
+    }
+
+    @Test
+    public void niceLatencyStub_returnsNiceValues() throws Exception {
+        AnInterface stub = create(createStubClass(AnInterface.class, StubKind.NICE_LATENCY));
+        getLatencySimulator(stub).setDefaultLatency(Latency.fixed(Duration.ofMillis(1)));
+
+        assertThat(stub.getString(), isEmptyString());
+        assertThat(stub.getIntList(), empty());
+        assertThat(stub.getInt(), equalTo(0));
+    }
+
+    @Test
+    public void whenLatencyStubSuperclassConstructorCallsStubMethod_createStub() throws Exception {
+        AClassCallingAbstractMethodInConstructor stub = create(createStubClass(AClassCallingAbstractMethodInConstructor.class, StubKind.LATENCY));
+
+        assertThat(stub.getInitialValue(), equalTo(0));
+        assertThat(getLatencySimulator(stub), not(nullValue()));
+    }
+
+    @Test
+    public void eachLatencyStub_ownsItsSimulator() throws Exception {
+        Class<AnInterfaceWithArguments> aStubClass = createStubClass(AnInterfaceWithArguments.class, StubKind.LATENCY);
+
+        assertThat(getLatencySimulator(create(aStubClass)), not(sameInstance(getLatencySimulator(create(aStubClass)))));
+    }
+
+    @Test
+    public void unconfiguredConfigurableStub_returnsDefaults() throws Exception {
+        AnInterfaceWithArguments stub = create(createStubClass(AnInterfaceWithArguments.class, StubKind.CONFIGURABLE));
+
+        stub.run();
+        assertThat(stub, instanceOf(ConfigurableStub.class));
+        assertThat(stub.check(true, (byte) 1, 'c', (short) 2, 3, 4L, 5.5f, 6.5), is(false));
+        assertThat(stub.describe("object", 7, null, 8L), nullValue());
+    }
+
+    @Test
+    public void whenConfigurableStubConfigured_returnConfiguredValues() throws Exception {
+        AnInterface stub = create(createStubClass(AnInterface.class, StubKind.CONFIGURABLE));
+
+        Stub.when(stub).method("getInt").returns(42)
+                       .method("getLong").returns(7L)
+                       .method("isTrue").returns(true)
+                       .method("getString").returns("configured");
+
+        assertThat(stub.getInt(), equalTo(42));
+        assertThat(stub.getLong(), equalTo(7L));
+        assertThat(stub.isTrue(), is(true));
+        assertThat(stub.getString(), equalTo("configured"));
+        assertThat(stub.getDouble(), equalTo(0.0));
+    }
+
+    @Test
+    public void whenConfigurableStubAnswers_passArguments() throws Exception {
+        AnInterfaceWithArguments stub = create(createStubClass(AnInterfaceWithArguments.class, StubKind.CONFIGURABLE));
+
+        Stub.when(stub).method("describe").answers(args -> args[0] + ":" + args[1] + ":" + args[3])
+                       .method("check").answers(args -> args[4].equals(3) && args[7].equals(6.5));
+
+        assertThat(stub.describe("object", 7, null, 8L), equalTo("object:7:8"));
+        assertThat(stub.check(true, (byte) 1, 'c', (short) 2, 3, 4L, 5.5f, 6.5), is(true));
+    }
+
+    @Test
+    public void whenConfigurableStubThrowsException_throwIt() throws Exception {
+        AnInterfaceWithArguments stub = create(createStubClass(AnInterfaceWithArguments.class, StubKind.CONFIGURABLE));
+        IllegalStateException exception = new IllegalStateException("configured");
+
+        Stub.when(stub).method("run").throwsException(exception);
+
+        assertThat(assertThrows(IllegalStateException.class, stub::run), sameInstance(exception));
+    }
+
+    @Test
+    public void configurationOfConfigurableStub_appliesOnlyToThatInstance() throws Exception {
+        Class<AnInterface> aStubClass = createStubClass(AnInterface.class, StubKind.CONFIGURABLE);
+        AnInterface stub1 = create(aStubClass);
+        AnInterface stub2 = create(aStubClass);
+
+        Stub.when(stub1).method("getInt").returns(1);
+        Stub.when(stub2).method("getInt").returns(2);
+
+        assertThat(stub1.getInt(), equalTo(1));
+        assertThat(stub2.getInt(), equalTo(2));
+        AnInterface stub3 = create(aStubClass);
+        assertThat(stub3.getInt(), equalTo(0));
+    }
+
+    @Test
+    public void afterConfigurableStubReset_returnDefaults() throws Exception {
+        AnInterface stub = create(createStubClass(AnInterface.class, StubKind.CONFIGURABLE));
+        Stub.when(stub).method("getInt").returns(3).method("getString").returns("configured");
+
+        Stub.when(stub).method("getInt").reset();
+        assertThat(stub.getInt(), equalTo(0));
+        assertThat(stub.getString(), equalTo("configured"));
+
+        Stub.when(stub).reset();
+        assertThat(stub.getString(), nullValue());
+    }
+
+    @Test
+    public void whenConfiguredValueDoesNotMatchReturnType_throwException() throws Exception {
+        AnInterfaceWithArguments stub = create(createStubClass(AnInterfaceWithArguments.class, StubKind.CONFIGURABLE));
+
+        assertThrows(SimpleStubException.class, () -> Stub.when(stub).method("describe").returns(3));
+        assertThrows(SimpleStubException.class, () -> Stub.when(stub).method("run").returns(3));
+        assertThrows(SimpleStubException.class, () -> Stub.when(stub).method("unknown"));
+    }
+
+    @Test
+    public void whenNullConfiguredForPrimitiveReturnType_throwExceptionNamingMethod() throws Exception {
+        AnInterface stub = create(createStubClass(AnInterface.class, StubKind.CONFIGURABLE));
+
+        SimpleStubException exception = assertThrows(SimpleStubException.class, () -> Stub.when(stub).method("getInt").returns(null));
+
+        assertThat(exception.getMessage(), containsString("getInt"));
+        assertThat(stub.getInt(), equalTo(0));
+    }
+
+    @Test
+    public void whenManyConfigurableStubsConfigured_eachReturnsItsOwnValue() throws Exception {
+        Class<AnInterface> aStubClass = createStubClass(AnInterface.class, StubKind.CONFIGURABLE);
+        List<AnInterface> stubs = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            AnInterface stub = create(aStubClass);
+            Stub.when(stub).method("getInt").returns(i);
+            stubs.add(stub);
+        }
+
+        for (int i = 0; i < stubs.size(); i++)
+            assertThat(stubs.get(i).getInt(), equalTo(i));
+    }
 }
@@ -1,10 +1,24 @@
 package com.meterware.simplestub.generation.asm;
 /*
- * Copyright (c) 2015-2022 Russell Gold
+ * Copyright (c) 2015-2026 Russell Gold
  *
  * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
  */
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 import com.meterware.simplestub.generation.StubGeneratorTestBase;
+import com.meterware.simplestub.generation.StubKind;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
 
 /**
  * Tests for creating stubs using ASM.
@@ -13,6 +27,15 @@ import com.meterware.simplestub.generation.StubGeneratorTestBase;
  */
 public class AsmStubGeneratorTest extends StubGeneratorTestBase {
 
+    private static final String[] BASE_CLASS_NAMES = {
+            "com.meterware.simplestub.generation.AnInterface",
+            "com.meterware.simplestub.generation.ADerivedClass",
+            "com.meterware.simplestub.generation.AClassWithNoDefaultConstructor",
+            "com.meterware.simplestub.generation.ClassWithObjectGetters",
+            "com.meterware.simplestub.generation.AnInterfaceWithArguments",
+            "com.meterware.simplestub.generation.asm.AsmStubGeneratorTest$WideArguments",
+    };
+
     public AsmStubGeneratorTest() {
         super(new AsmStubGeneratorFactory());
     }
@@ -21,4 +44,50 @@ public class AsmStubGeneratorTest extends StubGeneratorTestBase {
     protected String getImplementationType() {
         return "ASM";
     }
+
+    @Test
+    void generatedMaximumStackAndLocals_matchThoseComputedByAsm() throws Exception {
+        for (String className : BASE_CLASS_NAMES)
+            for (StubKind kind : StubKind.values()) {
+                byte[] classBytes = new AsmStubGenerator(Class.forName(className), kind).generateStubClassBytes(className + "$Stub");
+
+                assertThat(className + " " + kind, getMaxSizes(classBytes), equalTo(getMaxSizes(recomputeMaxSizes(classBytes))));
+            }
+    }
+
+    private byte[] recomputeMaxSizes(byte[] classBytes) {
+        ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        new ClassReader(classBytes).accept(writer, 0);
+        return writer.toByteArray();
+    }
+
+    private Map<String, String> getMaxSizes(byte[] classBytes) {
+        Map<String, String> maxSizes = new HashMap<>();
+        new ClassReader(classBytes).accept(new ClassVisitor(Opcodes.ASM7) {
+            @Override
+            public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+                return new MethodVisitor(Opcodes.ASM7) {
+                    @Override
+                    public void visitMaxs(int maxStack, int maxLocals) {
+                        maxSizes.put(name + descriptor, maxStack + "/" + maxLocals);
+                    }
+                };
+            }
+        }, 0);
+        return maxSizes;
+    }
+
+    @SuppressWarnings("unused")
+    abstract static class WideArguments {
+        WideArguments(long first, double second, String third) {
+        }
+
+        abstract double getDouble(long first, int second, double third);
+
+        abstract long[] getLongs(double value);
+
+        abstract Runnable getRunnable(long value);
+
+        abstract List<String> getNames();
+    }
 }
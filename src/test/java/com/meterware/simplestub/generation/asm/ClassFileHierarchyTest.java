@@ -0,0 +1,115 @@
+package com.meterware.simplestub.generation.asm;
+/*
+ * Copyright (c) 2026 Russell Gold
+ *
+ * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
+ */
+
+import java.io.Serializable;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Collection;
+import java.util.Set;
+import java.util.TreeSet;
+
+import com.meterware.simplestub.Stub;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.arrayContaining;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+/**
+ * Tests describing classes to stub from their class files.
+ *
+ * @author Russell Gold
+ */
+class ClassFileHierarchyTest {
+
+    private static final String[] FIXTURE_CLASS_NAMES = {
+            "com.meterware.simplestub.generation.ABaseClass",
+            "com.meterware.simplestub.generation.ADerivedClass",
+            "com.meterware.simplestub.generation.AnInterface",
+            "com.meterware.simplestub.generation.AClassWithNoDefaultConstructor",
+            "com.meterware.simplestub.generation.ClassWithObjectGetters",
+            "com.meterware.simplestub.generation.AbstractMethodIndexTest$AbstractAgain",
+            "com.meterware.simplestub.generation.AbstractMethodIndexTest$Narrowed",
+            ClassFileHierarchyTest.class.getName() + "$UnloadedClass",
+    };
+
+    @Test
+    void classFileTemplates_matchReflectedTemplates() throws Exception {
+        for (String className : FIXTURE_CLASS_NAMES) {
+            StubClassTemplate fromClassFile = ClassFileHierarchy.describe(getClass().getClassLoader(), className);
+            StubClassTemplate reflected = StubClassTemplate.reflect(Class.forName(className));
+
+            assertThat(className, fromClassFile.getSuperName(), equalTo(reflected.getSuperName()));
+            assertThat(className, fromClassFile.getInterfaces(), equalTo(reflected.getInterfaces()));
+            assertThat(className, new TreeSet<>(fromClassFile.getConstructorDescriptors()), equalTo(new TreeSet<>(reflected.getConstructorDescriptors())));
+            assertThat(className, getSignatures(fromClassFile.getMethods()), equalTo(getSignatures(reflected.getMethods())));
+        }
+    }
+
+    private Set<String> getSignatures(Collection<StubMethod> methods) {
+        Set<String> signatures = new TreeSet<>();
+        for (StubMethod method : methods)
+            signatures.add(method.getDeclaringClassName() + '.' + method.getName() + method.getDescriptor() + ':' + method.isReturnTypeInterface());
+        return signatures;
+    }
+
+    @Test
+    void whenClassDescribed_doNotLoadIt() throws Exception {
+        try (IsolatedClassLoader classLoader = new IsolatedClassLoader()) {
+            StubClassTemplate template = ClassFileHierarchy.describe(classLoader, UnloadedClass.class.getName());
+
+            assertThat(getSignatures(template.getMethods()), containsInAnyOrder(
+                        UnloadedClass.class.getName() + ".getInterface()L" + UnloadedInterface.class.getName().replace('.', '/') + ";:true",
+                        UnloadedClass.class.getName() + ".getCount()I:false",
+                        Comparable.class.getName() + ".compareTo(Ljava/lang/Object;)I:false"));
+            assertThat(classLoader.isLoaded(UnloadedClass.class.getName()), is(false));
+            assertThat(classLoader.isLoaded(UnloadedInterface.class.getName()), is(false));
+        }
+    }
+
+    @Test
+    void whenInterfaceDescribed_stubExtendsObject() {
+        StubClassTemplate template = ClassFileHierarchy.describe(getClass().getClassLoader(), UnloadedInterface.class.getName());
+
+        assertThat(template.getSuperName(), equalTo("java/lang/Object"));
+        assertThat(template.getInterfaces(), arrayContaining(UnloadedInterface.class.getName().replace('.', '/')));
+        assertThat(template.getConstructorDescriptors(), contains("()V"));
+    }
+
+    @Test
+    void whenClassFileUnavailable_returnNull() {
+        Class<?> generatedClass = Stub.createStub(UnloadedInterface.class).getClass();
+
+        assertThat(ClassFileHierarchy.describe(generatedClass.getClassLoader(), generatedClass.getName()), nullValue());
+    }
+
+    // Finds the test classes without delegating to the application classloader, so that it can report what it has loaded.
+    static class IsolatedClassLoader extends URLClassLoader {
+
+        IsolatedClassLoader() {
+            super(new URL[] {ClassFileHierarchyTest.class.getProtectionDomain().getCodeSource().getLocation()}, null);
+        }
+
+        boolean isLoaded(String className) {
+            return findLoadedClass(className) != null;
+        }
+    }
+
+    interface UnloadedInterface {
+        void run();
+    }
+
+    abstract static class UnloadedClass implements Serializable, Comparable<UnloadedClass> {
+        abstract UnloadedInterface getInterface();
+
+        abstract int getCount();
+    }
+}
@@ -1,11 +1,21 @@
 package com.meterware.simplestub.generation.javassist;
 /*
- * Copyright (c) 2015-2022 Russell Gold
+ * Copyright (c) 2015-2026 Russell Gold
  *
  * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
  */
 
 import com.meterware.simplestub.generation.StubGeneratorTestBase;
+import com.meterware.simplestub.generation.StubKind;
+import javassist.CtClass;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
 
 /**
  * Tests for creating stubs using Javassist.
@@ -23,4 +33,59 @@ public class JavassistStubGeneratorTest extends StubGeneratorTestBase {
     protected String getImplementationType() {
         return "JA";
     }
+
+    @Test
+    void stubsOfClassesFromSameLoader_shareClassPool() {
+        assertThat(ClassPools.getPool(PooledInterface.class.getClassLoader()), sameInstance(ClassPools.getPool(getClass().getClassLoader())));
+    }
+
+    @Test
+    void afterStubGenerated_detachItFromClassPool() {
+        String stubClassName = PooledInterface.class.getName() + "$DetachedStub";
+        new JavassistStubGenerator(PooledInterface.class, StubKind.NICE).generateStubClassBytes(stubClassName);
+
+        assertThat(ClassPools.getPool(PooledInterface.class.getClassLoader()).getOrNull(stubClassName), nullValue());
+    }
+
+    @Test
+    void whenStubClassGeneratedAgain_generateSameBytes() {
+        String stubClassName = PooledInterface.class.getName() + "$RepeatedStub";
+        byte[] first = new JavassistStubGenerator(PooledInterface.class, StubKind.STRICT).generateStubClassBytes(stubClassName);
+        byte[] second = new JavassistStubGenerator(PooledInterface.class, StubKind.STRICT).generateStubClassBytes(stubClassName);
+
+        assertThat(second, equalTo(first));
+    }
+
+    @Test
+    void afterStubGenerated_stubbedClassInPoolMayStillBeWritten() throws Exception {
+        new JavassistStubGenerator(PooledAbstractClass.class, StubKind.NICE).generateStubClassBytes(PooledAbstractClass.class.getName() + "$WritableStub");
+
+        CtClass stubbedClass = ClassPools.getPool(PooledAbstractClass.class.getClassLoader()).get(PooledAbstractClass.class.getName());
+
+        assertThat(stubbedClass.isFrozen(), is(false));
+        assertThat(stubbedClass.toBytecode().length, greaterThan(0));
+    }
+
+    @Test
+    void whenStubbedClassStubbedAgain_generateSameBytes() {
+        String stubClassName = PooledAbstractClass.class.getName() + "$RepeatedStub";
+        byte[] first = new JavassistStubGenerator(PooledAbstractClass.class, StubKind.DEFAULT).generateStubClassBytes(stubClassName);
+        byte[] second = new JavassistStubGenerator(PooledAbstractClass.class, StubKind.DEFAULT).generateStubClassBytes(stubClassName);
+
+        assertThat(second, equalTo(first));
+    }
+
+    public abstract static class PooledAbstractClass {
+        public abstract int getCount();
+
+        public String describe() {
+            return "count " + getCount();
+        }
+    }
+
+    public interface PooledInterface {
+        String getName();
+
+        void setValue(long value, Object other);
+    }
 }
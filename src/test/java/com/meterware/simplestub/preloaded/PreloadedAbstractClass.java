@@ -0,0 +1,14 @@
+package com.meterware.simplestub.preloaded;
+/*
+ * Copyright (c) 2026 Russell Gold
+ *
+ * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
+ */
+/**
+ * An abstract class in a package which is preloaded as a whole.
+ *
+ * @author Russell Gold
+ */
+public abstract class PreloadedAbstractClass {
+    public abstract String getName();
+}
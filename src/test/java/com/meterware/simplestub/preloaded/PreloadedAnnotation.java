@@ -0,0 +1,13 @@
+package com.meterware.simplestub.preloaded;
+/*
+ * Copyright (c) 2026 Russell Gold
+ *
+ * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
+ */
+/**
+ * An annotation, which preloading a package must skip.
+ *
+ * @author Russell Gold
+ */
+public @interface PreloadedAnnotation {
+}
@@ -0,0 +1,14 @@
+package com.meterware.simplestub.preloaded;
+/*
+ * Copyright (c) 2026 Russell Gold
+ *
+ * Licensed under the Apache License v 2.0 as shown at http://www.apache.org/licenses/LICENSE-2.0.txt.
+ */
+/**
+ * An interface in a package which is preloaded as a whole.
+ *
+ * @author Russell Gold
+ */
+public interface PreloadedInterface {
+    int getCount();
+}